@@ -3,8 +3,10 @@
 -- Usage: psql -U deals_user -d deals_data -f create-tables-manually.sql
 
 -- Create transaction_log table
+CREATE SEQUENCE IF NOT EXISTS transaction_log_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS transaction_log (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('transaction_log_seq'),
     created_at TIMESTAMP,
     file_name VARCHAR(255) NOT NULL UNIQUE,
     status VARCHAR(20) NOT NULL,
@@ -13,14 +15,19 @@ CREATE TABLE IF NOT EXISTS transaction_log (
     processing_duration_ms BIGINT,
     started_at TIMESTAMP,
     completed_at TIMESTAMP,
-    error_message VARCHAR(1000)
+    error_message VARCHAR(1000),
+    rows_processed BIGINT,
+    bytes_total BIGINT,
+    bytes_processed BIGINT
 );
 
 CREATE UNIQUE INDEX IF NOT EXISTS idx_file_name ON transaction_log(file_name);
 
 -- Create valid_deal table
+CREATE SEQUENCE IF NOT EXISTS valid_deal_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS valid_deal (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('valid_deal_seq'),
     created_at TIMESTAMP,
     file_name VARCHAR(255) NOT NULL,
     deal_id VARCHAR(100) NOT NULL UNIQUE,
@@ -35,8 +42,10 @@ CREATE INDEX IF NOT EXISTS idx_from_currency ON valid_deal(from_currency);
 CREATE INDEX IF NOT EXISTS idx_file_name_valid ON valid_deal(file_name);
 
 -- Create invalid_deal table
+CREATE SEQUENCE IF NOT EXISTS invalid_deal_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS invalid_deal (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('invalid_deal_seq'),
     created_at TIMESTAMP,
     file_name VARCHAR(255) NOT NULL,
     deal_id VARCHAR(100),
@@ -51,8 +60,10 @@ CREATE TABLE IF NOT EXISTS invalid_deal (
 CREATE INDEX IF NOT EXISTS idx_invalid_file_name ON invalid_deal(file_name);
 
 -- Create accumulative_deal_count table
+CREATE SEQUENCE IF NOT EXISTS accumulative_deal_count_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS accumulative_deal_count (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('accumulative_deal_count_seq'),
     created_at TIMESTAMP,
     currency_code VARCHAR(3) NOT NULL UNIQUE,
     count_of_deals BIGINT NOT NULL
@@ -35,6 +35,7 @@ public class DatabaseInitializationListener implements ApplicationListener<Appli
             "transaction_log",
             "valid_deal",
             "invalid_deal",
+            "deal_id_registry",
             "accumulative_deal_count"
         };
         
@@ -65,10 +66,11 @@ public class DatabaseInitializationListener implements ApplicationListener<Appli
             if (count == null || count == 0) {
                 logger.warn("transaction_log table does not exist. Creating it now...");
                 
-                // Create the table
+                // Create the id sequence and the table
+                jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS transaction_log_seq INCREMENT BY 50");
                 String createTableSql = """
                     CREATE TABLE transaction_log (
-                        id BIGSERIAL PRIMARY KEY,
+                        id BIGINT PRIMARY KEY DEFAULT nextval('transaction_log_seq'),
                         created_at TIMESTAMP,
                         file_name VARCHAR(255) NOT NULL UNIQUE,
                         status VARCHAR(20) NOT NULL,
@@ -77,7 +79,14 @@ public class DatabaseInitializationListener implements ApplicationListener<Appli
                         processing_duration_ms BIGINT,
                         started_at TIMESTAMP,
                         completed_at TIMESTAMP,
-                        error_message VARCHAR(1000)
+                        error_message VARCHAR(1000),
+                        rows_processed BIGINT,
+                        bytes_total BIGINT,
+                        bytes_processed BIGINT,
+                        checkpoint_row BIGINT,
+                        checkpoint_offset BIGINT,
+                        spool_file VARCHAR(1000),
+                        heartbeat_at TIMESTAMP
                     )
                     """;
                 
@@ -0,0 +1,344 @@
+package com.example.dealsystem.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tuning settings for CSV ingestion, bound from the {@code deal.ingestion.*} properties
+ */
+@ConfigurationProperties(prefix = "deal.ingestion")
+@Validated
+@Getter
+@Setter
+public class IngestionProperties {
+
+    /**
+     * How parsed rows are handed over to persistence
+     */
+    private Mode mode = Mode.CHUNKED;
+
+    /**
+     * How chunks of deals are inserted when they are not bulk loaded with COPY
+     */
+    private Writer writer = Writer.JPA;
+
+    /**
+     * Number of rows validated, de-duplicated and written together in CHUNKED mode
+     */
+    @Min(1)
+    private int chunkSize = 1000;
+
+    /**
+     * Number of threads parsing and validating byte ranges of a file in PARALLEL mode
+     */
+    @Min(1)
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Size of the byte ranges a file is split into in PARALLEL mode, ranges are extended to the next record boundary
+     */
+    private DataSize parseRangeSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Size of the windows a spooled file is memory-mapped in when it is parsed sequentially
+     */
+    private DataSize mapWindowSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Uploads at least this large are bulk loaded with PostgreSQL COPY even when not requested explicitly
+     */
+    private DataSize bulkLoadThreshold = DataSize.ofMegabytes(20);
+
+    /**
+     * Invalid rows per error category of an upload that are logged and listed in its error summary, further
+     * invalid rows are only counted
+     */
+    @Min(0)
+    private int invalidRowExamples = 5;
+
+    /**
+     * Background upload jobs accepted through the /api/uploads endpoint
+     */
+    @Valid
+    private final Async async = new Async();
+
+    /**
+     * Resumable uploads sent in chunks through the /api/uploads/resumable endpoint
+     */
+    @Valid
+    private final Resumable resumable = new Resumable();
+
+    /**
+     * ZIP archives of several files uploaded through the /api/uploads/archive endpoint
+     */
+    @Valid
+    private final Archive archive = new Archive();
+
+    /**
+     * Limit on the imports running at the same time, across all kinds of uploads
+     */
+    @Valid
+    private final Admission admission = new Admission();
+
+    /**
+     * In-memory index of existing deal IDs used to skip duplicate lookups for new IDs
+     */
+    @Valid
+    private final IdIndex idIndex = new IdIndex();
+
+    /**
+     * Write-behind of the accumulative deal counts per currency
+     */
+    @Valid
+    private final AccumulativeCounts accumulativeCounts = new AccumulativeCounts();
+
+    /**
+     * Leases of running imports and recovery of imports whose node stopped
+     */
+    @Valid
+    private final Recovery recovery = new Recovery();
+
+    /**
+     * Creation of the monthly partitions of valid_deal on PostgreSQL
+     */
+    @Valid
+    private final Partitions partitions = new Partitions();
+
+    /**
+     * Cache of the summaries of ended imports shown on the summary page
+     */
+    @Valid
+    private final SummaryCache summaryCache = new SummaryCache();
+
+    public enum Mode {
+        /** One duplicate lookup and one insert per row */
+        ROW,
+        /** One duplicate lookup and batched inserts per chunk of rows */
+        CHUNKED,
+        /** As CHUNKED, with the spooled file parsed and validated in parallel byte ranges */
+        PARALLEL
+    }
+
+    public enum Writer {
+        /** Batched inserts through the JPA repositories and the persistence context */
+        JPA,
+        /** Batched JDBC inserts that bypass the persistence context */
+        JDBC
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+
+        /**
+         * Directory uploads are spooled to until a worker has processed them
+         */
+        private Path spoolDirectory = Path.of(System.getProperty("java.io.tmpdir"), "deal-system-uploads");
+
+        /**
+         * Number of uploads processed at the same time
+         */
+        @Min(1)
+        private int workers = 2;
+
+        /**
+         * Number of accepted uploads waiting for a worker, further uploads are rejected
+         */
+        @Min(0)
+        private int queueCapacity = 20;
+    }
+
+    @Getter
+    @Setter
+    public static class Resumable {
+
+        /**
+         * Size of the chunks a resumable upload is sent in, only the last chunk may be smaller
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(8);
+
+        /**
+         * Largest file accepted as a resumable upload
+         */
+        private DataSize maxFileSize = DataSize.ofGigabytes(10);
+
+        /**
+         * Time without a new chunk after which a resumable upload is abandoned and its import fails
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * Number of resumable uploads imported at the same time, apart from the background upload workers and the
+         * admission limit, as their imports mostly wait for the next chunk
+         */
+        @Min(1)
+        private int workers = 2;
+
+        /**
+         * Number of initiated resumable uploads waiting for a worker, further uploads are rejected
+         */
+        @Min(0)
+        private int queueCapacity = 20;
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+
+        /**
+         * Number of files of archives imported at the same time, across all archives
+         */
+        @Min(1)
+        private int parallelism = 4;
+
+        /**
+         * Largest number of files accepted in one archive
+         */
+        @Min(1)
+        private int maxEntries = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Admission {
+
+        /**
+         * Number of imports running at the same time, further imports wait for a running one to end
+         */
+        @Min(1)
+        private int maxConcurrent = 4;
+
+        /**
+         * Number of uploads waiting to be imported before further uploads sent for an immediate import are rejected
+         */
+        @Min(0)
+        private int queueCapacity = 20;
+
+        /**
+         * Longest time an upload sent for an immediate import waits to be imported before it is rejected
+         */
+        private Duration maxWait = Duration.ofMinutes(2);
+
+        /**
+         * Whether the number of imports running at the same time follows the database latency, up to max-concurrent
+         */
+        private boolean adaptive = false;
+
+        /**
+         * Number of imports running at the same time the adaptive limit does not go below
+         */
+        @Min(1)
+        private int minConcurrent = 1;
+
+        /**
+         * Time to commit a chunk above which the adaptive limit is decreased, below it the limit is increased
+         */
+        private Duration targetLatency = Duration.ofSeconds(1);
+
+        /**
+         * Factor the adaptive limit is multiplied with when chunks commit slower than the target latency
+         */
+        @DecimalMin("0.1")
+        @DecimalMax("0.9")
+        private double decreaseFactor = 0.5;
+    }
+
+    @Getter
+    @Setter
+    public static class IdIndex {
+
+        /**
+         * Whether duplicate lookups are filtered through the index, only for a single node that is the only writer
+         * of deals
+         */
+        private boolean enabled = false;
+
+        /**
+         * Memory used by the Bloom filter of deal IDs
+         */
+        private DataSize memoryBudget = DataSize.ofMegabytes(16);
+
+        /**
+         * Number of deal IDs the filter is sized for, more IDs raise its false positive rate
+         */
+        @Min(1)
+        private long expectedDeals = 10_000_000;
+    }
+
+    @Getter
+    @Setter
+    public static class AccumulativeCounts {
+
+        /**
+         * Delay between two flushes of the recorded deal counts into accumulative_deal_count
+         */
+        private Duration flushInterval = Duration.ofSeconds(5);
+
+        /**
+         * How long the counts are read from memory, counts recorded meanwhile show up after this delay
+         */
+        private Duration cacheTtl = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Recovery {
+
+        /**
+         * Delay between two renewals of the leases of the imports running on this node
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+        /**
+         * Age of the last heartbeat after which an import is recovered, must be well above the heartbeat interval
+         */
+        private Duration leaseTimeout = Duration.ofMinutes(2);
+
+        /**
+         * Delay between two searches for imports to recover, the first one runs right after startup
+         */
+        private Duration interval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Partitions {
+
+        /**
+         * Number of months after the current one whose partitions are created in advance
+         */
+        @Min(0)
+        private int monthsAhead = 3;
+
+        /**
+         * Delay between two runs of the partition maintenance, the first one runs right after startup
+         */
+        private Duration interval = Duration.ofHours(12);
+    }
+
+    @Getter
+    @Setter
+    public static class SummaryCache {
+
+        /**
+         * Maximum number of summaries kept, the least frequently read ones are evicted first
+         */
+        @Min(0)
+        private long maxSize = 10_000;
+
+        /**
+         * How long a summary is kept after it was loaded
+         */
+        private Duration ttl = Duration.ofHours(1);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.dealsystem.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Worker pools for asynchronous upload jobs, resumable uploads and the files of uploaded archives
+ */
+@Configuration
+public class UploadJobConfig {
+
+    /**
+     * Fixed number of workers in front of a bounded queue, uploads beyond the queue capacity are rejected
+     * instead of piling up on disk
+     */
+    @Bean
+    public ThreadPoolTaskExecutor uploadJobExecutor(IngestionProperties ingestionProperties) {
+        IngestionProperties.Async async = ingestionProperties.getAsync();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(async.getWorkers());
+        executor.setMaxPoolSize(async.getWorkers());
+        executor.setQueueCapacity(async.getQueueCapacity());
+        executor.setThreadNamePrefix("upload-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Workers of resumable uploads, kept apart from the upload jobs as an import waits for chunks until the upload
+     * is complete
+     */
+    @Bean
+    public ThreadPoolTaskExecutor resumableUploadExecutor(IngestionProperties ingestionProperties) {
+        IngestionProperties.Resumable resumable = ingestionProperties.getResumable();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(resumable.getWorkers());
+        executor.setMaxPoolSize(resumable.getWorkers());
+        executor.setQueueCapacity(resumable.getQueueCapacity());
+        executor.setThreadNamePrefix("resumable-upload-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Fixed number of workers importing the files of archives, further files wait in the queue for a worker
+     */
+    @Bean
+    public ThreadPoolTaskExecutor archiveEntryExecutor(IngestionProperties ingestionProperties) {
+        IngestionProperties.Archive archive = ingestionProperties.getArchive();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(archive.getParallelism());
+        executor.setMaxPoolSize(archive.getParallelism());
+        executor.setThreadNamePrefix("archive-entry-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
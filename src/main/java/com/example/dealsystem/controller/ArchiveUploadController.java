@@ -0,0 +1,35 @@
+package com.example.dealsystem.controller;
+
+import com.example.dealsystem.dto.ArchiveSummaryDto;
+import com.example.dealsystem.service.csv.ArchiveUploadService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * REST controller for uploading a ZIP archive of CSV files at once
+ * The request returns once every file of the archive has been imported, with a summary per file
+ */
+@RestController
+@RequestMapping("/api/uploads/archive")
+public class ArchiveUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveUploadController.class);
+
+    private final ArchiveUploadService archiveUploadService;
+
+    public ArchiveUploadController(ArchiveUploadService archiveUploadService) {
+        this.archiveUploadService = archiveUploadService;
+    }
+
+    @PostMapping
+    public ArchiveSummaryDto uploadArchive(@RequestParam("file") MultipartFile file,
+                                           @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad) {
+        logger.info("Received archive upload request for file: {} ({} bytes)", file.getOriginalFilename(), file.getSize());
+        return archiveUploadService.uploadArchive(file, bulkLoad);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.dealsystem.controller;
+
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.SummaryDto;
+import com.example.dealsystem.exception.DuplicateFileException;
+import com.example.dealsystem.exception.FileProcessingException;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.deals.AccumulativeCountService;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * REST controller for programmatic clients sending deals as JSON instead of a CSV file
+ * The request body is read as a stream while the deals are imported, so a batch can be of any size
+ */
+@RestController
+@RequestMapping("/api/deals")
+public class DealIngestionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealIngestionController.class);
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final TransactionLogService transactionLogService;
+    private final FileUploadService fileUploadService;
+    private final AccumulativeCountService accumulativeCountService;
+
+    public DealIngestionController(TransactionLogService transactionLogService,
+                                   FileUploadService fileUploadService,
+                                   AccumulativeCountService accumulativeCountService) {
+        this.transactionLogService = transactionLogService;
+        this.fileUploadService = fileUploadService;
+        this.accumulativeCountService = accumulativeCountService;
+    }
+
+    /**
+     * Accumulative number of valid deals per from-currency over all imports
+     */
+    @GetMapping("/counts")
+    public Map<CurrencyCode, Long> getCounts() {
+        return accumulativeCountService.getCounts();
+    }
+
+    /**
+     * Import a batch of deals, one JSON object per line or a JSON array of objects
+     * The batch ID takes the place of the file name: it is logged like a file and can only be imported once
+     */
+    @PostMapping(consumes = {APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public SummaryDto ingestDeals(@RequestParam("batchId") String batchId,
+                                  @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad,
+                                  HttpServletRequest request) throws IOException {
+        logger.info("Received JSON deals for batch: {} ({} bytes)", batchId, request.getContentLengthLong());
+
+        if (batchId.isBlank()) {
+            throw new IllegalArgumentException("Batch ID must not be blank");
+        }
+        if (transactionLogService.isFileAlreadyImported(batchId)) {
+            logger.warn("Attempted to import duplicate batch: {}", batchId);
+            throw new DuplicateFileException("Batch '" + batchId + "' has already been imported.");
+        }
+
+        TransactionLog transactionLog = new TransactionLog(batchId);
+        // Progress is only known when the client sent the length up front
+        if (request.getContentLengthLong() > 0) {
+            transactionLog.setBytesTotal(request.getContentLengthLong());
+        }
+        transactionLog = transactionLogService.save(transactionLog);
+        Long id = transactionLog.getId();
+        MDC.put("logId", id.toString());
+        try (InputStream content = request.getInputStream()) {
+            fileUploadService.uploadJsonDeals(content, transactionLog, bulkLoad);
+            return transactionLogService.toSummary(transactionLogService.findById(id));
+        } catch (FileProcessingException e) {
+            // Deals before the malformed part stay imported, the batch is failed like a broken file
+            if (e.getCause() instanceof JsonProcessingException jsonException) {
+                throw new IllegalArgumentException("Malformed JSON in batch " + batchId + ": "
+                    + jsonException.getOriginalMessage(), e);
+            }
+            throw e;
+        } finally {
+            MDC.clear();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.dealsystem.controller;
 import com.example.dealsystem.domain.TransactionLog;
 import com.example.dealsystem.dto.FileUploadForm;
 import com.example.dealsystem.exception.DuplicateFileException;
+import com.example.dealsystem.exception.UploadThrottledException;
 import com.example.dealsystem.service.csv.FileUploadService;
 import com.example.dealsystem.service.logging.TransactionLogService;
 import jakarta.validation.Valid;
@@ -62,19 +63,24 @@ public class FileUploadController {
             throw new DuplicateFileException("File '" + fileName + "' has already been imported.");
         }
 
-        TransactionLog transactionLog = transactionLogService.save(new TransactionLog(fileName));
+        TransactionLog transactionLog = new TransactionLog(fileName);
+        transactionLog.setBytesTotal(form.getFile().getSize());
+        transactionLog = transactionLogService.save(transactionLog);
         MDC.put("logId", transactionLog.getId().toString());
         logger.info("Created transaction log entry with ID: {} for file: {}", 
             transactionLog.getId(), fileName);
 
         try {
-            fileUploadService.uploadFile(form.getFile(), transactionLog);
+            fileUploadService.uploadFile(form.getFile(), transactionLog, form.isBulkLoad());
             
             logger.info("File upload successful: {}", fileName);
             ModelAndView modelAndView = getModelView();
             modelAndView.addObject("success", true);
             modelAndView.addObject("fileName", fileName);
             return modelAndView;
+        } catch (DuplicateFileException | UploadThrottledException e) {
+            // Answered with their own status by the exception handler
+            throw e;
         } catch (Exception e) {
             logger.error("Failed importing file: {}", fileName, e);
             ModelAndView modelAndView = getModelView();
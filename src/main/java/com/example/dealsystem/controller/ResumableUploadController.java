@@ -0,0 +1,82 @@
+package com.example.dealsystem.controller;
+
+import com.example.dealsystem.dto.ResumableUploadDto;
+import com.example.dealsystem.dto.UploadJobStatusDto;
+import com.example.dealsystem.service.jobs.ResumableUploadService;
+import com.example.dealsystem.service.jobs.UploadJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * REST controller for resumable uploads sent in chunks
+ * An upload is initiated with the name and size of the file, its chunks are sent with PUT in any order and the
+ * upload is completed once all chunks have been received. Its import runs as an upload job from the start
+ */
+@RestController
+@RequestMapping("/api/uploads/resumable")
+public class ResumableUploadController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadController.class);
+
+    private final ResumableUploadService resumableUploadService;
+    private final UploadJobService uploadJobService;
+
+    public ResumableUploadController(ResumableUploadService resumableUploadService,
+                                     UploadJobService uploadJobService) {
+        this.resumableUploadService = resumableUploadService;
+        this.uploadJobService = uploadJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ResumableUploadDto> initiateUpload(@RequestParam("fileName") String fileName,
+                                                             @RequestParam("size") long size,
+                                                             @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad) {
+        logger.info("Received resumable upload request for file: {} ({} bytes)", fileName, size);
+
+        ResumableUploadDto upload = resumableUploadService.initiate(fileName, size, bulkLoad);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+            .path("/{jobId}")
+            .buildAndExpand(upload.getJobId())
+            .toUri();
+        return ResponseEntity.created(location).body(upload);
+    }
+
+    @PutMapping(value = "/{jobId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Void> uploadChunk(@PathVariable Long jobId, @PathVariable int index, InputStream body) {
+        resumableUploadService.writeChunk(jobId, index, body);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{jobId}")
+    public ResumableUploadDto getUpload(@PathVariable Long jobId) {
+        logger.debug("Polling resumable upload: {}", jobId);
+        return resumableUploadService.getStatus(jobId);
+    }
+
+    @PostMapping("/{jobId}/complete")
+    public ResponseEntity<UploadJobStatusDto> completeUpload(@PathVariable Long jobId) {
+        logger.info("Completing resumable upload: {}", jobId);
+
+        resumableUploadService.complete(jobId);
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+            .path("/api/uploads/{jobId}")
+            .buildAndExpand(jobId)
+            .toUri();
+        return ResponseEntity.accepted()
+            .location(location)
+            .body(uploadJobService.getStatus(jobId));
+    }
+}
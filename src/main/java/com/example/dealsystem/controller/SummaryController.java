@@ -1,6 +1,5 @@
 package com.example.dealsystem.controller;
 
-import com.example.dealsystem.domain.TransactionLog;
 import com.example.dealsystem.dto.SummaryDto;
 import com.example.dealsystem.service.logging.TransactionLogService;
 import org.slf4j.Logger;
@@ -10,19 +9,19 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.ModelAndView;
 
-import java.time.format.DateTimeFormatter;
-
 /**
  * Controller for displaying transaction summaries
+ * Found summaries are sent with an ETag, and with Last-Modified once the import has ended, so pollers that send
+ * them back get 304 Not Modified while the summary is unchanged
  */
 @Controller
 @RequestMapping("/summary")
 public class SummaryController {
 
     private static final Logger logger = LoggerFactory.getLogger(SummaryController.class);
-    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final TransactionLogService transactionLogService;
 
@@ -31,18 +30,23 @@ public class SummaryController {
     }
 
     @GetMapping
-    public ModelAndView getSummaryPage(@RequestParam(required = false) String fileName, Model model) {
+    public ModelAndView getSummaryPage(@RequestParam(required = false) String fileName, Model model,
+                                       WebRequest webRequest) {
         logger.debug("Accessing summary page for file: {}", fileName);
         ModelAndView modelAndView = new ModelAndView("views/summary-page");
         
         if (fileName != null && !fileName.trim().isEmpty()) {
             logger.info("Searching for transaction log for file: {}", fileName);
-            TransactionLog transactionLog = transactionLogService.findByFileName(fileName);
+            TransactionLogService.VersionedSummary versionedSummary = transactionLogService.findSummary(fileName);
             
-            if (transactionLog != null) {
+            if (versionedSummary != null) {
+                SummaryDto summary = versionedSummary.getSummary();
+                if (webRequest.checkNotModified(versionedSummary.getETag(), versionedSummary.getLastModified())) {
+                    logger.debug("Summary of file {} not modified", fileName);
+                    return null;
+                }
                 logger.info("Found transaction log for file: {} - Status: {}", 
-                    fileName, transactionLog.getStatus());
-                SummaryDto summary = mapToSummaryDto(transactionLog);
+                    fileName, summary.getStatus());
                 modelAndView.addObject("summary", summary);
                 modelAndView.addObject("found", true);
             } else {
@@ -54,20 +58,4 @@ public class SummaryController {
         
         return modelAndView;
     }
-
-    private SummaryDto mapToSummaryDto(TransactionLog transactionLog) {
-        SummaryDto summary = new SummaryDto();
-        summary.setFileName(transactionLog.getFileName());
-        summary.setStatus(transactionLog.getStatus().toString());
-        summary.setValidCount(transactionLog.getValidCount() != null ? transactionLog.getValidCount() : 0L);
-        summary.setInvalidCount(transactionLog.getInvalidCount() != null ? transactionLog.getInvalidCount() : 0L);
-        summary.setProcessingDurationMs(transactionLog.getProcessingDurationMs());
-        summary.setStartedAt(transactionLog.getStartedAt() != null ? 
-            transactionLog.getStartedAt().format(FORMATTER) : null);
-        summary.setCompletedAt(transactionLog.getCompletedAt() != null ? 
-            transactionLog.getCompletedAt().format(FORMATTER) : null);
-        summary.setErrorMessage(transactionLog.getErrorMessage());
-        return summary;
-    }
 }
-
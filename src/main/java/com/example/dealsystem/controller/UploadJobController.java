@@ -0,0 +1,56 @@
+package com.example.dealsystem.controller;
+
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.UploadJobStatusDto;
+import com.example.dealsystem.service.jobs.UploadJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+/**
+ * REST controller for asynchronous upload jobs
+ * An accepted upload returns its job ID immediately, progress is polled with GET /api/uploads/{jobId}
+ */
+@RestController
+@RequestMapping("/api/uploads")
+public class UploadJobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobController.class);
+
+    private final UploadJobService uploadJobService;
+
+    public UploadJobController(UploadJobService uploadJobService) {
+        this.uploadJobService = uploadJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<UploadJobStatusDto> submitUpload(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(value = "bulkLoad", defaultValue = "false") boolean bulkLoad) {
+        logger.info("Received asynchronous upload request for file: {}", file.getOriginalFilename());
+
+        TransactionLog transactionLog = uploadJobService.submit(file, bulkLoad);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+            .path("/{jobId}")
+            .buildAndExpand(transactionLog.getId())
+            .toUri();
+        return ResponseEntity.accepted()
+            .location(location)
+            .body(uploadJobService.getStatus(transactionLog.getId()));
+    }
+
+    @GetMapping("/{jobId}")
+    public UploadJobStatusDto getUploadStatus(@PathVariable Long jobId) {
+        logger.debug("Polling upload job: {}", jobId);
+        return uploadJobService.getStatus(jobId);
+    }
+}
@@ -11,8 +11,10 @@ import java.time.LocalDateTime;
 @Setter
 public abstract class AbstractDomain {
 
+    // One <table>_seq sequence per entity, fetched in blocks (see hibernate.id.* in application.properties)
+    // so that inserts can be JDBC-batched, which IDENTITY columns prevent
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
     private Long id;
 
     @Column(name = "created_at")
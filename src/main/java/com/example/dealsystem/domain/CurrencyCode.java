@@ -31,16 +31,63 @@ public enum CurrencyCode {
         this.description = description;
     }
 
-    public static boolean isValid(String code) {
-        if (code == null || code.trim().isEmpty()) {
-            return false;
+    /** Currencies indexed by their three upper-case letters, A-Z as base-26 digits */
+    private static final CurrencyCode[] BY_LETTERS = new CurrencyCode[26 * 26 * 26];
+
+    static {
+        for (CurrencyCode currency : values()) {
+            String name = currency.name();
+            BY_LETTERS[((name.charAt(0) - 'A') * 26 + name.charAt(1) - 'A') * 26 + name.charAt(2) - 'A'] = currency;
         }
-        try {
-            CurrencyCode.valueOf(code.toUpperCase());
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
+    }
+
+    public static boolean isValid(CharSequence code) {
+        return fromCode(code) != null;
+    }
+
+    /**
+     * Look up a currency code case-insensitively without allocating
+     *
+     * @return the currency, or null if the code is not supported
+     */
+    public static CurrencyCode fromCode(CharSequence code) {
+        if (code == null || code.length() != 3) {
+            return null;
+        }
+        int index = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = code.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c < 'A' || c > 'Z') {
+                // Non-ASCII letters can still upper-case to a supported code
+                return c > 127 ? fromUpperCase(code.toString().toUpperCase()) : null;
+            }
+            index = index * 26 + c - 'A';
         }
+        return BY_LETTERS[index];
     }
-}
 
+    /**
+     * Look up a currency code case-insensitively
+     *
+     * @throws IllegalArgumentException if the code is not supported
+     */
+    public static CurrencyCode of(CharSequence code) {
+        CurrencyCode currency = fromCode(code);
+        if (currency == null) {
+            throw new IllegalArgumentException("Unsupported currency code: " + code);
+        }
+        return currency;
+    }
+
+    private static CurrencyCode fromUpperCase(String code) {
+        for (CurrencyCode currency : values()) {
+            if (currency.name().equals(code)) {
+                return currency;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.dealsystem.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Deals of one currency saved by an upload, not yet added to its AccumulativeDealCount
+ */
+@Entity
+@Table(name = "deal_count_delta")
+@Getter
+@Setter
+public class DealCountDelta extends AbstractDomain {
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Column(name = "currency_code", nullable = false, length = 3)
+    @Enumerated(EnumType.STRING)
+    private CurrencyCode currencyCode;
+
+    @Column(name = "count_of_deals", nullable = false)
+    private Long countOfDeals;
+
+    public DealCountDelta() {
+    }
+
+    public DealCountDelta(String fileName, CurrencyCode currencyCode, long countOfDeals) {
+        this.fileName = fileName;
+        this.currencyCode = currencyCode;
+        this.countOfDeals = countOfDeals;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.dealsystem.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deal ID of a valid deal, the registry keeps deal IDs unique across all partitions of valid_deal
+ * The date time of the deal locates the partition the deal is stored in
+ */
+@Entity
+@Table(name = "deal_id_registry")
+@Getter
+@Setter
+public class DealIdRegistration implements Persistable<String> {
+
+    @Id
+    @Column(name = "deal_id", nullable = false, length = 100)
+    private String dealId;
+
+    @Column(name = "date_time", nullable = false)
+    private LocalDateTime dateTime;
+
+    // Registrations are only ever inserted, so saving one must not look it up first
+    @Transient
+    private boolean persisted;
+
+    public DealIdRegistration() {
+    }
+
+    public DealIdRegistration(ValidDeal deal) {
+        this.dealId = deal.getDealId();
+        this.dateTime = deal.getDateTime();
+    }
+
+    @Override
+    public String getId() {
+        return dealId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.dealsystem.domain;
+
+import com.example.dealsystem.validation.ErrorCode;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an ErrorCode as its numeric code, which stays stable when constants are added or reordered
+ */
+@Converter
+public class ErrorCodeConverter implements AttributeConverter<ErrorCode, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(ErrorCode errorCode) {
+        return errorCode != null ? errorCode.getCode() : null;
+    }
+
+    @Override
+    public ErrorCode convertToEntityAttribute(Short code) {
+        return code != null ? ErrorCode.of(code) : null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.dealsystem.domain;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and total amount of the valid deals of one file per currency pair, kept up to date while the file is
+ * ingested so its breakdown is read without scanning valid_deal
+ */
+@Entity
+@Table(name = "file_currency_count", indexes = {
+    @Index(name = "idx_file_currency_count_pair", columnList = "file_name, from_currency, to_currency", unique = true)
+})
+@Getter
+@Setter
+public class FileCurrencyCount extends AbstractDomain {
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Column(name = "from_currency", nullable = false, length = 3)
+    @Enumerated(EnumType.STRING)
+    private CurrencyCode fromCurrency;
+
+    @Column(name = "to_currency", nullable = false, length = 3)
+    @Enumerated(EnumType.STRING)
+    private CurrencyCode toCurrency;
+
+    @Column(name = "count_of_deals", nullable = false)
+    private Long countOfDeals;
+
+    @Column(name = "amount_sum", nullable = false, precision = 38, scale = 2)
+    private BigDecimal amountSum;
+
+    public FileCurrencyCount() {
+    }
+
+    public FileCurrencyCount(String fileName, CurrencyCode fromCurrency, CurrencyCode toCurrency,
+                             long countOfDeals, BigDecimal amountSum) {
+        this.fileName = fileName;
+        this.fromCurrency = fromCurrency;
+        this.toCurrency = toCurrency;
+        this.countOfDeals = countOfDeals;
+        this.amountSum = amountSum;
+    }
+}
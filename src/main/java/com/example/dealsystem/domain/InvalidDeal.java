@@ -1,16 +1,25 @@
 package com.example.dealsystem.domain;
 
+import com.example.dealsystem.validation.ErrorCode;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * A row that was rejected, with its fields as they were read
+ * The file is referenced by the id of its transaction log and the error by its code with an optional detail,
+ * the invalid_deal_message view renders the file name, message text and row data
+ */
 @Entity
 @Table(name = "invalid_deal", indexes = {
-    @Index(name = "idx_invalid_file_name", columnList = "file_name")
+    @Index(name = "idx_invalid_transaction_log_id", columnList = "transaction_log_id")
 })
 @Getter
 @Setter
-public class InvalidDeal extends Deal {
+public class InvalidDeal extends AbstractDomain {
+
+    @Column(name = "transaction_log_id")
+    private Long transactionLogId;
 
     @Column(name = "deal_id", length = 100)
     private String dealId;
@@ -27,13 +36,20 @@ public class InvalidDeal extends Deal {
     @Column(name = "amount", length = 50)
     private String amount;
 
-    @Column(name = "error_message", length = 500)
-    private String errorMessage;
+    @Convert(converter = ErrorCodeConverter.class)
+    @Column(name = "error_code", nullable = false)
+    private ErrorCode errorCode;
 
-    @Column(name = "row_data", columnDefinition = "TEXT")
-    private String rowData;
+    @Column(name = "error_detail", length = 500)
+    private String errorDetail;
 
     public InvalidDeal() {
     }
-}
 
+    /**
+     * The message text of the error, as rendered by the invalid_deal_message view
+     */
+    public String getErrorMessage() {
+        return errorCode != null ? errorCode.format(errorDetail) : null;
+    }
+}
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "transaction_log", indexes = {
-    @Index(name = "idx_file_name", columnList = "file_name", unique = true)
+    @Index(name = "idx_file_name", columnList = "file_name", unique = true),
+    @Index(name = "idx_transaction_log_content_hash", columnList = "content_hash", unique = true)
 })
 @Getter
 @Setter
@@ -39,9 +40,38 @@ public class TransactionLog extends AbstractDomain {
     @Column(name = "error_message", length = 1000)
     private String errorMessage;
 
+    @Column(name = "rows_processed")
+    private Long rowsProcessed;
+
+    @Column(name = "bytes_total")
+    private Long bytesTotal;
+
+    @Column(name = "bytes_processed")
+    private Long bytesProcessed;
+
+    // Last row committed by an import and the offset just after it, where an interrupted import resumes
+    @Column(name = "checkpoint_row")
+    private Long checkpointRow;
+
+    @Column(name = "checkpoint_offset")
+    private Long checkpointOffset;
+
+    // Local copy of the upload while it is imported, cleared once the import has ended
+    @Column(name = "spool_file", length = 1000)
+    private String spoolFile;
+
+    // SHA-256 of the uploaded content as hex, an upload with the same content is not imported again
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    // Renewed while a node has the import queued or running, an import whose heartbeat is older than the lease is recovered
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
     public TransactionLog() {
         this.status = TransactionStatus.PROCESSING;
         this.startedAt = LocalDateTime.now();
+        this.heartbeatAt = this.startedAt;
     }
 
     public TransactionLog(String fileName) {
@@ -50,7 +80,7 @@ public class TransactionLog extends AbstractDomain {
     }
 
     public enum TransactionStatus {
-        PROCESSING, COMPLETED, FAILED
+        QUEUED, PROCESSING, COMPLETED, FAILED
     }
 }
 
@@ -1,6 +1,6 @@
 package com.example.dealsystem.domain;
 
-import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.dto.DealFields;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,9 +9,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
+/**
+ * Deal that passed validation, valid_deal is range-partitioned by month of date_time on PostgreSQL
+ * Deal IDs are kept unique by the DealIdRegistration saved with every deal, not by an index of valid_deal
+ */
 @Entity
 @Table(name = "valid_deal", indexes = {
-    @Index(name = "idx_deal_id", columnList = "deal_id", unique = true),
+    @Index(name = "idx_deal_id", columnList = "deal_id"),
     @Index(name = "idx_from_currency", columnList = "from_currency"),
     @Index(name = "idx_file_name", columnList = "file_name")
 })
@@ -21,7 +25,7 @@ public class ValidDeal extends Deal {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    @Column(name = "deal_id", nullable = false, unique = true, length = 100)
+    @Column(name = "deal_id", nullable = false, length = 100)
     private String dealId;
 
     @Column(name = "from_currency", nullable = false, length = 3)
@@ -41,14 +45,22 @@ public class ValidDeal extends Deal {
     public ValidDeal() {
     }
 
-    public static ValidDeal valueOf(DealDto dealDto) {
+    public static ValidDeal valueOf(DealFields deal) {
+        return valueOf(deal.getDealId().toString(),
+            CurrencyCode.of(deal.getFromCurrency()),
+            CurrencyCode.of(deal.getToCurrency()),
+            LocalDateTime.parse(deal.getDateTime(), FORMATTER),
+            new BigDecimal(deal.getAmount().toString()));
+    }
+
+    public static ValidDeal valueOf(String dealId, CurrencyCode fromCurrency, CurrencyCode toCurrency,
+                                    LocalDateTime dateTime, BigDecimal amount) {
         ValidDeal validDeal = new ValidDeal();
-        validDeal.setDealId(dealDto.getDealId());
-        validDeal.setFromCurrency(CurrencyCode.valueOf(dealDto.getFromCurrency().toUpperCase()));
-        validDeal.setToCurrency(CurrencyCode.valueOf(dealDto.getToCurrency().toUpperCase()));
-        validDeal.setAmount(new BigDecimal(dealDto.getAmount()));
-        validDeal.setDateTime(LocalDateTime.parse(dealDto.getDateTime(), FORMATTER));
+        validDeal.setDealId(dealId);
+        validDeal.setFromCurrency(fromCurrency);
+        validDeal.setToCurrency(toCurrency);
+        validDeal.setAmount(amount);
+        validDeal.setDateTime(dateTime);
         return validDeal;
     }
 }
-
@@ -0,0 +1,25 @@
+package com.example.dealsystem.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for the combined import summary of the files of an uploaded archive
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchiveSummaryDto {
+    private String archiveName;
+    private Integer fileCount;
+    private Integer completedCount;
+    private Integer failedCount;
+    private Integer skippedCount;
+    private Long validCount;
+    private Long invalidCount;
+    private Long processingDurationMs;
+    private List<SummaryDto> files;
+}
@@ -0,0 +1,22 @@
+package com.example.dealsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for the number and total amount of the valid deals of a file per currency pair
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CurrencyBreakdownDto {
+    private String fromCurrency;
+    private String toCurrency;
+    private Long countOfDeals;
+    private BigDecimal amountSum;
+}
@@ -12,7 +12,7 @@ import lombok.Setter;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-public class DealDto {
+public class DealDto implements DealFields {
     private String dealId;
     private String fromCurrency;
     private String toCurrency;
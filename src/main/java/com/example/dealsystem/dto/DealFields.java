@@ -0,0 +1,19 @@
+package com.example.dealsystem.dto;
+
+/**
+ * The five fields of a deal as read from an upload, before they are validated
+ * Implemented by DealDto and by the reusable row view of the CSV tokenizer, so rows can be validated
+ * without copying every field into a String first
+ */
+public interface DealFields {
+
+    CharSequence getDealId();
+
+    CharSequence getFromCurrency();
+
+    CharSequence getToCurrency();
+
+    CharSequence getDateTime();
+
+    CharSequence getAmount();
+}
@@ -0,0 +1,63 @@
+package com.example.dealsystem.dto;
+
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.validation.DealValidator;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A parsed CSV row together with its position in the source file
+ * The validation result is set when the row was already validated while parsing. A row that was
+ * already mapped to a ValidDeal keeps its raw form and only builds the DealDto when it has to be
+ * saved as invalid after all, e.g. as a duplicate
+ */
+@Getter
+public class DealRow {
+    @Setter
+    private int rowNumber;
+    /** Offset in the source file just after the row, where an interrupted import resumes */
+    @Setter
+    private long endOffset;
+    private DealDto deal;
+    private final DealValidator.ValidationResult validationResult;
+    private final ValidDeal validDeal;
+    private final RawRow rawRow;
+
+    public DealRow(int rowNumber, DealDto deal) {
+        this(rowNumber, deal, null);
+    }
+
+    public DealRow(int rowNumber, DealDto deal, DealValidator.ValidationResult validationResult) {
+        this.rowNumber = rowNumber;
+        this.deal = deal;
+        this.validationResult = validationResult;
+        this.validDeal = null;
+        this.rawRow = null;
+    }
+
+    public DealRow(int rowNumber, ValidDeal validDeal, RawRow rawRow) {
+        this.rowNumber = rowNumber;
+        this.validDeal = validDeal;
+        this.rawRow = rawRow;
+        this.validationResult = null;
+    }
+
+    public String getDealId() {
+        return validDeal != null ? validDeal.getDealId() : getDeal().getDealId();
+    }
+
+    public DealDto getDeal() {
+        if (deal == null && rawRow != null) {
+            deal = rawRow.toDealDto();
+        }
+        return deal;
+    }
+
+    /**
+     * Raw form of a row, turned into Strings only when needed
+     */
+    public interface RawRow {
+
+        DealDto toDealDto();
+    }
+}
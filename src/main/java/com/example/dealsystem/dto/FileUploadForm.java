@@ -14,5 +14,10 @@ public class FileUploadForm {
 
     @NotNull(message = "Please select a CSV file")
     private MultipartFile file;
+
+    /**
+     * Bulk load the file with PostgreSQL COPY instead of JPA inserts
+     */
+    private boolean bulkLoad;
 }
 
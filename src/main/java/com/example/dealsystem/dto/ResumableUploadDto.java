@@ -0,0 +1,24 @@
+package com.example.dealsystem.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for the chunks received of a resumable upload
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResumableUploadDto {
+    private Long jobId;
+    private String fileName;
+    private Long size;
+    private Integer chunkSize;
+    private Integer chunkCount;
+    private List<Integer> receivedChunks;
+    private Long bytesReceived;
+    private Boolean completed;
+}
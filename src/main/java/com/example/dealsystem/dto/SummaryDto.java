@@ -5,6 +5,9 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * DTO for transaction summary information
  */
@@ -21,5 +24,6 @@ public class SummaryDto {
     private String startedAt;
     private String completedAt;
     private String errorMessage;
+    private List<CurrencyBreakdownDto> currencyBreakdown = new ArrayList<>();
 }
 
@@ -0,0 +1,29 @@
+package com.example.dealsystem.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for the progress of an asynchronous upload job
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class UploadJobStatusDto {
+    private Long jobId;
+    private String fileName;
+    private String status;
+    /** Position among the imports waiting to run, only while the job waits for running imports to end */
+    private Integer queuePosition;
+    private Long rowsProcessed;
+    private Long validCount;
+    private Long invalidCount;
+    private Long bytesTotal;
+    private Long bytesProcessed;
+    private Integer percentComplete;
+    private Long etaSeconds;
+    private String startedAt;
+    private String completedAt;
+    private String errorMessage;
+}
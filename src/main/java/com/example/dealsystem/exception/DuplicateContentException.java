@@ -0,0 +1,18 @@
+package com.example.dealsystem.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when attempting to import a file whose content was already imported under another name
+ */
+@Getter
+public class DuplicateContentException extends DuplicateFileException {
+
+    /** Transaction log ID of the import of the same content, null when it could not be determined */
+    private final Long originalImportId;
+
+    public DuplicateContentException(String message, Long originalImportId) {
+        super(message);
+        this.originalImportId = originalImportId;
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.dealsystem.exception;
 
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -30,6 +32,18 @@ public class GlobalExceptionHandler {
         return modelAndView;
     }
 
+    @ExceptionHandler(UploadThrottledException.class)
+    public ModelAndView handleUploadThrottledException(UploadThrottledException ex, HttpServletResponse response) {
+        logger.warn("Upload throttled: {}", ex.getMessage());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()));
+        ModelAndView modelAndView = new ModelAndView("views/upload-file");
+        modelAndView.setStatus(HttpStatus.TOO_MANY_REQUESTS);
+        modelAndView.addObject("fileUploadForm", new com.example.dealsystem.dto.FileUploadForm());
+        modelAndView.addObject("error", true);
+        modelAndView.addObject("errorMessage", ex.getMessage());
+        return modelAndView;
+    }
+
     @ExceptionHandler(FileProcessingException.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ModelAndView handleFileProcessingException(FileProcessingException ex) {
@@ -0,0 +1,116 @@
+package com.example.dealsystem.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.support.MissingServletRequestPartException;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exception handler for the REST API
+ * Takes precedence over {@link GlobalExceptionHandler} for REST controllers and answers with problem details
+ * instead of the upload page
+ */
+@RestControllerAdvice(annotations = RestController.class)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RestExceptionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestExceptionHandler.class);
+
+    /** Unique constraints of transaction_log, named by PostgreSQL from Liquibase and by the entity mapping */
+    private static final List<String> TRANSACTION_LOG_UNIQUE_CONSTRAINTS =
+        List.of("transaction_log_file_name_key", "idx_file_name", "idx_transaction_log_content_hash");
+
+    @ExceptionHandler(DuplicateFileException.class)
+    public ProblemDetail handleDuplicateFileException(DuplicateFileException ex) {
+        logger.warn("Duplicate file exception: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(DuplicateContentException.class)
+    public ProblemDetail handleDuplicateContentException(DuplicateContentException ex) {
+        logger.warn("Duplicate content exception: {}", ex.getMessage());
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+        if (ex.getOriginalImportId() != null) {
+            problemDetail.setProperty("originalJobId", ex.getOriginalImportId());
+            problemDetail.setProperty("originalJob", "/api/uploads/" + ex.getOriginalImportId());
+        }
+        return problemDetail;
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ProblemDetail handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        if (!violatesTransactionLogUniqueness(ex)) {
+            logger.error("Data integrity violation: {}", ex.getMessage(), ex);
+            return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+                "An unexpected error occurred. Please try again or contact support.");
+        }
+        // Two uploads of the same file racing past the duplicate check
+        logger.warn("Data integrity violation: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "File has already been imported.");
+    }
+
+    @ExceptionHandler(UploadJobNotFoundException.class)
+    public ProblemDetail handleUploadJobNotFoundException(UploadJobNotFoundException ex) {
+        logger.debug("Upload job not found: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(UploadIncompleteException.class)
+    public ProblemDetail handleUploadIncompleteException(UploadIncompleteException ex) {
+        logger.warn("Upload incomplete: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(UploadRejectedException.class)
+    public ProblemDetail handleUploadRejectedException(UploadRejectedException ex) {
+        logger.warn("Upload rejected: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(UploadThrottledException.class)
+    public ResponseEntity<ProblemDetail> handleUploadThrottledException(UploadThrottledException ex) {
+        logger.warn("Upload throttled: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfter().toSeconds()))
+            .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, MissingServletRequestPartException.class})
+    public ProblemDetail handleBadRequest(Exception ex) {
+        logger.warn("Invalid upload request: {}", ex.getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(FileProcessingException.class)
+    public ProblemDetail handleFileProcessingException(FileProcessingException ex) {
+        logger.error("File processing exception: {}", ex.getMessage(), ex);
+        return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+            "Failed to process file: " + ex.getMessage());
+    }
+
+    /**
+     * Whether the violated constraint is the unique file name or content hash of transaction_log
+     */
+    private static boolean violatesTransactionLogUniqueness(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                String constraintName = violation.getConstraintName().toLowerCase(Locale.ROOT);
+                return TRANSACTION_LOG_UNIQUE_CONSTRAINTS.stream().anyMatch(constraintName::contains);
+            }
+        }
+        return false;
+    }
+}
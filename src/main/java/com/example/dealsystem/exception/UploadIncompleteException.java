@@ -0,0 +1,11 @@
+package com.example.dealsystem.exception;
+
+/**
+ * Exception thrown when a resumable upload is completed while some of its chunks have not been received
+ */
+public class UploadIncompleteException extends RuntimeException {
+
+    public UploadIncompleteException(String message) {
+        super(message);
+    }
+}
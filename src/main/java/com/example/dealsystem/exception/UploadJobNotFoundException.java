@@ -0,0 +1,11 @@
+package com.example.dealsystem.exception;
+
+/**
+ * Exception thrown when polling an upload job that does not exist
+ */
+public class UploadJobNotFoundException extends RuntimeException {
+
+    public UploadJobNotFoundException(String message) {
+        super(message);
+    }
+}
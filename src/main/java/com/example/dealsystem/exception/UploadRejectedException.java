@@ -0,0 +1,11 @@
+package com.example.dealsystem.exception;
+
+/**
+ * Exception thrown when an upload job cannot be accepted because the worker queue is full
+ */
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.dealsystem.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when an import is not admitted because too many imports are running and waiting already
+ */
+@Getter
+public class UploadThrottledException extends RuntimeException {
+
+    /** Estimated time until the import would be admitted */
+    private final Duration retryAfter;
+
+    public UploadThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
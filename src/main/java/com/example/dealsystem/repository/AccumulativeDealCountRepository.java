@@ -16,6 +16,6 @@ public interface AccumulativeDealCountRepository extends JpaRepository<Accumulat
     
     @Modifying
     @Query("UPDATE AccumulativeDealCount a SET a.countOfDeals = a.countOfDeals + :count WHERE a.currencyCode = :currencyCode")
-    void incrementCountByCurrencyCode(CurrencyCode currencyCode, Long count);
+    int incrementCountByCurrencyCode(CurrencyCode currencyCode, Long count);
 }
 
@@ -0,0 +1,39 @@
+package com.example.dealsystem.repository;
+
+import com.example.dealsystem.domain.DealCountDelta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DealCountDeltaRepository extends JpaRepository<DealCountDelta, Long> {
+
+    /**
+     * Unflushed deal counts of all nodes per currency, as (CurrencyCode, Long) pairs
+     */
+    @Query("SELECT d.currencyCode, SUM(d.countOfDeals) FROM DealCountDelta d GROUP BY d.currencyCode")
+    List<Object[]> sumCountsGroupByCurrency();
+
+    /**
+     * Lock the delta rows to flush with SELECT ... FOR UPDATE SKIP LOCKED, rows locked by the flush of another
+     * node are skipped instead of waited for
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT d FROM DealCountDelta d ORDER BY d.id")
+    List<DealCountDelta> lockUnclaimed();
+
+    @Modifying
+    @Query("DELETE FROM DealCountDelta d WHERE d.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
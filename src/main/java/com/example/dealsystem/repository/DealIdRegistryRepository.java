@@ -0,0 +1,40 @@
+package com.example.dealsystem.repository;
+
+import com.example.dealsystem.domain.DealIdRegistration;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Repository
+public interface DealIdRegistryRepository extends JpaRepository<DealIdRegistration, String> {
+
+    @Query("SELECT COUNT(r) > 0 FROM DealIdRegistration r WHERE r.dealId = :dealId")
+    boolean existsByDealId(@Param("dealId") String dealId);
+
+    @Query("SELECT r.dealId FROM DealIdRegistration r WHERE r.dealId IN :dealIds")
+    Set<String> findExistingDealIds(@Param("dealIds") Collection<String> dealIds);
+
+    /**
+     * Stream all deal IDs through a database cursor, must be consumed inside a transaction and closed
+     */
+    @Query("SELECT r.dealId FROM DealIdRegistration r")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    Stream<String> streamAllDealIds();
+
+    /**
+     * Remove the deal IDs of the valid deals of a file, before the deals themselves are deleted
+     */
+    @Modifying
+    @Query("DELETE FROM DealIdRegistration r WHERE r.dealId IN "
+        + "(SELECT v.dealId FROM ValidDeal v WHERE v.fileName = :fileName)")
+    int deleteByFileName(@Param("fileName") String fileName);
+}
@@ -0,0 +1,32 @@
+package com.example.dealsystem.repository;
+
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.FileCurrencyCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface FileCurrencyCountRepository extends JpaRepository<FileCurrencyCount, Long> {
+
+    @Query("SELECT f FROM FileCurrencyCount f WHERE f.fileName = :fileName ORDER BY f.fromCurrency, f.toCurrency")
+    List<FileCurrencyCount> findByFileName(@Param("fileName") String fileName);
+
+    @Modifying
+    @Query("UPDATE FileCurrencyCount f SET f.countOfDeals = f.countOfDeals + :count, f.amountSum = f.amountSum + :amount "
+        + "WHERE f.fileName = :fileName AND f.fromCurrency = :fromCurrency AND f.toCurrency = :toCurrency")
+    int increment(@Param("fileName") String fileName,
+                  @Param("fromCurrency") CurrencyCode fromCurrency,
+                  @Param("toCurrency") CurrencyCode toCurrency,
+                  @Param("count") long count,
+                  @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM FileCurrencyCount f WHERE f.fileName = :fileName")
+    int deleteByFileName(@Param("fileName") String fileName);
+}
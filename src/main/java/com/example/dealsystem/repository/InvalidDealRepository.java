@@ -2,13 +2,18 @@ package com.example.dealsystem.repository;
 
 import com.example.dealsystem.domain.InvalidDeal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface InvalidDealRepository extends JpaRepository<InvalidDeal, Long> {
     
-    @Query("SELECT COUNT(i) FROM InvalidDeal i WHERE i.fileName = :fileName")
-    Long countByFileName(String fileName);
-}
+    @Query("SELECT COUNT(i) FROM InvalidDeal i WHERE i.transactionLogId = :transactionLogId")
+    Long countByTransactionLogId(@Param("transactionLogId") Long transactionLogId);
 
+    @Modifying
+    @Query("DELETE FROM InvalidDeal i WHERE i.transactionLogId = :transactionLogId")
+    int deleteByTransactionLogId(@Param("transactionLogId") Long transactionLogId);
+}
@@ -2,8 +2,14 @@ package com.example.dealsystem.repository;
 
 import com.example.dealsystem.domain.TransactionLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,5 +18,58 @@ public interface TransactionLogRepository extends JpaRepository<TransactionLog,
     Optional<TransactionLog> findByFileName(String fileName);
     
     boolean existsByFileName(String fileName);
+
+    Optional<TransactionLog> findByContentHash(String contentHash);
+
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.rowsProcessed = :rowsProcessed, t.validCount = :validCount, "
+        + "t.invalidCount = :invalidCount, t.bytesProcessed = :bytesProcessed WHERE t.id = :id")
+    int updateProgress(@Param("id") Long id,
+                       @Param("rowsProcessed") long rowsProcessed,
+                       @Param("validCount") long validCount,
+                       @Param("invalidCount") long invalidCount,
+                       @Param("bytesProcessed") long bytesProcessed);
+
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.checkpointRow = :checkpointRow, t.checkpointOffset = :checkpointOffset, "
+        + "t.rowsProcessed = :rowsProcessed, t.validCount = :validCount, t.invalidCount = :invalidCount, "
+        + "t.bytesProcessed = :bytesProcessed WHERE t.id = :id")
+    int updateCheckpoint(@Param("id") Long id,
+                         @Param("checkpointRow") long checkpointRow,
+                         @Param("checkpointOffset") long checkpointOffset,
+                         @Param("bytesProcessed") long bytesProcessed,
+                         @Param("rowsProcessed") long rowsProcessed,
+                         @Param("validCount") long validCount,
+                         @Param("invalidCount") long invalidCount);
+
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.spoolFile = :spoolFile WHERE t.id = :id")
+    int updateSpoolFile(@Param("id") Long id, @Param("spoolFile") String spoolFile);
+
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.contentHash = :contentHash WHERE t.id = :id")
+    int updateContentHash(@Param("id") Long id, @Param("contentHash") String contentHash);
+
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.heartbeatAt = :now WHERE t.id IN :ids AND t.status IN :statuses")
+    int renewHeartbeats(@Param("ids") Collection<Long> ids,
+                        @Param("statuses") Collection<TransactionLog.TransactionStatus> statuses,
+                        @Param("now") LocalDateTime now);
+
+    @Query("SELECT t FROM TransactionLog t WHERE t.status IN :statuses "
+        + "AND (t.heartbeatAt IS NULL OR t.heartbeatAt < :expiredBefore) ORDER BY t.id")
+    List<TransactionLog> findExpired(@Param("statuses") Collection<TransactionLog.TransactionStatus> statuses,
+                                     @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    /**
+     * Take over the lease of an import if it is still expired, only one node succeeds
+     */
+    @Modifying
+    @Query("UPDATE TransactionLog t SET t.heartbeatAt = :now WHERE t.id = :id AND t.status IN :statuses "
+        + "AND (t.heartbeatAt IS NULL OR t.heartbeatAt < :expiredBefore)")
+    int claimExpired(@Param("id") Long id,
+                     @Param("statuses") Collection<TransactionLog.TransactionStatus> statuses,
+                     @Param("expiredBefore") LocalDateTime expiredBefore,
+                     @Param("now") LocalDateTime now);
 }
 
@@ -1,29 +1,48 @@
 package com.example.dealsystem.repository;
 
-import com.example.dealsystem.domain.CurrencyCode;
 import com.example.dealsystem.domain.ValidDeal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * valid_deal is range-partitioned by date_time on PostgreSQL, queries that bound date_time only scan the
+ * partitions of that range. Deal IDs are unique through the deal_id_registry, lookups by deal ID go there
+ */
 @Repository
 public interface ValidDealRepository extends JpaRepository<ValidDeal, Long> {
-    
-    Optional<ValidDeal> findByDealId(String dealId);
-    
-    boolean existsByDealId(String dealId);
-    
+
+    /**
+     * Find a deal by deal ID, its date time from the registry limits the lookup to one partition
+     */
+    default Optional<ValidDeal> findByDealId(String dealId) {
+        return findDateTimeByDealId(dealId).flatMap(dateTime -> findByDealIdAndDateTime(dealId, dateTime));
+    }
+
+    @Query("SELECT r.dateTime FROM DealIdRegistration r WHERE r.dealId = :dealId")
+    Optional<LocalDateTime> findDateTimeByDealId(@Param("dealId") String dealId);
+
+    @Query("SELECT v FROM ValidDeal v WHERE v.dealId = :dealId AND v.dateTime = :dateTime")
+    Optional<ValidDeal> findByDealIdAndDateTime(@Param("dealId") String dealId,
+                                                @Param("dateTime") LocalDateTime dateTime);
+
+    /**
+     * Deals with a date time in [from, to), only the partitions of the range are scanned
+     */
+    @Query("SELECT v FROM ValidDeal v WHERE v.dateTime >= :from AND v.dateTime < :to")
+    List<ValidDeal> findByDateTimeRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
     @Query("SELECT COUNT(v) FROM ValidDeal v WHERE v.fileName = :fileName")
     Long countByFileName(String fileName);
-    
-    @Query("SELECT v FROM ValidDeal v WHERE v.fileName = :fileName")
-    List<ValidDeal> findByFileName(@Param("fileName") String fileName);
-    
-    @Query("SELECT COUNT(v) FROM ValidDeal v WHERE v.fileName = :fileName AND v.fromCurrency = :currency")
-    Long countByFileNameAndCurrency(@Param("fileName") String fileName, @Param("currency") CurrencyCode currency);
+
+    @Modifying
+    @Query("DELETE FROM ValidDeal v WHERE v.fileName = :fileName")
+    int deleteByFileName(@Param("fileName") String fileName);
 }
 
@@ -0,0 +1,277 @@
+package com.example.dealsystem.service.admission;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.exception.UploadThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of imports running at the same time on this node, so that a load spike queues up instead of
+ * slowing down every import on the same connection pool and CPUs
+ * Imports are admitted in the order they arrived. Uploads sent for an immediate import are rejected when the queue
+ * is full or they waited too long, uploads accepted as background jobs always wait for their turn. With an adaptive
+ * limit the number of running imports follows the chunk commit latency: it is multiplied by the decrease factor
+ * when chunks commit slower than the target latency and grows by one per limit chunks otherwise (AIMD)
+ */
+@Component
+public class IngestionAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionAdmission.class);
+    // Weight of the latest import in the average import duration the retry estimate is based on
+    private static final double DURATION_WEIGHT = 0.2;
+    private static final long MIN_RETRY_AFTER_SECONDS = 1;
+
+    private final int maxConcurrent;
+    private final int minConcurrent;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final boolean adaptive;
+    private final long targetLatencyNanos;
+    private final double decreaseFactor;
+    private final Counter rejectedCounter;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int running;
+    private double limit;
+    // High latencies of chunks committed before this time were caused by the limit before the last decrease
+    private long noDecreaseBeforeNanos;
+    private double averageDurationNanos;
+
+    public IngestionAdmission(IngestionProperties ingestionProperties, MeterRegistry meterRegistry) {
+        IngestionProperties.Admission settings = ingestionProperties.getAdmission();
+        this.maxConcurrent = settings.getMaxConcurrent();
+        this.minConcurrent = Math.min(settings.getMinConcurrent(), maxConcurrent);
+        this.queueCapacity = settings.getQueueCapacity();
+        this.maxWaitNanos = settings.getMaxWait().toNanos();
+        this.adaptive = settings.isAdaptive();
+        this.targetLatencyNanos = settings.getTargetLatency().toNanos();
+        this.decreaseFactor = settings.getDecreaseFactor();
+        this.limit = maxConcurrent;
+        this.noDecreaseBeforeNanos = System.nanoTime();
+
+        this.rejectedCounter = Counter.builder("deal.admission.rejected")
+            .description("Uploads rejected because too many imports were running and waiting").register(meterRegistry);
+        Gauge.builder("deal.admission.limit", this, IngestionAdmission::getLimit)
+            .description("Number of imports allowed to run at the same time").register(meterRegistry);
+        Gauge.builder("deal.admission.running", this, IngestionAdmission::getRunning)
+            .description("Imports running").register(meterRegistry);
+        Gauge.builder("deal.admission.waiting", this, IngestionAdmission::getWaiting)
+            .description("Imports waiting to be admitted").register(meterRegistry);
+    }
+
+    /**
+     * Wait until an import may run, in the order imports arrived
+     *
+     * @param id the transaction log ID of the import, to report its queue position
+     * @param rejectWhenBusy whether to reject the import instead of queueing it beyond the queue capacity or the
+     *                       maximum wait, for uploads whose client is waiting for the import
+     * @return the permit to close once the import has ended
+     * @throws UploadThrottledException if the import is rejected
+     */
+    public Permit admit(Long id, boolean rejectWhenBusy) {
+        lock.lock();
+        try {
+            if (waiting.isEmpty() && running < getAllowed()) {
+                return start();
+            }
+            if (rejectWhenBusy && waiting.size() >= queueCapacity) {
+                throw reject("Too many uploads are being imported, please retry later");
+            }
+
+            Waiter waiter = new Waiter(id);
+            waiting.addLast(waiter);
+            logger.info("Import {} waits for {} running imports, queue position {}", id, running, waiting.size());
+            long remainingNanos = maxWaitNanos;
+            boolean admitted = false;
+            try {
+                while (waiting.peekFirst() != waiter || running >= getAllowed()) {
+                    if (!rejectWhenBusy) {
+                        changed.await();
+                    } else if (remainingNanos > 0) {
+                        remainingNanos = changed.awaitNanos(remainingNanos);
+                    } else {
+                        throw reject("Upload waited too long to be imported, please retry later");
+                    }
+                }
+                admitted = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting to be imported", e);
+            } finally {
+                waiting.remove(waiter);
+                if (!admitted) {
+                    // The next import may be at the head of the queue now
+                    changed.signalAll();
+                }
+            }
+            Permit permit = start();
+            // The limit may allow the next import as well
+            changed.signalAll();
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record how long a chunk of an import took to commit, which steers the adaptive limit
+     */
+    public void recordLatency(Duration latency) {
+        if (!adaptive) {
+            return;
+        }
+        long now = System.nanoTime();
+        long latencyNanos = latency.toNanos();
+        lock.lock();
+        try {
+            double previous = limit;
+            if (latencyNanos > targetLatencyNanos) {
+                if (now - noDecreaseBeforeNanos < 0) {
+                    return;
+                }
+                limit = Math.max(minConcurrent, limit * decreaseFactor);
+                // Chunks committing during the next latency still ran at the old limit
+                noDecreaseBeforeNanos = now + latencyNanos;
+            } else {
+                limit = Math.min(maxConcurrent, limit + 1 / limit);
+            }
+            if ((int) limit != (int) previous) {
+                logger.info("Adjusted the number of concurrent imports from {} to {} after a chunk commit of {} ms",
+                    (int) previous, (int) limit, TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Position of an import in the queue, 1 for the import admitted next, empty when it is not waiting
+     */
+    public OptionalInt getQueuePosition(Long id) {
+        lock.lock();
+        try {
+            int position = 1;
+            for (Iterator<Waiter> iterator = waiting.iterator(); iterator.hasNext(); position++) {
+                if (Objects.equals(iterator.next().id, id)) {
+                    return OptionalInt.of(position);
+                }
+            }
+            return OptionalInt.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return getAllowed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int getAllowed() {
+        return (int) limit;
+    }
+
+    private Permit start() {
+        running++;
+        return new Permit(System.nanoTime());
+    }
+
+    private void end(long startNanos) {
+        long durationNanos = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            running--;
+            averageDurationNanos = averageDurationNanos == 0
+                ? durationNanos
+                : DURATION_WEIGHT * durationNanos + (1 - DURATION_WEIGHT) * averageDurationNanos;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reject an import, with the time until the imports ahead of it would have ended at the average import duration
+     */
+    private UploadThrottledException reject(String message) {
+        rejectedCounter.increment();
+        long estimateSeconds = (long) Math.ceil(
+            averageDurationNanos * (waiting.size() + 1) / getAllowed() / TimeUnit.SECONDS.toNanos(1));
+        Duration retryAfter = Duration.ofSeconds(Math.max(MIN_RETRY_AFTER_SECONDS, estimateSeconds));
+        logger.warn("{} ({} running, {} waiting, retry after {} s)", message, running, waiting.size(),
+            retryAfter.toSeconds());
+        return new UploadThrottledException(message, retryAfter);
+    }
+
+    /**
+     * Admission of one import, the next import is admitted once it is closed
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long startNanos;
+        private boolean closed;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                end(startNanos);
+            }
+        }
+    }
+
+    /**
+     * An import in the queue, compared by identity as the same transaction log ID is not guaranteed to be unique
+     */
+    private static final class Waiter {
+
+        private final Long id;
+
+        private Waiter(Long id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.ArchiveSummaryDto;
+import com.example.dealsystem.dto.SummaryDto;
+import com.example.dealsystem.exception.FileProcessingException;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Service for importing the CSV files of an uploaded ZIP archive
+ * Every file of the archive is imported on its own as if it had been uploaded by itself, with its own transaction
+ * log and duplicate check. Files are streamed out of the archive straight into the import, several at a time
+ */
+@Service
+public class ArchiveUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveUploadService.class);
+    private static final String SKIPPED = "SKIPPED";
+
+    private final FileUploadService fileUploadService;
+    private final TransactionLogService transactionLogService;
+    private final IngestionProperties ingestionProperties;
+    private final ThreadPoolTaskExecutor archiveEntryExecutor;
+
+    public ArchiveUploadService(FileUploadService fileUploadService,
+                                TransactionLogService transactionLogService,
+                                IngestionProperties ingestionProperties,
+                                @Qualifier("archiveEntryExecutor") ThreadPoolTaskExecutor archiveEntryExecutor) {
+        this.fileUploadService = fileUploadService;
+        this.transactionLogService = transactionLogService;
+        this.ingestionProperties = ingestionProperties;
+        this.archiveEntryExecutor = archiveEntryExecutor;
+    }
+
+    /**
+     * Import all CSV files of a ZIP archive and wait until they are imported
+     * Files that were already imported, or appear twice in the archive, are skipped. A failing file does not stop
+     * the other files
+     *
+     * @param archive the ZIP archive
+     * @param bulkLoad whether to bulk load every file with PostgreSQL COPY regardless of its size
+     * @return the combined summary, with the summary of each file in the order of the archive
+     * @throws IllegalArgumentException if the upload is not a ZIP archive or has too many files
+     * @throws FileProcessingException if the archive cannot be spooled
+     */
+    public ArchiveSummaryDto uploadArchive(MultipartFile archive, boolean bulkLoad) {
+        String archiveName = archive.getOriginalFilename();
+        long startTime = System.currentTimeMillis();
+        Path spoolFile = spool(archive);
+        try (ZipFile zipFile = new ZipFile(spoolFile.toFile())) {
+            List<ZipEntry> entries = zipFile.stream()
+                .filter(ArchiveUploadService::isDealFile)
+                .map(entry -> (ZipEntry) entry)
+                .toList();
+            int maxEntries = ingestionProperties.getArchive().getMaxEntries();
+            if (entries.size() > maxEntries) {
+                throw new IllegalArgumentException("Archive " + archiveName + " has " + entries.size()
+                    + " files, at most " + maxEntries + " are accepted");
+            }
+            logger.info("Importing {} files of archive: {}", entries.size(), archiveName);
+
+            // The largest files are started first, so the archive takes about as long as its largest file
+            Map<ZipEntry, CompletableFuture<SummaryDto>> imports = new HashMap<>();
+            entries.stream()
+                .sorted(Comparator.comparingLong(ZipEntry::getSize).reversed())
+                .forEach(entry -> imports.put(entry, CompletableFuture.supplyAsync(
+                    () -> importEntry(zipFile, entry, bulkLoad), archiveEntryExecutor)));
+
+            List<SummaryDto> files = entries.stream().map(entry -> imports.get(entry).join()).toList();
+            ArchiveSummaryDto summary = toSummary(archiveName, files, System.currentTimeMillis() - startTime);
+            logger.info("Imported archive {}: {} completed, {} failed, {} skipped in {} ms", archiveName,
+                summary.getCompletedCount(), summary.getFailedCount(), summary.getSkippedCount(),
+                summary.getProcessingDurationMs());
+            return summary;
+        } catch (ZipException e) {
+            throw new IllegalArgumentException("Not a ZIP archive: " + archiveName, e);
+        } catch (IOException e) {
+            logger.error("Failed to read archive {}: {}", archiveName, e.getMessage(), e);
+            throw new FileProcessingException("Failed to read archive: " + archiveName, e);
+        } finally {
+            deleteSpoolFile(spoolFile);
+        }
+    }
+
+    /**
+     * Import one file of an archive, streaming it out of the archive
+     */
+    private SummaryDto importEntry(ZipFile zipFile, ZipEntry entry, boolean bulkLoad) {
+        String fileName = getFileName(entry);
+        if (entry.getSize() == 0) {
+            return skipped(fileName, "File is empty: " + fileName);
+        }
+        if (transactionLogService.isFileAlreadyImported(fileName)) {
+            logger.warn("Skipping duplicate file {} of archive", fileName);
+            return skipped(fileName, "File '" + fileName + "' has already been imported.");
+        }
+
+        TransactionLog transactionLog = new TransactionLog(fileName);
+        transactionLog.setBytesTotal(entry.getSize());
+        try {
+            transactionLog = transactionLogService.save(transactionLog);
+        } catch (DataIntegrityViolationException e) {
+            // The same file name twice in the archive, imported at the same time
+            logger.warn("Skipping duplicate file {} of archive", fileName);
+            return skipped(fileName, "File '" + fileName + "' has already been imported.");
+        }
+
+        Long id = transactionLog.getId();
+        MDC.put("logId", id.toString());
+        try (InputStream content = zipFile.getInputStream(entry)) {
+            fileUploadService.uploadStreamedFile(content, transactionLog, bulkLoad);
+        } catch (Exception e) {
+            // A failing file is recorded as failed, the other files go on
+            logger.error("Failed importing file {} of archive: {}", fileName, e.getMessage(), e);
+            if (transactionLogService.findById(id).getStatus() == TransactionLog.TransactionStatus.PROCESSING) {
+                transactionLogService.failTransaction(fileName, "Failed to read file from archive: " + e.getMessage());
+            }
+        } finally {
+            MDC.clear();
+        }
+        return transactionLogService.toSummary(transactionLogService.findById(id));
+    }
+
+    private Path spool(MultipartFile archive) {
+        try {
+            Path spoolDirectory = ingestionProperties.getAsync().getSpoolDirectory();
+            Files.createDirectories(spoolDirectory);
+            Path spoolFile = Files.createTempFile(spoolDirectory, "archive-", ".zip");
+            // Moves the container's temporary file where possible instead of copying it
+            archive.transferTo(spoolFile.toAbsolutePath().toFile());
+            return spoolFile;
+        } catch (IOException e) {
+            logger.error("Failed to spool archive {}: {}", archive.getOriginalFilename(), e.getMessage(), e);
+            throw new FileProcessingException("Failed to spool archive: " + archive.getOriginalFilename(), e);
+        }
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spooled archive {}: {}", spoolFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Files of the archive, without directories and the resource forks macOS adds to archives
+     */
+    private static boolean isDealFile(ZipEntry entry) {
+        return !entry.isDirectory() && !entry.getName().startsWith("__MACOSX/");
+    }
+
+    /**
+     * The name a file of the archive is imported under, the name it would have been uploaded with by itself
+     */
+    private static String getFileName(ZipEntry entry) {
+        String name = entry.getName();
+        return name.substring(name.lastIndexOf('/') + 1);
+    }
+
+    private static SummaryDto skipped(String fileName, String reason) {
+        SummaryDto summary = new SummaryDto();
+        summary.setFileName(fileName);
+        summary.setStatus(SKIPPED);
+        summary.setValidCount(0L);
+        summary.setInvalidCount(0L);
+        summary.setErrorMessage(reason);
+        return summary;
+    }
+
+    private static ArchiveSummaryDto toSummary(String archiveName, List<SummaryDto> files, long durationMs) {
+        ArchiveSummaryDto summary = new ArchiveSummaryDto();
+        summary.setArchiveName(archiveName);
+        summary.setFileCount(files.size());
+        summary.setCompletedCount(countStatus(files, TransactionLog.TransactionStatus.COMPLETED.name()));
+        summary.setFailedCount(countStatus(files, TransactionLog.TransactionStatus.FAILED.name()));
+        summary.setSkippedCount(countStatus(files, SKIPPED));
+        summary.setValidCount(files.stream().mapToLong(SummaryDto::getValidCount).sum());
+        summary.setInvalidCount(files.stream().mapToLong(SummaryDto::getInvalidCount).sum());
+        summary.setProcessingDurationMs(durationMs);
+        summary.setFiles(files);
+        return summary;
+    }
+
+    private static int countStatus(List<SummaryDto> files, String status) {
+        return (int) files.stream().filter(file -> status.equals(file.getStatus())).count();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.dealsystem.service.csv;
+
+import com.github.luben.zstd.ZstdInputStreamNoFinalizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression of an uploaded file, recognized by the magic bytes at its start rather than by its name
+ */
+public enum CompressionFormat {
+
+    NONE,
+    GZIP,
+    ZSTD;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int ZSTD_MAGIC = 0xFD2FB528;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Detect the compression of a file from its first bytes
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static CompressionFormat detect(Path file) throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return detect(input.readNBytes(4));
+        }
+    }
+
+    /**
+     * Detect the compression of a stream from its first bytes, without consuming them
+     *
+     * @param input a stream supporting mark and reset
+     * @throws IOException if the stream cannot be read
+     */
+    public static CompressionFormat detect(InputStream input) throws IOException {
+        input.mark(4);
+        byte[] magic = input.readNBytes(4);
+        input.reset();
+        return detect(magic);
+    }
+
+    private static CompressionFormat detect(byte[] bytes) {
+        ByteBuffer magic = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (magic.remaining() >= 2 && (magic.getShort(0) & 0xffff) == GZIP_MAGIC) {
+            return GZIP;
+        }
+        if (magic.remaining() == 4 && magic.getInt(0) == ZSTD_MAGIC) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Whether the content has to be decompressed as a stream, it cannot be memory-mapped or split into ranges
+     */
+    public boolean isCompressed() {
+        return this != NONE;
+    }
+
+    /**
+     * Wrap a stream of compressed bytes into a stream of the decompressed content
+     *
+     * @throws IOException if the stream header is invalid
+     */
+    public InputStream decompress(InputStream input) throws IOException {
+        return switch (this) {
+            case NONE -> input;
+            case GZIP -> new GZIPInputStream(input, BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStreamNoFinalizer(input);
+        };
+    }
+}
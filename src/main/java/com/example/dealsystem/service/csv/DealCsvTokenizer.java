@@ -0,0 +1,344 @@
+package com.example.dealsystem.service.csv;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Tokenizer for the five-column deal CSV format, working directly on UTF-8 bytes
+ * The bytes come from a reusable heap buffer, a given buffer or windows of a memory-mapped file. Each call to {@link #next()} fills the same {@link DealRowView}, so well-formed ASCII rows are
+ * tokenized without allocating. It follows the rules of the commons-csv format used before: RFC 4180
+ * quoting, empty lines skipped, values trimmed and the same error messages for malformed quoting
+ */
+public class DealCsvTokenizer {
+
+    public static final String[] CSV_HEADERS = {"deal_id", "from_currency", "to_currency", "date_time", "amount"};
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int RECORD = 0;
+    private static final int END = 1;
+    private static final int NEED_MORE = 2;
+
+    private final InputStream input;
+    private final FileChannel channel;
+    private final long fileSize;
+    private int windowSize;
+    private final DealRowView row = new DealRowView();
+    private ByteBuffer buffer;
+    private boolean eof;
+    private boolean skipHeader;
+    private int position;
+    private long bufferOffset;
+    private long lineNumber;
+
+    /**
+     * Tokenize a stream, reading it in 64KB blocks
+     *
+     * @param input the CSV content
+     * @param skipHeader whether the first record is the header line
+     */
+    public DealCsvTokenizer(InputStream input, boolean skipHeader) {
+        this.input = input;
+        this.channel = null;
+        this.fileSize = -1;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        this.skipHeader = skipHeader;
+    }
+
+    /**
+     * Tokenize the remaining bytes of a buffer, e.g. one byte range of a file
+     *
+     * @param content the CSV content between its position and limit
+     * @param skipHeader whether the first record is the header line
+     */
+    public DealCsvTokenizer(ByteBuffer content, boolean skipHeader) {
+        this.input = null;
+        this.channel = null;
+        this.fileSize = -1;
+        this.buffer = content;
+        this.position = content.position();
+        this.bufferOffset = -content.position();
+        this.eof = true;
+        this.skipHeader = skipHeader;
+    }
+
+    /**
+     * Tokenize a file by memory-mapping it one window at a time, without copying it to the heap
+     * The next window starts at the first record not yet tokenized, a window is grown for a record
+     * that does not fit into it
+     *
+     * @param channel the CSV file
+     * @param windowSize number of bytes mapped at a time
+     * @param skipHeader whether the first record is the header line
+     * @throws IOException if the size of the file cannot be read
+     */
+    public DealCsvTokenizer(FileChannel channel, int windowSize, boolean skipHeader) throws IOException {
+        this(channel, 0, windowSize, skipHeader);
+    }
+
+    /**
+     * Tokenize a file by memory-mapping it one window at a time, starting at a record boundary
+     *
+     * @param channel the CSV file
+     * @param startOffset offset of the first record to tokenize, e.g. a checkpoint of an interrupted import
+     * @param windowSize number of bytes mapped at a time
+     * @param skipHeader whether the first record is the header line
+     * @throws IOException if the size of the file cannot be read
+     */
+    public DealCsvTokenizer(FileChannel channel, long startOffset, int windowSize, boolean skipHeader) throws IOException {
+        this.input = null;
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.windowSize = windowSize;
+        this.buffer = ByteBuffer.allocate(0);
+        this.bufferOffset = startOffset;
+        this.eof = startOffset >= fileSize;
+        this.skipHeader = skipHeader;
+    }
+
+    /**
+     * Advance to the next record
+     *
+     * @return false at the end of the input
+     * @throws IOException if the input cannot be read or a quoted field is malformed
+     */
+    public boolean next() throws IOException {
+        if (skipHeader) {
+            skipHeader = false;
+            if (!nextRecord()) {
+                return false;
+            }
+        }
+        return nextRecord();
+    }
+
+    /**
+     * The current record, overwritten by the next call to {@link #next()}
+     */
+    public DealRowView row() {
+        return row;
+    }
+
+    /**
+     * Number of bytes of the input tokenized so far
+     */
+    public long getBytesConsumed() {
+        return bufferOffset + position;
+    }
+
+    private boolean nextRecord() throws IOException {
+        while (true) {
+            int result = parseRecord();
+            if (result != NEED_MORE) {
+                return result == RECORD;
+            }
+            if (channel != null) {
+                map();
+            } else {
+                fill();
+            }
+        }
+    }
+
+    /**
+     * Map the next window of the file, starting at the current position
+     */
+    private void map() throws IOException {
+        if (position == 0 && buffer.limit() > 0) {
+            windowSize = (int) Math.min(windowSize * 2L, Integer.MAX_VALUE);
+        }
+        long start = bufferOffset + position;
+        long length = Math.min(windowSize, fileSize - start);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        bufferOffset = start;
+        position = 0;
+        eof = start + length == fileSize;
+    }
+
+    /**
+     * Move the unparsed bytes to the front of the buffer, growing it for records longer than the buffer,
+     * and read more input after them
+     */
+    private void fill() throws IOException {
+        byte[] bytes = buffer.array();
+        int remaining = buffer.limit() - position;
+        if (position == 0 && remaining == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            buffer = ByteBuffer.wrap(bytes);
+        } else if (position > 0) {
+            System.arraycopy(bytes, position, bytes, 0, remaining);
+        }
+        bufferOffset += position;
+        position = 0;
+
+        int read = input.read(bytes, remaining, bytes.length - remaining);
+        if (read < 0) {
+            eof = true;
+            read = 0;
+        }
+        buffer.limit(remaining + read);
+    }
+
+    /**
+     * Parse one record starting at the current position
+     * Nothing is consumed unless a whole record is available, a record cut off at the end of the buffer
+     * is parsed again from its start once more input has been read
+     */
+    private int parseRecord() throws IOException {
+        ByteBuffer buf = buffer;
+        int limit = buf.limit();
+        int p = position;
+        long lines = lineNumber;
+
+        // Skip empty lines
+        while (true) {
+            if (p == limit) {
+                if (!eof) {
+                    return NEED_MORE;
+                }
+                position = p;
+                lineNumber = lines;
+                return END;
+            }
+            byte b = buf.get(p);
+            if (b == '\n') {
+                p++;
+                lines++;
+            } else if (b == '\r') {
+                if (p + 1 == limit && !eof) {
+                    return NEED_MORE;
+                }
+                p++;
+                if (p < limit && buf.get(p) == '\n') {
+                    p++;
+                }
+                lines++;
+            } else {
+                break;
+            }
+        }
+
+        row.start(buf, p);
+        while (true) {
+            if (p < limit && buf.get(p) == '"') {
+                long startLine = lines + 1;
+                int start = ++p;
+                boolean decode = false;
+                while (true) {
+                    if (p == limit) {
+                        if (!eof) {
+                            return NEED_MORE;
+                        }
+                        throw new IOException("(startline " + startLine + ") EOF reached before encapsulated token finished");
+                    }
+                    byte b = buf.get(p);
+                    if (b == '"') {
+                        if (p + 1 == limit && !eof) {
+                            return NEED_MORE;
+                        }
+                        if (p + 1 < limit && buf.get(p + 1) == '"') {
+                            decode = true;
+                            p += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (b == '\r' || (b == '\n' && buf.get(p - 1) != '\r')) {
+                        lines++;
+                    } else if (b < 0) {
+                        decode = true;
+                    }
+                    p++;
+                }
+                int end = p++;
+                row.addField(start, end, decode ? decode(start, end, true) : null);
+
+                // Only whitespace may follow the closing quote
+                while (p < limit && isWhitespace(buf.get(p))) {
+                    p++;
+                }
+                if (p == limit && !eof) {
+                    return NEED_MORE;
+                }
+                if (p < limit && !isDelimiterOrLineBreak(buf.get(p))) {
+                    throw new IOException("(line " + (lines + 1) + ") invalid char between encapsulated token and delimiter");
+                }
+            } else {
+                int start = p;
+                boolean decode = false;
+                while (p < limit) {
+                    byte b = buf.get(p);
+                    // Letters, digits and the punctuation of dates and amounts all sort above ','
+                    if (b > ',') {
+                        p++;
+                        continue;
+                    }
+                    if (isDelimiterOrLineBreak(b)) {
+                        break;
+                    }
+                    if (b < 0) {
+                        decode = true;
+                    }
+                    p++;
+                }
+                if (p == limit && !eof) {
+                    return NEED_MORE;
+                }
+                row.addField(start, p, decode ? decode(start, p, false) : null);
+            }
+
+            if (p == limit) {
+                row.end(p);
+                break;
+            }
+            byte b = buf.get(p);
+            if (b == ',') {
+                p++;
+                continue;
+            }
+            row.end(p);
+            if (b == '\r') {
+                if (p + 1 == limit && !eof) {
+                    return NEED_MORE;
+                }
+                p++;
+                if (p < limit && buf.get(p) == '\n') {
+                    p++;
+                }
+            } else {
+                p++;
+            }
+            lines++;
+            break;
+        }
+
+        position = p;
+        lineNumber = lines;
+        return RECORD;
+    }
+
+    /**
+     * Decode a field that cannot be read byte by byte, because of escaped quotes or non-ASCII characters
+     */
+    private String decode(int start, int end, boolean quoted) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (quoted) {
+            value = value.replace("\"\"", "\"");
+        }
+        return value.trim();
+    }
+
+    private static boolean isDelimiterOrLineBreak(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f' || (b >= 0x1C && b <= 0x1F);
+    }
+}
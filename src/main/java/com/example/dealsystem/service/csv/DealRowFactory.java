@@ -0,0 +1,45 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.validation.DealValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns tokenized CSV rows into DealRows, validating them straight from the row view
+ * Valid rows are mapped to a ValidDeal and only keep their raw bytes, the DealDto Strings are built
+ * for invalid rows only
+ */
+@Component
+public class DealRowFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealRowFactory.class);
+
+    private final DealValidator dealValidator;
+
+    public DealRowFactory(DealValidator dealValidator) {
+        this.dealValidator = dealValidator;
+    }
+
+    /**
+     * Validate the current row of a tokenizer and map it
+     *
+     * @param rowNumber the row number in the file
+     * @param view the current row, only valid until the tokenizer moves on
+     * @throws IllegalArgumentException if the row has fewer than five fields
+     */
+    public DealRow toDealRow(int rowNumber, DealRowView view) {
+        view.checkComplete();
+        DealValidator.ValidationResult validationResult = dealValidator.validate(view);
+        if (validationResult.isValid()) {
+            try {
+                return new DealRow(rowNumber, validationResult.toValidDeal(view), view.snapshot());
+            } catch (RuntimeException e) {
+                // Left to the deal service, which saves the row as invalid with the mapping error
+                logger.debug("Failed to map valid deal at row {}: {}", rowNumber, e.getMessage());
+            }
+        }
+        return new DealRow(rowNumber, view.toDealDto(), validationResult);
+    }
+}
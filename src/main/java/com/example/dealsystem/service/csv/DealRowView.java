@@ -0,0 +1,182 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.dto.DealFields;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reusable view of the current record of a {@link DealCsvTokenizer}
+ * Fields are exposed as CharSequences over the tokenizer's buffer and are only copied into Strings
+ * on request. The view is overwritten by the next record
+ */
+public class DealRowView implements DealFields {
+
+    private static final int DEAL_FIELD_COUNT = DealCsvTokenizer.CSV_HEADERS.length;
+
+    private final Field[] dealFields = new Field[DEAL_FIELD_COUNT];
+
+    private ByteBuffer buffer;
+    private int recordStart;
+    private int recordEnd;
+    private int fieldCount;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private String[] decoded = new String[8];
+
+    DealRowView() {
+        for (int i = 0; i < DEAL_FIELD_COUNT; i++) {
+            dealFields[i] = new Field(i);
+        }
+    }
+
+    void start(ByteBuffer buffer, int recordStart) {
+        this.buffer = buffer;
+        this.recordStart = recordStart;
+        this.recordEnd = recordStart;
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Add the next field, trimmed like String.trim
+     *
+     * @param decodedValue the trimmed value when the field could not be read from the buffer as is
+     *                     (escaped quotes or non-ASCII bytes), otherwise null
+     */
+    void addField(int start, int end, String decodedValue) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+            decoded = Arrays.copyOf(decoded, fieldCount * 2);
+        }
+        if (decodedValue == null) {
+            while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+                start++;
+            }
+            while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+                end--;
+            }
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        decoded[fieldCount] = decodedValue;
+        fieldCount++;
+    }
+
+    void end(int recordEnd) {
+        this.recordEnd = recordEnd;
+    }
+
+    /**
+     * Fail like commons-csv does when a record is too short for the header
+     *
+     * @throws IllegalArgumentException if the record has fewer than five fields
+     */
+    public void checkComplete() {
+        if (fieldCount < DEAL_FIELD_COUNT) {
+            throw new IllegalArgumentException(String.format("Index for header '%s' is %d but CSVRecord only has %d values!",
+                DealCsvTokenizer.CSV_HEADERS[fieldCount], fieldCount, fieldCount));
+        }
+    }
+
+    @Override
+    public CharSequence getDealId() {
+        return dealField(0);
+    }
+
+    @Override
+    public CharSequence getFromCurrency() {
+        return dealField(1);
+    }
+
+    @Override
+    public CharSequence getToCurrency() {
+        return dealField(2);
+    }
+
+    @Override
+    public CharSequence getDateTime() {
+        return dealField(3);
+    }
+
+    @Override
+    public CharSequence getAmount() {
+        return dealField(4);
+    }
+
+    /**
+     * Copy the deal fields into a DealDto
+     *
+     * @throws IllegalArgumentException if the record has fewer than five fields
+     */
+    public DealDto toDealDto() {
+        checkComplete();
+        return new DealDto(fieldString(0), fieldString(1), fieldString(2), fieldString(3), fieldString(4));
+    }
+
+    /**
+     * Copy the raw bytes of the record, so it can be turned into Strings later when needed
+     */
+    public RawDealRecord snapshot() {
+        byte[] bytes = new byte[recordEnd - recordStart];
+        buffer.get(recordStart, bytes);
+        return new RawDealRecord(bytes);
+    }
+
+    private CharSequence dealField(int index) {
+        return index < fieldCount ? dealFields[index] : null;
+    }
+
+    private String fieldString(int index) {
+        if (decoded[index] != null) {
+            return decoded[index];
+        }
+        int length = ends[index] - starts[index];
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + starts[index], length, StandardCharsets.ISO_8859_1);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(starts[index], bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * One of the five deal fields of the current record, read directly from the buffer
+     */
+    private class Field implements CharSequence {
+
+        private final int index;
+
+        private Field(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public int length() {
+            return decoded[index] != null ? decoded[index].length() : ends[index] - starts[index];
+        }
+
+        @Override
+        public char charAt(int i) {
+            if (decoded[index] != null) {
+                return decoded[index].charAt(i);
+            }
+            if (i < 0 || i >= ends[index] - starts[index]) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return (char) (buffer.get(starts[index] + i) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return fieldString(index);
+        }
+    }
+}
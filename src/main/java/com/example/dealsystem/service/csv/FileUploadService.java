@@ -1,56 +1,131 @@
 package com.example.dealsystem.service.csv;
 
+import com.example.dealsystem.config.IngestionProperties;
 import com.example.dealsystem.domain.TransactionLog;
-import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.exception.DuplicateContentException;
 import com.example.dealsystem.exception.FileProcessingException;
+import com.example.dealsystem.exception.UploadThrottledException;
+import com.example.dealsystem.service.admission.IngestionAdmission;
+import com.example.dealsystem.service.deals.AccumulativeCountService;
+import com.example.dealsystem.service.deals.CopyDealWriter;
+import com.example.dealsystem.service.deals.CurrencyPairTotals;
 import com.example.dealsystem.service.deals.DealService;
+import com.example.dealsystem.service.deals.DealWriter;
+import com.example.dealsystem.service.deals.FileCurrencyCountService;
+import com.example.dealsystem.service.deals.JdbcDealWriter;
+import com.example.dealsystem.service.deals.JpaDealWriter;
+import com.example.dealsystem.service.json.DealJsonReader;
+import com.example.dealsystem.service.logging.ImportErrorDigest;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
 import com.example.dealsystem.service.logging.TransactionLogService;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import com.example.dealsystem.validation.ErrorCategory;
+import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Service for handling CSV file uploads and processing
+ * Rows are committed in chunks together with a checkpoint on the transaction log, so memory does not grow
+ * with the file and an interrupted import resumes after the last committed chunk
  */
 @Service
 public class FileUploadService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileUploadService.class);
-    
-    private static final String[] CSV_HEADERS = {"deal_id", "from_currency", "to_currency", "date_time", "amount"};
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
     private final DealService dealService;
     private final TransactionLogService transactionLogService;
+    private final ImportHeartbeat importHeartbeat;
+    private final IngestionAdmission ingestionAdmission;
+    private final IngestionProperties ingestionProperties;
+    private final JpaDealWriter jpaDealWriter;
+    private final CopyDealWriter copyDealWriter;
+    private final JdbcDealWriter jdbcDealWriter;
+    private final ParallelCsvParser parallelCsvParser;
+    private final DealRowFactory dealRowFactory;
+    private final DealJsonReader dealJsonReader;
+    private final AccumulativeCountService accumulativeCountService;
+    private final FileCurrencyCountService fileCurrencyCountService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
 
     public FileUploadService(DealService dealService,
-                             TransactionLogService transactionLogService) {
+                             TransactionLogService transactionLogService,
+                             ImportHeartbeat importHeartbeat,
+                             IngestionAdmission ingestionAdmission,
+                             IngestionProperties ingestionProperties,
+                             JpaDealWriter jpaDealWriter,
+                             CopyDealWriter copyDealWriter,
+                             JdbcDealWriter jdbcDealWriter,
+                             ParallelCsvParser parallelCsvParser,
+                             DealRowFactory dealRowFactory,
+                             DealJsonReader dealJsonReader,
+                             AccumulativeCountService accumulativeCountService,
+                             FileCurrencyCountService fileCurrencyCountService,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager entityManager) {
         this.dealService = dealService;
         this.transactionLogService = transactionLogService;
+        this.importHeartbeat = importHeartbeat;
+        this.ingestionAdmission = ingestionAdmission;
+        this.ingestionProperties = ingestionProperties;
+        this.jpaDealWriter = jpaDealWriter;
+        this.copyDealWriter = copyDealWriter;
+        this.jdbcDealWriter = jdbcDealWriter;
+        this.parallelCsvParser = parallelCsvParser;
+        this.dealRowFactory = dealRowFactory;
+        this.dealJsonReader = dealJsonReader;
+        this.accumulativeCountService = accumulativeCountService;
+        this.fileCurrencyCountService = fileCurrencyCountService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
     }
 
     /**
      * Upload and process a CSV file containing deals
-     * No rollback - all processed rows are saved to database
-     * 
+     * No rollback - all processed rows are saved to database, committed chunk by chunk
+     *
      * @param file the CSV file to process
      * @param transactionLog the transaction log entry
      * @throws FileProcessingException if file processing fails
      */
-    @Transactional
     public void uploadFile(MultipartFile file, TransactionLog transactionLog) {
+        uploadFile(file, transactionLog, false);
+    }
+
+    /**
+     * Upload and process a CSV file containing deals
+     * No rollback - all processed rows are saved to database, committed chunk by chunk
+     *
+     * @param file the CSV file to process
+     * @param transactionLog the transaction log entry
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @throws FileProcessingException if file processing fails
+     * @throws DuplicateContentException if a file with the same content was already imported, the transaction log
+     *                                    is deleted then
+     * @throws UploadThrottledException if too many imports are running and waiting, the transaction log is deleted then
+     */
+    public void uploadFile(MultipartFile file, TransactionLog transactionLog, boolean bulkLoad) {
         String fileName = file.getOriginalFilename();
-        logger.info("Starting file upload process for file: {} (size: {} bytes)", 
+        logger.info("Starting file upload process for file: {} (size: {} bytes)",
             fileName, file.getSize());
 
         if (file.isEmpty()) {
@@ -58,58 +133,235 @@ public class FileUploadService {
             throw new FileProcessingException("File is empty: " + fileName);
         }
 
+        // Files are parsed straight from a memory-mapped copy on local disk
+        Path spoolFile = spool(file, transactionLog);
         try {
-            int totalRows = 0;
-            int processedRows = 0;
-            List<String> errors = new ArrayList<>();
-            
-            // Process CSV file
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-                
-                CSVFormat format = CSVFormat.DEFAULT.builder()
-                    .setHeader(CSV_HEADERS)
-                    .setSkipHeaderRecord(true)
-                    .setIgnoreEmptyLines(true)
-                    .setTrim(true)
-                    .build();
-
-                try (CSVParser parser = new CSVParser(reader, format)) {
-                    int rowNumber = 1; // Start from 1 (header is row 0)
-                    
-                    for (CSVRecord record : parser) {
-                        rowNumber++;
-                        totalRows++;
-                        String rowData = String.join(",", record.values());
-                        
-                        try {
-                            DealDto dealDto = mapToDealDto(record);
-                            dealService.processDeal(dealDto, fileName, rowData);
-                            processedRows++;
-                            logger.debug("Processed row {} successfully", rowNumber);
-                        } catch (Exception e) {
-                            logger.error("Error processing row {} in file {}: {}", 
-                                rowNumber, fileName, e.getMessage(), e);
-                            errors.add("Row " + rowNumber + ": " + e.getMessage());
-                            // Continue processing - no rollback
-                        }
-                    }
-                }
+            processFile(spoolFile, null, file.getSize(), transactionLog, bulkLoad, AdmissionMode.REJECT_WHEN_BUSY);
+        } finally {
+            deleteSpoolFile(spoolFile);
+        }
+    }
+
+    /**
+     * Process a CSV file that was spooled to local disk by an asynchronous upload job
+     * No rollback - all processed rows are saved to database, committed chunk by chunk
+     *
+     * @param spoolFile the spooled CSV file
+     * @param transactionLog the transaction log entry of the upload
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @throws FileProcessingException if file processing fails
+     */
+    public void uploadSpooledFile(Path spoolFile, TransactionLog transactionLog, boolean bulkLoad) {
+        String fileName = transactionLog.getFileName();
+        long size;
+        try {
+            size = Files.size(spoolFile);
+        } catch (IOException e) {
+            transactionLogService.failTransaction(fileName, "Spooled file is not readable: " + e.getMessage());
+            throw new FileProcessingException("Spooled file is not readable: " + fileName, e);
+        }
+        logger.info("Starting processing of spooled file: {} (size: {} bytes)", fileName, size);
+
+        if (size == 0) {
+            logger.error("Attempted to process empty file: {}", fileName);
+            transactionLogService.failTransaction(fileName, "File is empty: " + fileName);
+            throw new FileProcessingException("File is empty: " + fileName);
+        }
+
+        processFile(spoolFile, null, size, transactionLog, bulkLoad, AdmissionMode.QUEUE);
+    }
+
+    /**
+     * Process a CSV file read front to back from a stream, e.g. a file still arriving in chunks or an archive entry
+     * Rows are read as soon as the bytes before them are available, so the import overlaps e.g. the transfer
+     * No rollback - all processed rows are saved to database, committed chunk by chunk
+     *
+     * @param content the content of the file, possibly blocking until the next bytes have arrived
+     * @param transactionLog the transaction log entry of the upload, with the size of the file as bytes total
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @throws FileProcessingException if file processing fails
+     */
+    public void uploadStreamedFile(InputStream content, TransactionLog transactionLog, boolean bulkLoad) {
+        long size = orZero(transactionLog.getBytesTotal());
+        logger.info("Starting processing of streamed file: {} (size: {} bytes)", transactionLog.getFileName(), size);
+
+        processFile(null, content, size, transactionLog, bulkLoad, AdmissionMode.QUEUE);
+    }
+
+    /**
+     * Process a CSV file read front to back while its chunks arrive, as {@link #uploadStreamedFile}
+     * The import is not admitted by {@link IngestionAdmission}, as it mostly waits for the network it would keep an
+     * admission slot from other imports. The caller limits how many of these imports run at the same time
+     *
+     * @param content the content of the file, blocking until the next bytes have arrived
+     * @param transactionLog the transaction log entry of the upload, with the size of the file as bytes total
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @throws FileProcessingException if file processing fails
+     */
+    public void uploadArrivingFile(InputStream content, TransactionLog transactionLog, boolean bulkLoad) {
+        long size = orZero(transactionLog.getBytesTotal());
+        logger.info("Starting processing of arriving file: {} (size: {} bytes)", transactionLog.getFileName(), size);
+
+        processFile(null, content, size, transactionLog, bulkLoad, AdmissionMode.NONE);
+    }
+
+    /**
+     * Import a batch of deals sent as newline-delimited JSON or a JSON array, read front to back from the request
+     * Deals go through the same validation and chunked persistence as the rows of a CSV file
+     * No rollback - all processed deals are saved to database, committed chunk by chunk
+     *
+     * @param content the JSON content of the request
+     * @param transactionLog the transaction log entry of the batch
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY
+     * @throws FileProcessingException if the content is not well-formed JSON or processing fails
+     * @throws UploadThrottledException if too many imports are running and waiting, the transaction log is deleted then
+     */
+    public void uploadJsonDeals(InputStream content, TransactionLog transactionLog, boolean bulkLoad) {
+        logger.info("Starting processing of JSON deals for batch: {}", transactionLog.getFileName());
+        DealWriter dealWriter = selectDealWriter(bulkLoad);
+
+        ingest(transactionLog, AdmissionMode.REJECT_WHEN_BUSY, errorDigest -> {
+            IngestionProperties.Mode mode = selectMode(bulkLoad, true);
+            logger.info("Ingestion mode for batch {}: {} (chunk size: {}, bulk load: {}, writer: {})",
+                transactionLog.getFileName(), mode, ingestionProperties.getChunkSize(), bulkLoad,
+                dealWriter.getClass().getSimpleName());
+            Ingestion ingestion = new Ingestion(transactionLog, dealWriter, mode != IngestionProperties.Mode.ROW,
+                errorDigest);
+            dealJsonReader.read(content, row -> {
+                ingestion.totalRows++;
+                ingestion.add(row);
+            }, error -> {
+                ingestion.totalRows++;
+                errorDigest.record(ErrorCategory.MALFORMED_ROW, error);
+            });
+            return ingestion;
+        });
+    }
+
+    /**
+     * Resume the import of a spooled file after its last checkpoint, e.g. after a restart
+     *
+     * @param transactionLog the transaction log of the interrupted import, with its spooled file
+     * @throws FileProcessingException if the spooled file is gone or processing fails
+     */
+    public void resumeSpooledFile(TransactionLog transactionLog) {
+        String fileName = transactionLog.getFileName();
+        Path spoolFile = Path.of(transactionLog.getSpoolFile());
+        long size;
+        try {
+            size = Files.size(spoolFile);
+        } catch (IOException e) {
+            transactionLogService.failTransaction(fileName, "Spooled file is not readable: " + e.getMessage());
+            throw new FileProcessingException("Spooled file is not readable: " + fileName, e);
+        }
+        logger.info("Resuming processing of spooled file: {} after row {} (offset {} of {} bytes)",
+            fileName, transactionLog.getCheckpointRow(), transactionLog.getCheckpointOffset(), size);
+
+        processFile(spoolFile, null, size, transactionLog, false, AdmissionMode.QUEUE);
+    }
+
+    /**
+     * Import a spooled file, or a file read from a stream when there is no spooled file
+     *
+     * @param admissionMode how the import is admitted
+     */
+    private void processFile(Path spoolFile, InputStream streamedContent, long size, TransactionLog transactionLog,
+                             boolean bulkLoad, AdmissionMode admissionMode) {
+        // Bulk loading always goes through chunks, COPY is only worth it for many rows at once
+        boolean useCopy = bulkLoad || size >= ingestionProperties.getBulkLoadThreshold().toBytes();
+        DealWriter dealWriter = selectDealWriter(useCopy);
+
+        ingest(transactionLog, admissionMode, errorDigest -> {
+            // A streamed or compressed upload is parsed as one stream, a compressed one decompressed on the way
+            InputStream content = streamedContent != null ? new BufferedInputStream(streamedContent, STREAM_BUFFER_SIZE) : null;
+            CompressionFormat compression = content != null
+                ? CompressionFormat.detect(content)
+                : CompressionFormat.detect(spoolFile);
+            IngestionProperties.Mode mode = selectMode(useCopy, content != null || compression.isCompressed());
+            logger.info("Ingestion mode for file {}: {} (chunk size: {}, bulk load: {}, writer: {}, compression: {})",
+                transactionLog.getFileName(), mode, ingestionProperties.getChunkSize(), useCopy,
+                dealWriter.getClass().getSimpleName(), compression);
+            Ingestion ingestion = new Ingestion(transactionLog, dealWriter, mode != IngestionProperties.Mode.ROW,
+                errorDigest);
+
+            if (mode == IngestionProperties.Mode.PARALLEL) {
+                parallelCsvParser.parse(spoolFile, ingestion.checkpointOffset, ingestion.checkpointRow, range -> {
+                    ingestion.totalRows += range.getRows().size() + range.getErrors().size();
+                    range.getRows().forEach(ingestion::add);
+                    range.getErrors().forEach(error -> errorDigest.record(ErrorCategory.MALFORMED_ROW, error));
+                });
+            } else if (content != null) {
+                parseStream(content, compression, ingestion);
+            } else if (compression.isCompressed()) {
+                parseCompressed(spoolFile, compression, ingestion);
+            } else {
+                parseSequential(spoolFile, ingestion);
             }
+            return ingestion;
+        });
+    }
 
-            logger.info("CSV parsing completed. Total rows: {}, Processed: {}, Errors: {}", 
-                totalRows, processedRows, errors.size());
+    private DealWriter selectDealWriter(boolean useCopy) {
+        if (useCopy) {
+            return copyDealWriter;
+        }
+        return ingestionProperties.getWriter() == IngestionProperties.Writer.JDBC ? jdbcDealWriter : jpaDealWriter;
+    }
 
-            // Update accumulative counts
-            logger.info("Updating accumulative deal counts for file: {}", fileName);
-            dealService.updateAccumulativeCounts(fileName);
+    /**
+     * The configured ingestion mode, as far as possible: bulk loading always goes through chunks and only a file
+     * on disk can be parsed in parallel
+     *
+     * @param streamed whether the upload can only be read front to back as one stream
+     */
+    private IngestionProperties.Mode selectMode(boolean useCopy, boolean streamed) {
+        IngestionProperties.Mode mode = ingestionProperties.getMode();
+        if ((mode == IngestionProperties.Mode.ROW && useCopy) || (mode == IngestionProperties.Mode.PARALLEL && streamed)) {
+            return IngestionProperties.Mode.CHUNKED;
+        }
+        return mode;
+    }
+
+    /**
+     * Run an import once it is admitted, under the lease of its transaction log from the wait on, and record how it ended
+     * An import that is not admitted has not started, its transaction log is deleted so the upload can be retried
+     * The invalid rows of the import are logged as one summary once it has ended, successfully or not
+     *
+     * @param admissionMode how the import is admitted
+     * @param parser sets up the ingestion and hands it all rows of the upload
+     */
+    private void ingest(TransactionLog transactionLog, AdmissionMode admissionMode, IngestionParser parser) {
+        String fileName = transactionLog.getFileName();
+        // The lease is kept while the import waits, so the recovery does not take over a queued upload
+        importHeartbeat.register(transactionLog.getId());
+        IngestionAdmission.Permit permit;
+        try {
+            permit = admissionMode == AdmissionMode.NONE
+                ? null
+                : ingestionAdmission.admit(transactionLog.getId(), admissionMode == AdmissionMode.REJECT_WHEN_BUSY);
+        } catch (UploadThrottledException e) {
+            importHeartbeat.release(transactionLog.getId());
+            transactionLogService.delete(transactionLog);
+            throw e;
+        } catch (RuntimeException e) {
+            // Interrupted while waiting, the recovery takes the import over once its lease has expired
+            importHeartbeat.release(transactionLog.getId());
+            throw e;
+        }
+        ImportErrorDigest errorDigest = new ImportErrorDigest(fileName, ingestionProperties.getInvalidRowExamples());
+        try (permit) {
+            Ingestion ingestion = parser.parse(errorDigest);
+            ingestion.finish();
+
+            logger.info("Parsing completed. Total rows: {}, Processed: {}, Errors: {}",
+                ingestion.totalRows, ingestion.getProcessedRows(), errorDigest.getTotal());
 
             // Complete transaction
             transactionLogService.completeTransaction(fileName);
-            
-            logger.info("File upload completed successfully: {} - Processed {} rows", 
-                fileName, processedRows);
-            
+
+            logger.info("File upload completed successfully: {} - Processed {} rows",
+                fileName, ingestion.getProcessedRows());
+
         } catch (FileProcessingException e) {
             logger.error("File processing exception for file {}: {}", fileName, e.getMessage(), e);
             transactionLogService.failTransaction(fileName, e.getMessage());
@@ -118,20 +370,296 @@ public class FileUploadService {
             logger.error("Unexpected error processing file {}: {}", fileName, e.getMessage(), e);
             transactionLogService.failTransaction(fileName, "Unexpected error: " + e.getMessage());
             throw new FileProcessingException("Failed to process file: " + fileName, e);
+        } finally {
+            errorDigest.log();
+            importHeartbeat.release(transactionLog.getId());
         }
     }
 
     /**
-     * Map CSV record to DealDto
+     * How an import is admitted by {@link IngestionAdmission}
      */
-    private DealDto mapToDealDto(CSVRecord record) {
-        DealDto dealDto = new DealDto();
-        dealDto.setDealId(record.get("deal_id"));
-        dealDto.setFromCurrency(record.get("from_currency"));
-        dealDto.setToCurrency(record.get("to_currency"));
-        dealDto.setDateTime(record.get("date_time"));
-        dealDto.setAmount(record.get("amount"));
-        return dealDto;
+    private enum AdmissionMode {
+        /** The client is waiting for the import, see {@link IngestionAdmission#admit} */
+        REJECT_WHEN_BUSY,
+        /** The import waits for its turn */
+        QUEUE,
+        /** The import is not admitted, the caller limits how many run at the same time */
+        NONE
     }
-}
 
+    @FunctionalInterface
+    private interface IngestionParser {
+
+        Ingestion parse(ImportErrorDigest errorDigest) throws IOException;
+    }
+
+    /**
+     * Tokenize the memory-mapped CSV file on the calling thread, in ROW and CHUNKED mode
+     * In CHUNKED mode rows are validated straight from the tokenizer's row view
+     */
+    private void parseSequential(Path spoolFile, Ingestion ingestion) throws IOException {
+        try (FileChannel channel = FileChannel.open(spoolFile, StandardOpenOption.READ)) {
+            // The header is only skipped when starting from the beginning of the file
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(channel, ingestion.checkpointOffset,
+                (int) Math.min(ingestionProperties.getMapWindowSize().toBytes(), Integer.MAX_VALUE),
+                ingestion.checkpointOffset == 0);
+            tokenize(tokenizer, 0, ingestion);
+        }
+    }
+
+    /**
+     * Tokenize a compressed file while it is decompressed, the decompressed content never lands on disk
+     */
+    private void parseCompressed(Path spoolFile, CompressionFormat compression, Ingestion ingestion) throws IOException {
+        try (InputStream input = Files.newInputStream(spoolFile)) {
+            parseStream(input, compression, ingestion);
+        }
+    }
+
+    /**
+     * Tokenize a stream of the file, decompressing it first when it is compressed
+     * Offsets are offsets in the decompressed content, a resumed import decompresses and skips the content
+     * up to its checkpoint. Progress of a compressed file is reported in compressed bytes read
+     */
+    private void parseStream(InputStream content, CompressionFormat compression, Ingestion ingestion) throws IOException {
+        CountingInputStream counted = new CountingInputStream(content);
+        try (InputStream input = compression.decompress(counted)) {
+            input.skipNBytes(ingestion.checkpointOffset);
+            if (compression.isCompressed()) {
+                ingestion.compressedUpload = counted;
+            }
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(input, ingestion.checkpointOffset == 0);
+            tokenize(tokenizer, ingestion.checkpointOffset, ingestion);
+        }
+    }
+
+    /**
+     * Hand all rows of a tokenizer to the ingestion
+     *
+     * @param startOffset offset in the content where the tokenizer started counting bytes
+     */
+    private void tokenize(DealCsvTokenizer tokenizer, long startOffset, Ingestion ingestion) throws IOException {
+        int rowNumber = ingestion.checkpointRow;
+        while (tokenizer.next()) {
+            rowNumber++;
+            ingestion.totalRows++;
+            DealRowView view = tokenizer.row();
+
+            try {
+                DealRow row = ingestion.chunked
+                    ? dealRowFactory.toDealRow(rowNumber, view)
+                    : new DealRow(rowNumber, view.toDealDto());
+                row.setEndOffset(startOffset + tokenizer.getBytesConsumed());
+                ingestion.add(row);
+            } catch (Exception e) {
+                logger.debug("Error processing row {} in file {}", rowNumber, ingestion.fileName, e);
+                ingestion.errorDigest.record(ErrorCategory.MALFORMED_ROW, "Row " + rowNumber + ": " + e.getMessage());
+                // Continue processing - no rollback
+            }
+        }
+    }
+
+    private Path spool(MultipartFile file, TransactionLog transactionLog) {
+        try {
+            Path spoolDirectory = ingestionProperties.getAsync().getSpoolDirectory();
+            Files.createDirectories(spoolDirectory);
+            Path spoolFile = Files.createTempFile(spoolDirectory, "upload-" + transactionLog.getId() + "-", ".csv");
+            // Moves the container's temporary file where possible instead of copying it
+            file.transferTo(spoolFile.toAbsolutePath().toFile());
+            if (transactionLog.getId() != null) {
+                recordContentHash(spoolFile, transactionLog);
+                transactionLogService.recordSpoolFile(transactionLog.getId(), spoolFile);
+            }
+            return spoolFile;
+        } catch (IOException e) {
+            logger.error("Failed to spool file {}: {}", transactionLog.getFileName(), e.getMessage(), e);
+            transactionLogService.failTransaction(transactionLog.getFileName(), "Failed to spool file: " + e.getMessage());
+            throw new FileProcessingException("Failed to spool file: " + transactionLog.getFileName(), e);
+        }
+    }
+
+    /**
+     * Hash the spooled upload, an upload with the content of an imported file is dropped before it is parsed
+     */
+    private void recordContentHash(Path spoolFile, TransactionLog transactionLog) throws IOException {
+        try {
+            transactionLogService.recordContentHash(transactionLog, ContentHash.sha256(spoolFile));
+        } catch (DuplicateContentException e) {
+            deleteSpoolFile(spoolFile);
+            transactionLogService.delete(transactionLog);
+            throw e;
+        }
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spooled file {}: {}", spoolFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Rows of one file on their way to the database, with running totals for the checkpoints
+     */
+    private class Ingestion {
+        private final Long transactionLogId;
+        private final String fileName;
+        private final DealWriter dealWriter;
+        private final boolean chunked;
+        private final int chunkSize;
+        private final List<DealRow> chunk;
+        private final ImportErrorDigest errorDigest;
+        private final int checkpointRow;
+        private final long checkpointOffset;
+        // Compressed bytes read of a compressed upload, which are the progress instead of the content offset
+        private CountingInputStream compressedUpload;
+        private long totalRows;
+        private long validRows;
+        private long invalidRows;
+
+        private Ingestion(TransactionLog transactionLog, DealWriter dealWriter, boolean chunked,
+                          ImportErrorDigest errorDigest) {
+            this.transactionLogId = transactionLog.getId();
+            this.fileName = transactionLog.getFileName();
+            this.dealWriter = dealWriter;
+            this.chunked = chunked;
+            this.errorDigest = errorDigest;
+            this.chunkSize = ingestionProperties.getChunkSize();
+            this.chunk = new ArrayList<>(chunkSize);
+
+            // An interrupted import continues after its last committed chunk
+            if (transactionLog.getCheckpointRow() != null && transactionLog.getCheckpointOffset() != null) {
+                this.checkpointRow = transactionLog.getCheckpointRow().intValue();
+                this.checkpointOffset = transactionLog.getCheckpointOffset();
+                this.validRows = orZero(transactionLog.getValidCount());
+                this.invalidRows = orZero(transactionLog.getInvalidCount());
+            } else {
+                this.checkpointRow = 1; // Start from 1 (header is row 0)
+                this.checkpointOffset = 0;
+            }
+        }
+
+        private void add(DealRow row) {
+            chunk.add(row);
+            if (chunk.size() >= chunkSize) {
+                commitChunk();
+            }
+        }
+
+        private void finish() {
+            if (!chunk.isEmpty()) {
+                commitChunk();
+            }
+        }
+
+        /**
+         * Save the buffered rows, their deal counts, their currency breakdown and the checkpoint after them in one
+         * transaction, then drop the saved entities from the persistence context
+         * A failing chunk is rolled back and retried row by row, so every row still ends up valid or invalid
+         */
+        private void commitChunk() {
+            int firstRow = chunk.get(0).getRowNumber();
+            DealRow lastRow = chunk.get(chunk.size() - 1);
+            long startNanos = System.nanoTime();
+            try {
+                DealService.ChunkResult result = commit(chunk, chunked);
+                ingestionAdmission.recordLatency(Duration.ofNanos(System.nanoTime() - startNanos));
+                logger.debug("Processed rows {}-{} successfully - Valid: {}, Invalid: {}",
+                    firstRow, lastRow.getRowNumber(), result.getValidCount(), result.getInvalidCount());
+            } catch (Exception e) {
+                logger.error("Error processing rows {}-{} in file {}, retrying them one by one: {}",
+                    firstRow, lastRow.getRowNumber(), fileName, e.getMessage(), e);
+                chunk.forEach(this::commitRow);
+            }
+            chunk.clear();
+        }
+
+        /**
+         * Save a row of a failed chunk in its own transaction, as invalid with a processing error if it fails again
+         * An error saving the invalid row fails the import, which keeps the checkpoint before the row
+         */
+        private void commitRow(DealRow row) {
+            try {
+                commit(List.of(row), false);
+            } catch (Exception e) {
+                logger.debug("Error processing row {} in file {}", row.getRowNumber(), fileName, e);
+                transactionTemplate.executeWithoutResult(status -> {
+                    dealService.saveFailedDeal(row, transactionLogId, e.getMessage(), errorDigest);
+                    saveCheckpoint(row, validRows, invalidRows + 1);
+                });
+                invalidRows++;
+            }
+        }
+
+        /**
+         * Save rows with their counts and the checkpoint after them in one transaction
+         * Errors counted for rows of a failing transaction are taken back from the error digest
+         */
+        private DealService.ChunkResult commit(List<DealRow> rows, boolean chunkedRows) {
+            DealRow lastRow = rows.get(rows.size() - 1);
+            ImportErrorDigest errorsBefore = errorDigest.snapshot();
+            DealService.ChunkResult result;
+            try {
+                result = transactionTemplate.execute(status -> {
+                    DealService.ChunkResult chunkResult = chunkedRows
+                        ? dealService.processChunk(rows, fileName, transactionLogId, dealWriter, errorDigest)
+                        : processRows(rows);
+                    accumulativeCountService.record(fileName, chunkResult.getCurrencyCounts());
+                    fileCurrencyCountService.record(fileName, chunkResult.getCurrencyTotals());
+                    saveCheckpoint(lastRow, validRows + chunkResult.getValidCount(),
+                        invalidRows + chunkResult.getInvalidCount());
+                    entityManager.flush();
+                    entityManager.clear();
+                    return chunkResult;
+                });
+            } catch (RuntimeException e) {
+                errorDigest.resetTo(errorsBefore);
+                throw e;
+            }
+            validRows += result.getValidCount();
+            invalidRows += result.getInvalidCount();
+            return result;
+        }
+
+        private void saveCheckpoint(DealRow lastRow, long validCount, long invalidCount) {
+            if (transactionLogId != null) {
+                transactionLogService.saveCheckpoint(transactionLogId, lastRow.getRowNumber(), lastRow.getEndOffset(),
+                    getBytesProcessed(lastRow), validCount, invalidCount);
+            }
+        }
+
+        /**
+         * Process rows one by one in ROW mode, with a duplicate lookup and an insert per row
+         */
+        private DealService.ChunkResult processRows(List<DealRow> rows) {
+            int validCount = 0;
+            int invalidCount = 0;
+            CurrencyPairTotals currencyTotals = new CurrencyPairTotals();
+            for (DealRow row : rows) {
+                ValidDeal validDeal = dealService.processDeal(row, fileName, transactionLogId, errorDigest);
+                if (validDeal != null) {
+                    validCount++;
+                    currencyTotals.add(validDeal.getFromCurrency(), validDeal.getToCurrency(), 1, validDeal.getAmount());
+                } else {
+                    invalidCount++;
+                }
+                logger.debug("Processed row {} successfully", row.getRowNumber());
+            }
+            return new DealService.ChunkResult(validCount, invalidCount, currencyTotals);
+        }
+
+        private long getProcessedRows() {
+            return validRows + invalidRows;
+        }
+
+        private long getBytesProcessed(DealRow lastRow) {
+            return compressedUpload != null ? compressedUpload.getCount() : lastRow.getEndOffset();
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.exception.FileProcessingException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * Parses and validates a spooled CSV file on a ForkJoinPool
+ * The file is split into byte ranges that end on record boundaries, each range is memory-mapped, parsed
+ * and validated by its own task and the ranges are handed back in file order with their original row numbers
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCsvParser.class);
+
+    private final DealRowFactory dealRowFactory;
+    private final IngestionProperties ingestionProperties;
+    private final ForkJoinPool pool;
+
+    public ParallelCsvParser(DealRowFactory dealRowFactory, IngestionProperties ingestionProperties) {
+        this.dealRowFactory = dealRowFactory;
+        this.ingestionProperties = ingestionProperties;
+        this.pool = new ForkJoinPool(ingestionProperties.getParallelism(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("csv-parser-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Parse and validate a CSV file, handing the parsed ranges to the handler in file order
+     * At most twice the pool parallelism ranges are in flight, so memory stays bounded for large files
+     *
+     * @param file the spooled CSV file, starting with the header line
+     * @param handler receives the parsed ranges in file order
+     * @throws IOException if the file cannot be read or is not valid CSV
+     */
+    public void parse(Path file, RangeHandler handler) throws IOException {
+        parse(file, 0, 1, handler);
+    }
+
+    /**
+     * Parse and validate a CSV file from a record boundary, handing the parsed ranges to the handler in file order
+     *
+     * @param file the spooled CSV file, starting with the header line
+     * @param startOffset offset of the first record to parse, 0 for the whole file
+     * @param lastRowNumber number of the row just before the start offset, 1 for the whole file
+     * @param handler receives the parsed ranges in file order
+     * @throws IOException if the file cannot be read or is not valid CSV
+     */
+    public void parse(Path file, long startOffset, int lastRowNumber, RangeHandler handler) throws IOException {
+        long rangeSize = ingestionProperties.getParseRangeSize().toBytes();
+        int window = pool.getParallelism() * 2;
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+        Deque<PendingRange> pending = new ArrayDeque<>(window);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            BoundaryScanner scanner = new BoundaryScanner(channel, startOffset, size,
+                (int) Math.min(ingestionProperties.getMapWindowSize().toBytes(), Integer.MAX_VALUE));
+            long start = startOffset;
+
+            while (start < size) {
+                long rangeStart = start;
+                long rangeEnd = scanner.nextBoundary(Math.min(start + rangeSize, size));
+                boolean firstRange = rangeStart == 0;
+                pending.add(new PendingRange(pool.submit(() ->
+                    parseRange(channel, rangeStart, rangeEnd, firstRange, mdc)), rangeEnd));
+                start = rangeEnd;
+
+                if (pending.size() >= window) {
+                    lastRowNumber = complete(pending.poll(), lastRowNumber, handler);
+                }
+            }
+            while (!pending.isEmpty()) {
+                lastRowNumber = complete(pending.poll(), lastRowNumber, handler);
+            }
+            logger.debug("Parsed {} bytes of file {} in parallel, last row: {}", size, file, lastRowNumber);
+        } finally {
+            pending.forEach(range -> range.task.cancel(true));
+        }
+    }
+
+    /**
+     * Wait for the next range in file order, number its rows and hand it over
+     */
+    private int complete(PendingRange pendingRange, int lastRowNumber, RangeHandler handler) throws IOException {
+        List<ParsedRecord> records;
+        try {
+            records = pendingRange.task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileProcessingException("Interrupted while parsing file", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new FileProcessingException("Failed to parse file: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        int rowNumber = lastRowNumber;
+        List<DealRow> rows = new ArrayList<>(records.size());
+        List<String> errors = new ArrayList<>();
+        for (ParsedRecord record : records) {
+            rowNumber++;
+            if (record.error != null) {
+                // Counted and logged by the ingestion, only the stack trace is logged here
+                logger.debug("Error processing row {}", rowNumber, record.error);
+                errors.add("Row " + rowNumber + ": " + record.error.getMessage());
+            } else {
+                record.row.setRowNumber(rowNumber);
+                rows.add(record.row);
+            }
+        }
+        handler.handle(new ParsedRange(rows, errors, pendingRange.end));
+        return rowNumber;
+    }
+
+    private List<ParsedRecord> parseRange(FileChannel channel, long start, long end, boolean firstRange,
+                                          Map<String, String> mdc) throws IOException {
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        }
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+
+            // Rows are numbered once the ranges are merged in file order
+            List<ParsedRecord> records = new ArrayList<>();
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(buffer, firstRange);
+            while (tokenizer.next()) {
+                try {
+                    DealRow row = dealRowFactory.toDealRow(0, tokenizer.row());
+                    row.setEndOffset(start + tokenizer.getBytesConsumed());
+                    records.add(new ParsedRecord(row, null));
+                } catch (Exception e) {
+                    records.add(new ParsedRecord(null, e));
+                }
+            }
+            return records;
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Receives parsed ranges in file order
+     */
+    @FunctionalInterface
+    public interface RangeHandler {
+        void handle(ParsedRange range);
+    }
+
+    /**
+     * Rows of one byte range of the file, numbered by their position in the whole file
+     */
+    public static class ParsedRange {
+        private final List<DealRow> rows;
+        private final List<String> errors;
+        private final long endOffset;
+
+        public ParsedRange(List<DealRow> rows, List<String> errors, long endOffset) {
+            this.rows = rows;
+            this.errors = errors;
+            this.endOffset = endOffset;
+        }
+
+        public List<DealRow> getRows() {
+            return rows;
+        }
+
+        /**
+         * Rows that could not be mapped, as "Row n: message"
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        /**
+         * Byte offset in the file up to which rows have been parsed
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+    }
+
+    private record PendingRange(ForkJoinTask<List<ParsedRecord>> task, long end) {
+    }
+
+    private record ParsedRecord(DealRow row, Exception error) {
+    }
+
+    /**
+     * Finds record boundaries with the same quoting rules as DealCsvTokenizer: a quote only opens a quoted
+     * field at the start of a field, inside it a doubled quote is an escaped quote, and line breaks
+     * inside quoted fields do not end the record
+     */
+    static class BoundaryScanner {
+
+        private final FileChannel channel;
+        private final long size;
+        private final int windowSize;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+        private int windowIndex;
+        private long position;
+
+        private boolean inQuotes;
+        private boolean pendingQuote;
+        private boolean fieldStart = true;
+
+        BoundaryScanner(FileChannel channel, long startOffset, long size, int windowSize) {
+            this.channel = channel;
+            this.position = startOffset;
+            this.size = size;
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Scan up to the first record boundary at or after the given offset
+         *
+         * @return the offset just after the line break ending the record, or the file size
+         */
+        long nextBoundary(long minOffset) throws IOException {
+            while (true) {
+                if (windowIndex == window.limit()) {
+                    if (position >= size) {
+                        return size;
+                    }
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+                    windowIndex = 0;
+                }
+                byte b = window.get(windowIndex++);
+                position++;
+
+                if (pendingQuote) {
+                    pendingQuote = false;
+                    if (b == '"') {
+                        // Escaped quote, still inside the quoted field
+                        continue;
+                    }
+                    inQuotes = false;
+                    fieldStart = false;
+                } else if (inQuotes) {
+                    if (b == '"') {
+                        pendingQuote = true;
+                    }
+                    continue;
+                }
+
+                if (b == '"' && fieldStart) {
+                    inQuotes = true;
+                } else if (b == ',') {
+                    fieldStart = true;
+                } else if (b == '\n') {
+                    fieldStart = true;
+                    if (position >= minOffset) {
+                        return position;
+                    }
+                } else {
+                    fieldStart = false;
+                }
+            }
+        }
+    }
+}
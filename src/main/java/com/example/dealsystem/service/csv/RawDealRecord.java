@@ -0,0 +1,37 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.dto.DealRow;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Raw bytes of one CSV record, tokenized again only when its Strings are needed
+ */
+public class RawDealRecord implements DealRow.RawRow {
+
+    private final byte[] bytes;
+
+    public RawDealRecord(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public DealDto toDealDto() {
+        return tokenize().toDealDto();
+    }
+
+    private DealRowView tokenize() {
+        try {
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(ByteBuffer.wrap(bytes), false);
+            if (!tokenizer.next()) {
+                throw new IllegalStateException("Raw deal record is empty");
+            }
+            return tokenizer.row();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.AccumulativeDealCount;
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.DealCountDelta;
+import com.example.dealsystem.repository.AccumulativeDealCountRepository;
+import com.example.dealsystem.repository.DealCountDeltaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulative deal counts per currency, updated write-behind so uploads never contend on the count rows
+ * An upload records its counts as deal_count_delta rows in its own transaction, which only inserts. A scheduled
+ * flush folds the delta rows of all nodes into accumulative_deal_count and deletes them in one transaction, so
+ * counts of a crashed node are flushed by the others or after the restart.
+ * Reads add the sum of the unflushed delta rows to the flushed totals, read from one snapshot so a flush between
+ * the two queries is not missed or counted twice. The result is kept in memory for the cache TTL, so polling the
+ * counts queries the database at most once per TTL however many uploads are running
+ */
+@Service
+public class AccumulativeCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccumulativeCountService.class);
+
+    private final AccumulativeDealCountRepository accumulativeDealCountRepository;
+    private final DealCountDeltaRepository dealCountDeltaRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final long cacheTtlNanos;
+
+    private volatile ReadCounts readCounts;
+
+    public AccumulativeCountService(AccumulativeDealCountRepository accumulativeDealCountRepository,
+                                    DealCountDeltaRepository dealCountDeltaRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    IngestionProperties ingestionProperties) {
+        this.accumulativeDealCountRepository = accumulativeDealCountRepository;
+        this.dealCountDeltaRepository = dealCountDeltaRepository;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.cacheTtlNanos = ingestionProperties.getAccumulativeCounts().getCacheTtl().toNanos();
+    }
+
+    /**
+     * Record the deal counts per currency of an upload, as part of the upload's transaction
+     *
+     * @param fileName the file name the deals were read from
+     * @param currencyCounts the number of valid deals per from-currency saved from the file
+     */
+    @Transactional
+    public void record(String fileName, CurrencyCounts currencyCounts) {
+        List<DealCountDelta> deltas = new ArrayList<>();
+        currencyCounts.forEach((currency, count) -> deltas.add(new DealCountDelta(fileName, currency, count)));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        dealCountDeltaRepository.saveAll(deltas);
+        logger.debug("Recorded deal counts of {} currencies for file: {}", deltas.size(), fileName);
+    }
+
+    /**
+     * Fold the recorded deltas into accumulative_deal_count
+     * The delta rows are locked with SKIP LOCKED, so nodes flushing at the same time fold disjoint rows and
+     * never wait for each other. The locked rows are deleted and each currency is updated with a single
+     * UPDATE ... SET count_of_deals = count_of_deals + n in a fixed order, a row is only inserted the first time
+     * a currency is seen
+     *
+     * @return the number of deltas flushed
+     */
+    @Scheduled(fixedDelayString = "${deal.ingestion.accumulative-counts.flush-interval:5s}")
+    @Transactional
+    public int flush() {
+        List<DealCountDelta> deltas = dealCountDeltaRepository.lockUnclaimed();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(deltas.size());
+        CurrencyCounts currencyCounts = new CurrencyCounts();
+        for (DealCountDelta delta : deltas) {
+            ids.add(delta.getId());
+            currencyCounts.add(delta.getCurrencyCode(), delta.getCountOfDeals());
+        }
+        dealCountDeltaRepository.deleteByIdIn(ids);
+
+        currencyCounts.forEach((currency, count) -> {
+            if (accumulativeDealCountRepository.incrementCountByCurrencyCode(currency, count) == 0) {
+                AccumulativeDealCount accumulativeCount = new AccumulativeDealCount(currency);
+                accumulativeCount.setCountOfDeals(count);
+                accumulativeDealCountRepository.save(accumulativeCount);
+                logger.info("Created new accumulative count for {}: {}", currency, count);
+            }
+        });
+
+        logger.debug("Flushed {} deal count deltas", deltas.size());
+        return deltas.size();
+    }
+
+    /**
+     * Accumulative deal counts per currency, including counts not flushed yet
+     * The counts are read again once they are older than the cache TTL, counts recorded meanwhile show up then
+     */
+    public Map<CurrencyCode, Long> getCounts() {
+        ReadCounts current = readCounts;
+        long now = System.nanoTime();
+        if (current == null || now - current.readAt() >= cacheTtlNanos) {
+            current = new ReadCounts(Collections.unmodifiableMap(snapshotTransaction.execute(status -> loadCounts())),
+                now);
+            readCounts = current;
+        }
+        return current.counts();
+    }
+
+    private Map<CurrencyCode, Long> loadCounts() {
+        Map<CurrencyCode, Long> loaded = new EnumMap<>(CurrencyCode.class);
+        for (AccumulativeDealCount accumulativeCount : accumulativeDealCountRepository.findAll()) {
+            loaded.put(accumulativeCount.getCurrencyCode(), accumulativeCount.getCountOfDeals());
+        }
+        for (Object[] delta : dealCountDeltaRepository.sumCountsGroupByCurrency()) {
+            loaded.merge((CurrencyCode) delta[0], (Long) delta[1], Long::sum);
+        }
+        return loaded;
+    }
+
+    /**
+     * Counts with the System.nanoTime they were read at
+     */
+    private record ReadCounts(Map<CurrencyCode, Long> counts, long readAt) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.InvalidDeal;
+import com.example.dealsystem.domain.ValidDeal;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * DealWriter that bulk loads deals with PostgreSQL COPY ... FROM STDIN
+ * Valid deals are copied into a session-local staging table, their deal IDs are registered in deal_id_registry with
+ * INSERT ... ON CONFLICT (deal_id) DO NOTHING and only the registered deals are moved into valid_deal, so deal ID
+ * conflicts are reported back instead of failing the load
+ * Falls back to JPA inserts when the datasource is not PostgreSQL (e.g. H2 in the test profile)
+ */
+@Component
+public class CopyDealWriter implements DealWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CopyDealWriter.class);
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final String CREATE_STAGING_SQL = """
+        CREATE TEMPORARY TABLE IF NOT EXISTS valid_deal_staging (
+            created_at TIMESTAMP,
+            file_name VARCHAR(255),
+            deal_id VARCHAR(100),
+            from_currency VARCHAR(3),
+            to_currency VARCHAR(3),
+            date_time TIMESTAMP,
+            amount NUMERIC(19,2)
+        ) ON COMMIT DELETE ROWS
+        """;
+
+    private static final String COPY_STAGING_SQL =
+        "COPY valid_deal_staging (created_at, file_name, deal_id, from_currency, to_currency, date_time, amount) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private static final String MERGE_STAGING_SQL = """
+        WITH registered AS (
+            INSERT INTO deal_id_registry (deal_id, date_time)
+            SELECT deal_id, date_time FROM valid_deal_staging
+            ON CONFLICT (deal_id) DO NOTHING
+            RETURNING deal_id
+        )
+        INSERT INTO valid_deal (created_at, file_name, deal_id, from_currency, to_currency, date_time, amount)
+        SELECT s.created_at, s.file_name, s.deal_id, s.from_currency, s.to_currency, s.date_time, s.amount
+        FROM valid_deal_staging s
+        JOIN registered r ON r.deal_id = s.deal_id
+        RETURNING deal_id
+        """;
+
+    private static final String COPY_INVALID_SQL =
+        "COPY invalid_deal (created_at, transaction_log_id, deal_id, from_currency, to_currency, date_time, amount, "
+            + "error_code, error_detail) FROM STDIN WITH (FORMAT csv)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JpaDealWriter fallbackWriter;
+
+    private volatile Boolean copySupported;
+
+    public CopyDealWriter(JdbcTemplate jdbcTemplate, JpaDealWriter fallbackWriter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fallbackWriter = fallbackWriter;
+    }
+
+    @Override
+    public List<ValidDeal> writeValidDeals(List<ValidDeal> deals) {
+        if (deals.isEmpty()) {
+            return List.of();
+        }
+        if (!isCopySupported()) {
+            return fallbackWriter.writeValidDeals(deals);
+        }
+
+        byte[] data = toCsv(deals, (deal, createdAt) -> new String[] {
+            createdAt,
+            deal.getFileName(),
+            deal.getDealId(),
+            deal.getFromCurrency().name(),
+            deal.getToCurrency().name(),
+            deal.getDateTime().format(TIMESTAMP_FORMATTER),
+            deal.getAmount().toPlainString()
+        });
+
+        Set<String> insertedDealIds = jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_STAGING_SQL);
+                statement.execute("TRUNCATE valid_deal_staging");
+            }
+            copyIn(connection, COPY_STAGING_SQL, data);
+
+            Set<String> inserted = new HashSet<>();
+            try (Statement statement = connection.createStatement();
+                 var resultSet = statement.executeQuery(MERGE_STAGING_SQL)) {
+                while (resultSet.next()) {
+                    inserted.add(resultSet.getString(1));
+                }
+            }
+            return inserted;
+        });
+
+        List<ValidDeal> conflicts = new ArrayList<>();
+        for (ValidDeal deal : deals) {
+            if (insertedDealIds == null || !insertedDealIds.contains(deal.getDealId())) {
+                conflicts.add(deal);
+            }
+        }
+        logger.debug("Bulk loaded {} valid deals via COPY ({} deal ID conflicts)",
+            deals.size() - conflicts.size(), conflicts.size());
+        return conflicts;
+    }
+
+    @Override
+    public void writeInvalidDeals(List<InvalidDeal> deals) {
+        if (deals.isEmpty()) {
+            return;
+        }
+        if (!isCopySupported()) {
+            fallbackWriter.writeInvalidDeals(deals);
+            return;
+        }
+
+        byte[] data = toCsv(deals, (deal, createdAt) -> new String[] {
+            createdAt,
+            deal.getTransactionLogId() != null ? deal.getTransactionLogId().toString() : null,
+            deal.getDealId(),
+            deal.getFromCurrency(),
+            deal.getToCurrency(),
+            deal.getDateTime(),
+            deal.getAmount(),
+            Short.toString(deal.getErrorCode().getCode()),
+            deal.getErrorDetail()
+        });
+
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> copyIn(connection, COPY_INVALID_SQL, data));
+        logger.debug("Bulk loaded {} invalid deals via COPY", deals.size());
+    }
+
+    /**
+     * Whether the datasource is PostgreSQL and supports COPY, checked once
+     */
+    public boolean isCopySupported() {
+        Boolean supported = copySupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.isWrapperFor(PGConnection.class));
+            copySupported = supported;
+            if (!Boolean.TRUE.equals(supported)) {
+                logger.warn("Datasource does not support PostgreSQL COPY - bulk load falls back to JPA inserts");
+            }
+        }
+        return Boolean.TRUE.equals(supported);
+    }
+
+    private long copyIn(Connection connection, String sql, byte[] data) throws SQLException {
+        CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        try {
+            return copyManager.copyIn(sql, new ByteArrayInputStream(data));
+        } catch (IOException e) {
+            throw new SQLException("Failed to stream COPY data: " + e.getMessage(), e);
+        }
+    }
+
+    private <T> byte[] toCsv(List<T> deals, BiFunction<T, String, String[]> rowMapper) {
+        String createdAt = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(deals.size() * 128);
+        try (Writer writer = new OutputStreamWriter(buffer, StandardCharsets.UTF_8)) {
+            for (T deal : deals) {
+                String[] fields = rowMapper.apply(deal, createdAt);
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writeField(writer, fields[i]);
+                }
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Write one CSV field in COPY csv format: null is an unquoted empty field, everything else is quoted
+     */
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value != null) {
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+    }
+}
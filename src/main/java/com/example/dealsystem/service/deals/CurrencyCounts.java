@@ -0,0 +1,42 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.CurrencyCode;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Number of deals per from-currency, counted while a file is ingested
+ * Counts are kept in a primitive array indexed by {@link CurrencyCode#ordinal()}, so memory does not
+ * grow with the size of the file
+ */
+public class CurrencyCounts {
+
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+
+    private final long[] counts = new long[CURRENCIES.length];
+
+    public void add(CurrencyCode currency, long count) {
+        counts[currency.ordinal()] += count;
+    }
+
+    public void addAll(CurrencyCounts other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long get(CurrencyCode currency) {
+        return counts[currency.ordinal()];
+    }
+
+    /**
+     * Visit the currencies with a non-zero count, in ordinal order
+     */
+    public void forEach(ObjLongConsumer<CurrencyCode> consumer) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                consumer.accept(CURRENCIES[i], counts[i]);
+            }
+        }
+    }
+}
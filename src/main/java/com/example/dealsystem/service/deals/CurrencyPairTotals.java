@@ -0,0 +1,50 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.CurrencyCode;
+
+import java.math.BigDecimal;
+
+/**
+ * Number and total amount of deals per from- and to-currency, summed while a chunk of a file is ingested
+ * Totals are kept in arrays indexed by the ordinals of both currencies, so memory does not grow with the size
+ * of the chunk
+ */
+public class CurrencyPairTotals {
+
+    private static final CurrencyCode[] CURRENCIES = CurrencyCode.values();
+
+    private final long[] counts = new long[CURRENCIES.length * CURRENCIES.length];
+    private final BigDecimal[] amounts = new BigDecimal[counts.length];
+
+    @FunctionalInterface
+    public interface Visitor {
+        void accept(CurrencyCode fromCurrency, CurrencyCode toCurrency, long count, BigDecimal amount);
+    }
+
+    public void add(CurrencyCode fromCurrency, CurrencyCode toCurrency, long count, BigDecimal amount) {
+        int index = fromCurrency.ordinal() * CURRENCIES.length + toCurrency.ordinal();
+        counts[index] += count;
+        amounts[index] = amounts[index] != null ? amounts[index].add(amount) : amount;
+    }
+
+    /**
+     * Number of deals per from-currency, over all to-currencies
+     */
+    public CurrencyCounts toCurrencyCounts() {
+        CurrencyCounts currencyCounts = new CurrencyCounts();
+        forEach((fromCurrency, toCurrency, count, amount) -> currencyCounts.add(fromCurrency, count));
+        return currencyCounts;
+    }
+
+    /**
+     * Visit the currency pairs with a non-zero count, in ordinal order of the from- and then the to-currency
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                visitor.accept(CURRENCIES[i / CURRENCIES.length], CURRENCIES[i % CURRENCIES.length],
+                    counts[i], amounts[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over the deal IDs in valid_deal, so IDs that are definitely new skip the duplicate lookup
+ * The filter is rebuilt from the database on startup and every saved deal is added to it. It can only err
+ * towards "maybe present": IDs of rolled back inserts stay in it, and until the rebuild has finished every
+ * ID is looked up in the database. Deals inserted by other nodes or applications are not seen, so the index is
+ * off by default and only fits a single node that is the only writer of valid_deal
+ */
+@Component
+public class DealIdIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DealIdIndex.class);
+
+    private static final int MAX_HASH_COUNT = 16;
+
+    private final DealIdRegistryRepository dealIdRegistryRepository;
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder definitelyNew = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final Counter definitelyNewCounter;
+    private final Counter maybePresentCounter;
+    private final Counter falsePositiveCounter;
+
+    public DealIdIndex(IngestionProperties ingestionProperties, DealIdRegistryRepository dealIdRegistryRepository,
+                       MeterRegistry meterRegistry) {
+        IngestionProperties.IdIndex settings = ingestionProperties.getIdIndex();
+        this.dealIdRegistryRepository = dealIdRegistryRepository;
+        this.enabled = settings.isEnabled();
+
+        int words = (int) Math.min(Math.max(settings.getMemoryBudget().toBytes() / Long.BYTES, 1), Integer.MAX_VALUE);
+        this.bits = new AtomicLongArray(enabled ? words : 1);
+        this.bitCount = (long) bits.length() * Long.SIZE;
+        // Optimal number of hash functions for the expected number of IDs: bits per ID * ln 2
+        long optimal = Math.round((double) bitCount / settings.getExpectedDeals() * Math.log(2));
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASH_COUNT, optimal));
+
+        this.definitelyNewCounter = Counter.builder("deal.id.index.lookups").tag("result", "definitely_new")
+            .description("Deal IDs the index reported as definitely new").register(meterRegistry);
+        this.maybePresentCounter = Counter.builder("deal.id.index.lookups").tag("result", "maybe_present")
+            .description("Deal IDs the index reported as maybe present, looked up in the database").register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("deal.id.index.false.positives")
+            .description("Deal IDs reported as maybe present that were not in the database").register(meterRegistry);
+        Gauge.builder("deal.id.index.false.positive.rate", this, DealIdIndex::getFalsePositiveRate)
+            .description("Share of new deal IDs the index reported as maybe present").register(meterRegistry);
+        Gauge.builder("deal.id.index.expected.false.positive.rate", this, DealIdIndex::getExpectedFalsePositiveRate)
+            .description("False positive rate expected from the number of deal IDs in the index").register(meterRegistry);
+        Gauge.builder("deal.id.index.entries", entries, LongAdder::sum)
+            .description("Deal IDs added to the index, including repeated additions").register(meterRegistry);
+    }
+
+    /**
+     * Load all existing deal IDs once the application has started, streaming deal_id_registry through a cursor
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            logger.info("Deal ID index is disabled, every deal ID is looked up in the database");
+            return;
+        }
+        long start = System.currentTimeMillis();
+        long count = 0;
+        try (Stream<String> dealIds = dealIdRegistryRepository.streamAllDealIds()) {
+            for (String dealId : (Iterable<String>) dealIds::iterator) {
+                add(dealId);
+                count++;
+            }
+        }
+        ready = true;
+        logger.info("Rebuilt deal ID index from {} deal IDs in {} ms ({} bits, {} hash functions, expected false positive rate {})",
+            count, System.currentTimeMillis() - start, bitCount, hashCount, String.format("%.2e", getExpectedFalsePositiveRate()));
+    }
+
+    /**
+     * Record deal IDs that have been saved
+     */
+    public void addAll(Collection<String> dealIds) {
+        if (enabled) {
+            dealIds.forEach(this::add);
+        }
+    }
+
+    /**
+     * Whether a deal ID may exist, false means it definitely does not
+     */
+    public boolean mightContain(String dealId) {
+        if (!ready) {
+            return true;
+        }
+        long hash = hash(dealId);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find which of the deal IDs already exist, asking the database only about IDs the index may contain
+     *
+     * @param dealIds the deal IDs to check
+     * @param databaseLookup returns the existing deal IDs among the given ones
+     * @return the existing deal IDs
+     */
+    public Set<String> findExisting(Set<String> dealIds, Function<Set<String>, Set<String>> databaseLookup) {
+        if (!ready) {
+            return dealIds.isEmpty() ? Set.of() : databaseLookup.apply(dealIds);
+        }
+        Set<String> candidates = new HashSet<>();
+        for (String dealId : dealIds) {
+            if (mightContain(dealId)) {
+                candidates.add(dealId);
+            }
+        }
+        long skipped = dealIds.size() - candidates.size();
+        definitelyNew.add(skipped);
+        definitelyNewCounter.increment(skipped);
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+
+        maybePresentCounter.increment(candidates.size());
+        Set<String> existing = databaseLookup.apply(candidates);
+        long missed = candidates.size() - existing.size();
+        falsePositives.add(missed);
+        falsePositiveCounter.increment(missed);
+        return existing;
+    }
+
+    /**
+     * Whether a single deal ID already exists, asking the database only if the index may contain it
+     */
+    public boolean exists(String dealId, Predicate<String> databaseLookup) {
+        if (!ready) {
+            return databaseLookup.test(dealId);
+        }
+        if (!mightContain(dealId)) {
+            definitelyNew.increment();
+            definitelyNewCounter.increment();
+            return false;
+        }
+        maybePresentCounter.increment();
+        boolean exists = databaseLookup.test(dealId);
+        if (!exists) {
+            falsePositives.increment();
+            falsePositiveCounter.increment();
+        }
+        return exists;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Measured share of new deal IDs that still had to be looked up in the database
+     */
+    public double getFalsePositiveRate() {
+        long negatives = definitelyNew.sum() + falsePositives.sum();
+        return negatives == 0 ? 0 : (double) falsePositives.sum() / negatives;
+    }
+
+    /**
+     * False positive rate expected from the number of IDs added so far: (1 - e^(-k * n / m))^k
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * entries.sum() / bitCount), hashCount);
+    }
+
+    private void add(String dealId) {
+        long hash = hash(dealId);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+        entries.increment();
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of a deal ID
+     */
+    private static long hash(String dealId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < dealId.length(); i++) {
+            hash ^= dealId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads the FNV hash over all 64 bits
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3f99fd1fd3bL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,22 +1,29 @@
 package com.example.dealsystem.service.deals;
 
-import com.example.dealsystem.domain.AccumulativeDealCount;
-import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.DealIdRegistration;
 import com.example.dealsystem.domain.InvalidDeal;
 import com.example.dealsystem.domain.ValidDeal;
 import com.example.dealsystem.dto.DealDto;
-import com.example.dealsystem.repository.AccumulativeDealCountRepository;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
 import com.example.dealsystem.repository.InvalidDealRepository;
 import com.example.dealsystem.repository.ValidDealRepository;
+import com.example.dealsystem.service.logging.ImportErrorDigest;
 import com.example.dealsystem.validation.DealValidator;
+import com.example.dealsystem.validation.ErrorCode;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service for processing and managing deals
@@ -25,126 +32,237 @@ import java.util.Map;
 public class DealService {
 
     private static final Logger logger = LoggerFactory.getLogger(DealService.class);
+    private static final int MAX_ERROR_DETAIL_LENGTH = 500;
 
     private final ValidDealRepository validDealRepository;
     private final InvalidDealRepository invalidDealRepository;
-    private final AccumulativeDealCountRepository accumulativeDealCountRepository;
+    private final DealIdRegistryRepository dealIdRegistryRepository;
     private final DealValidator dealValidator;
+    private final DealIdIndex dealIdIndex;
 
     public DealService(ValidDealRepository validDealRepository,
                        InvalidDealRepository invalidDealRepository,
-                       AccumulativeDealCountRepository accumulativeDealCountRepository,
-                       DealValidator dealValidator) {
+                       DealIdRegistryRepository dealIdRegistryRepository,
+                       DealValidator dealValidator,
+                       DealIdIndex dealIdIndex) {
         this.validDealRepository = validDealRepository;
         this.invalidDealRepository = invalidDealRepository;
-        this.accumulativeDealCountRepository = accumulativeDealCountRepository;
+        this.dealIdRegistryRepository = dealIdRegistryRepository;
         this.dealValidator = dealValidator;
+        this.dealIdIndex = dealIdIndex;
     }
 
     /**
      * Process a deal: validate, check for duplicates, and save to appropriate table
      * No rollback - all deals are saved (either as valid or invalid)
      * 
-     * @param dealDto the deal data
+     * @param row the parsed row of the deal
      * @param fileName the source file name
-     * @param rowData the original CSV row data
+     * @param transactionLogId the transaction log of the file, referenced by invalid deals
+     * @param errorDigest counts the invalid rows of the file
+     * @return the saved valid deal, or null if the deal was saved as invalid
      */
     @Transactional
-    public void processDeal(DealDto dealDto, String fileName, String rowData) {
+    public ValidDeal processDeal(DealRow row, String fileName, Long transactionLogId, ImportErrorDigest errorDigest) {
+        DealDto dealDto = row.getDeal();
         logger.debug("Processing deal ID: {} from file: {}", dealDto.getDealId(), fileName);
         
-        // Check for duplicate deal ID
-        if (validDealRepository.existsByDealId(dealDto.getDealId())) {
-            logger.warn("Duplicate deal ID detected: {} from file: {}", dealDto.getDealId(), fileName);
-            InvalidDeal invalidDeal = createInvalidDeal(dealDto, fileName, rowData, 
-                "Deal ID already exists: " + dealDto.getDealId());
-            invalidDealRepository.save(invalidDeal);
-            logger.info("Saved duplicate deal as invalid: {}", dealDto.getDealId());
-            return;
+        // Check for duplicate deal ID, IDs the index has never seen skip the lookup
+        // A deal without ID gets its validation error instead
+        if (dealDto.getDealId() != null
+                && dealIdIndex.exists(dealDto.getDealId(), dealIdRegistryRepository::existsByDealId)) {
+            saveInvalidDeal(row, transactionLogId, ErrorCode.DUPLICATE_DEAL_ID, dealDto.getDealId(), errorDigest);
+            return null;
         }
 
         // Validate deal structure
         DealValidator.ValidationResult validationResult = dealValidator.validate(dealDto);
         
         if (validationResult.isValid()) {
-            // Save valid deal
-            try {
-                ValidDeal validDeal = ValidDeal.valueOf(dealDto);
-                validDeal.setFileName(fileName);
-                validDealRepository.save(validDeal);
-                logger.info("Successfully saved valid deal: {} from file: {}", dealDto.getDealId(), fileName);
-            } catch (Exception e) {
-                logger.error("Error saving valid deal {}: {}", dealDto.getDealId(), e.getMessage(), e);
-                // Save as invalid due to processing error
-                InvalidDeal invalidDeal = createInvalidDeal(dealDto, fileName, rowData, 
-                    "Error processing deal: " + e.getMessage());
-                invalidDealRepository.save(invalidDeal);
-            }
+            // Save valid deal, the insert is flushed with the chunk the row belongs to
+            ValidDeal validDeal = validationResult.toValidDeal(dealDto);
+            validDeal.setFileName(fileName);
+            dealIdRegistryRepository.save(new DealIdRegistration(validDeal));
+            validDealRepository.save(validDeal);
+            dealIdIndex.addAll(List.of(validDeal.getDealId()));
+            logger.debug("Saved valid deal: {} from file: {}", dealDto.getDealId(), fileName);
+            return validDeal;
         } else {
             // Save invalid deal with validation error
-            logger.warn("Deal validation failed for {}: {}", dealDto.getDealId(), validationResult.getErrorMessage());
-            InvalidDeal invalidDeal = createInvalidDeal(dealDto, fileName, rowData, validationResult.getErrorMessage());
-            invalidDealRepository.save(invalidDeal);
-            logger.info("Saved invalid deal: {} - {}", dealDto.getDealId(), validationResult.getErrorMessage());
+            saveInvalidDeal(row, transactionLogId, validationResult.getErrorCode(), validationResult.getErrorDetail(),
+                errorDigest);
+            return null;
         }
     }
 
     /**
-     * Update accumulative deal counts per currency for the given file
+     * Save a row as invalid with a processing error, for a row whose deal could not be saved
+     *
+     * @param row the parsed row of the deal
+     * @param transactionLogId the transaction log of the file, referenced by invalid deals
+     * @param errorDetail why saving the deal failed
+     * @param errorDigest counts the invalid rows of the file
+     */
+    @Transactional
+    public void saveFailedDeal(DealRow row, Long transactionLogId, String errorDetail, ImportErrorDigest errorDigest) {
+        saveInvalidDeal(row, transactionLogId, ErrorCode.PROCESSING_ERROR, errorDetail, errorDigest);
+    }
+
+    private void saveInvalidDeal(DealRow row, Long transactionLogId, ErrorCode errorCode, String errorDetail,
+                                 ImportErrorDigest errorDigest) {
+        invalidDealRepository.save(createInvalidDeal(row, transactionLogId, errorCode, errorDetail, errorDigest));
+    }
+
+    /**
+     * Process a chunk of deals: validate every row, resolve duplicates with a single
+     * set-based lookup and persist valid and invalid rows with batched inserts
+     * No rollback - all deals are saved (either as valid or invalid)
      * 
-     * @param fileName the file name to process
+     * @param rows the parsed rows of the chunk, in file order
+     * @param fileName the source file name
+     * @param transactionLogId the transaction log of the file, referenced by invalid deals
+     * @param dealWriter the writer used to persist the chunk
+     * @param errorDigest counts the invalid rows of the file
+     * @return ChunkResult with the number of valid and invalid deals saved
      */
     @Transactional
-    public void updateAccumulativeCounts(String fileName) {
-        logger.info("Updating accumulative deal counts for file: {}", fileName);
-        
-        // Count deals per currency from the file
-        Map<CurrencyCode, Long> currencyCounts = new HashMap<>();
-        
-        List<ValidDeal> deals = validDealRepository.findByFileName(fileName);
-        logger.debug("Found {} valid deals in file: {}", deals.size(), fileName);
-        
-        for (ValidDeal deal : deals) {
-            CurrencyCode currency = deal.getFromCurrency();
-            currencyCounts.put(currency, currencyCounts.getOrDefault(currency, 0L) + 1);
-        }
+    public ChunkResult processChunk(List<DealRow> rows, String fileName, Long transactionLogId, DealWriter dealWriter,
+                                    ImportErrorDigest errorDigest) {
+        logger.debug("Processing chunk of {} rows from file: {}", rows.size(), fileName);
+
+        Set<String> existingDealIds = findExistingDealIds(rows);
+        Map<String, DealRow> acceptedRows = new HashMap<>();
+        List<ValidDeal> validDeals = new ArrayList<>(rows.size());
+        List<InvalidDeal> invalidDeals = new ArrayList<>();
+
+        for (DealRow row : rows) {
+            String dealId = row.getDealId();
+
+            // Check for duplicate deal ID, both in the database and earlier in this chunk
+            if (dealId != null && (existingDealIds.contains(dealId) || acceptedRows.containsKey(dealId))) {
+                invalidDeals.add(createInvalidDeal(row, transactionLogId, ErrorCode.DUPLICATE_DEAL_ID, dealId,
+                    errorDigest));
+                continue;
+            }
 
-        // Update accumulative counts
-        for (Map.Entry<CurrencyCode, Long> entry : currencyCounts.entrySet()) {
-            CurrencyCode currency = entry.getKey();
-            Long count = entry.getValue();
-            
-            AccumulativeDealCount accumulativeCount = accumulativeDealCountRepository
-                .findByCurrencyCode(currency)
-                .orElse(new AccumulativeDealCount(currency));
-            
-            if (accumulativeCount.getId() == null) {
-                accumulativeCount.setCountOfDeals(count);
-                accumulativeDealCountRepository.save(accumulativeCount);
-                logger.info("Created new accumulative count for {}: {}", currency, count);
-            } else {
-                long previousCount = accumulativeCount.getCountOfDeals();
-                accumulativeCount.increment(count);
-                accumulativeDealCountRepository.save(accumulativeCount);
-                logger.info("Updated accumulative count for {}: {} -> {}", 
-                    currency, previousCount, accumulativeCount.getCountOfDeals());
+            // Rows validated and mapped while parsing skip straight to saving
+            ValidDeal validDeal = row.getValidDeal();
+            if (validDeal == null) {
+                DealDto dealDto = row.getDeal();
+                DealValidator.ValidationResult validationResult = row.getValidationResult() != null
+                    ? row.getValidationResult()
+                    : dealValidator.validate(dealDto);
+                if (!validationResult.isValid()) {
+                    invalidDeals.add(createInvalidDeal(row, transactionLogId, validationResult.getErrorCode(),
+                        validationResult.getErrorDetail(), errorDigest));
+                    continue;
+                }
+
+                try {
+                    validDeal = validationResult.toValidDeal(dealDto);
+                } catch (Exception e) {
+                    logger.debug("Error mapping valid deal {}", dealId, e);
+                    invalidDeals.add(createInvalidDeal(row, transactionLogId, ErrorCode.PROCESSING_ERROR,
+                        e.getMessage(), errorDigest));
+                    continue;
+                }
             }
+
+            validDeal.setFileName(fileName);
+            validDeals.add(validDeal);
+            acceptedRows.put(dealId, row);
         }
-        
-        logger.info("Completed updating accumulative counts for file: {}", fileName);
+
+        // Deals inserted concurrently by another upload are rejected by the writer and saved as duplicates
+        List<ValidDeal> conflicts = dealWriter.writeValidDeals(validDeals);
+        for (ValidDeal conflict : conflicts) {
+            DealRow row = acceptedRows.get(conflict.getDealId());
+            invalidDeals.add(createInvalidDeal(row, transactionLogId, ErrorCode.DUPLICATE_DEAL_ID,
+                conflict.getDealId(), errorDigest));
+        }
+        dealWriter.writeInvalidDeals(invalidDeals);
+        dealIdIndex.addAll(acceptedRows.keySet());
+
+        int validCount = validDeals.size() - conflicts.size();
+        CurrencyPairTotals currencyTotals = new CurrencyPairTotals();
+        for (ValidDeal validDeal : validDeals) {
+            currencyTotals.add(validDeal.getFromCurrency(), validDeal.getToCurrency(), 1, validDeal.getAmount());
+        }
+        for (ValidDeal conflict : conflicts) {
+            currencyTotals.add(conflict.getFromCurrency(), conflict.getToCurrency(), -1, conflict.getAmount().negate());
+        }
+        logger.debug("Saved chunk from file: {} - Valid: {}, Invalid: {}", 
+            fileName, validCount, invalidDeals.size());
+        return new ChunkResult(validCount, invalidDeals.size(), currencyTotals);
+    }
+
+    private Set<String> findExistingDealIds(List<DealRow> rows) {
+        Set<String> dealIds = rows.stream()
+            .map(DealRow::getDealId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        return dealIdIndex.findExisting(dealIds, dealIdRegistryRepository::findExistingDealIds);
     }
 
-    private InvalidDeal createInvalidDeal(DealDto dealDto, String fileName, String rowData, String errorMessage) {
+    /**
+     * Build the invalid deal of a row and count it in the error digest of the file
+     */
+    private InvalidDeal createInvalidDeal(DealRow row, Long transactionLogId, ErrorCode errorCode, String errorDetail,
+                                          ImportErrorDigest errorDigest) {
+        errorDigest.record(errorCode.getCategory(),
+            "Row " + row.getRowNumber() + " (deal " + row.getDealId() + "): " + errorCode.format(errorDetail));
+
+        DealDto dealDto = row.getDeal();
         InvalidDeal invalidDeal = new InvalidDeal();
-        invalidDeal.setFileName(fileName);
+        invalidDeal.setTransactionLogId(transactionLogId);
         invalidDeal.setDealId(dealDto.getDealId());
         invalidDeal.setFromCurrency(dealDto.getFromCurrency());
         invalidDeal.setToCurrency(dealDto.getToCurrency());
         invalidDeal.setDateTime(dealDto.getDateTime());
         invalidDeal.setAmount(dealDto.getAmount());
-        invalidDeal.setErrorMessage(errorMessage);
-        invalidDeal.setRowData(rowData);
+        invalidDeal.setErrorCode(errorCode);
+        invalidDeal.setErrorDetail(StringUtils.truncate(errorDetail, MAX_ERROR_DETAIL_LENGTH));
         return invalidDeal;
     }
-}
 
+    /**
+     * Result of processing a chunk of deals
+     */
+    public static class ChunkResult {
+        private final int validCount;
+        private final int invalidCount;
+        private final CurrencyPairTotals currencyTotals;
+
+        public ChunkResult(int validCount, int invalidCount, CurrencyPairTotals currencyTotals) {
+            this.validCount = validCount;
+            this.invalidCount = invalidCount;
+            this.currencyTotals = currencyTotals;
+        }
+
+        public int getValidCount() {
+            return validCount;
+        }
+
+        public int getInvalidCount() {
+            return invalidCount;
+        }
+
+        /**
+         * Valid deals saved from the chunk per from-currency
+         */
+        public CurrencyCounts getCurrencyCounts() {
+            return currencyTotals.toCurrencyCounts();
+        }
+
+        /**
+         * Number and total amount of the valid deals saved from the chunk per currency pair
+         */
+        public CurrencyPairTotals getCurrencyTotals() {
+            return currencyTotals;
+        }
+
+        public int getProcessedCount() {
+            return validCount + invalidCount;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.InvalidDeal;
+import com.example.dealsystem.domain.ValidDeal;
+
+import java.util.List;
+
+/**
+ * Strategy for writing a chunk of already validated deals to the database
+ */
+public interface DealWriter {
+
+    /**
+     * Persist valid deals
+     * 
+     * @param deals the deals to insert into valid_deal
+     * @return the deals that were not inserted because their deal ID already exists
+     */
+    List<ValidDeal> writeValidDeals(List<ValidDeal> deals);
+
+    /**
+     * Persist invalid deals
+     * 
+     * @param deals the deals to insert into invalid_deal
+     */
+    void writeInvalidDeals(List<InvalidDeal> deals);
+}
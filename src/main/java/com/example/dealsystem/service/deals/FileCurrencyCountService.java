@@ -0,0 +1,64 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.FileCurrencyCount;
+import com.example.dealsystem.repository.FileCurrencyCountRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Per-file breakdown of the valid deals by currency pair, kept in file_currency_count
+ * Ingestion sums each chunk in memory and records the totals in the transaction of the chunk, so the breakdown
+ * always matches the committed deals of the file and is read with one row per currency pair
+ */
+@Service
+public class FileCurrencyCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileCurrencyCountService.class);
+
+    private final FileCurrencyCountRepository fileCurrencyCountRepository;
+
+    public FileCurrencyCountService(FileCurrencyCountRepository fileCurrencyCountRepository) {
+        this.fileCurrencyCountRepository = fileCurrencyCountRepository;
+    }
+
+    /**
+     * Add the totals of a chunk to the breakdown of its file, as part of the chunk's transaction
+     * A file is ingested by one worker at a time, so a row is only inserted the first time a pair is seen
+     *
+     * @param fileName the file name the deals were read from
+     * @param totals the number and total amount of valid deals per currency pair saved from the chunk
+     */
+    @Transactional
+    public void record(String fileName, CurrencyPairTotals totals) {
+        int[] pairs = new int[1];
+        totals.forEach((fromCurrency, toCurrency, count, amount) -> {
+            if (fileCurrencyCountRepository.increment(fileName, fromCurrency, toCurrency, count, amount) == 0) {
+                fileCurrencyCountRepository.save(new FileCurrencyCount(fileName, fromCurrency, toCurrency, count, amount));
+            }
+            pairs[0]++;
+        });
+        if (pairs[0] > 0) {
+            logger.debug("Recorded totals of {} currency pairs for file: {}", pairs[0], fileName);
+        }
+    }
+
+    /**
+     * Breakdown of the valid deals of a file, ordered by from- and to-currency
+     */
+    @Transactional(readOnly = true)
+    public List<FileCurrencyCount> findByFileName(String fileName) {
+        return fileCurrencyCountRepository.findByFileName(fileName);
+    }
+
+    /**
+     * Remove the breakdown of a file, when its import is rolled back
+     */
+    @Transactional
+    public int deleteByFileName(String fileName) {
+        return fileCurrencyCountRepository.deleteByFileName(fileName);
+    }
+}
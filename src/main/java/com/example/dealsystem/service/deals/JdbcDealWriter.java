@@ -0,0 +1,118 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.AbstractDomain;
+import com.example.dealsystem.domain.InvalidDeal;
+import com.example.dealsystem.domain.ValidDeal;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DealWriter inserting with JdbcTemplate batch updates on the connection of the current transaction
+ * The deals never enter the persistence context: no snapshots for dirty checking, no first-level cache and
+ * no entity callbacks. Ids come from the id generators of the entities, so both writers share the same
+ * sequence blocks, and exactly the columns mapped by the entities are written. Each table is written with one
+ * prepared statement executed in batches, which the PostgreSQL driver keeps server-side prepared across chunks.
+ * The deal IDs of valid deals are registered in deal_id_registry first, in the same transaction.
+ * Duplicate deal IDs must be resolved by the caller before writing
+ */
+@Component
+public class JdbcDealWriter implements DealWriter {
+
+    private static final String INSERT_REGISTRY_SQL =
+        "INSERT INTO deal_id_registry (deal_id, date_time) VALUES (?, ?)";
+
+    private static final String INSERT_VALID_SQL =
+        "INSERT INTO valid_deal (id, created_at, file_name, deal_id, from_currency, to_currency, date_time, amount) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_INVALID_SQL =
+        "INSERT INTO invalid_deal (id, created_at, transaction_log_id, deal_id, from_currency, to_currency, date_time, "
+            + "amount, error_code, error_detail) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final BeforeExecutionGenerator validDealIdGenerator;
+    private final BeforeExecutionGenerator invalidDealIdGenerator;
+    private final int batchSize;
+
+    public JdbcDealWriter(JdbcTemplate jdbcTemplate,
+                          EntityManager entityManager,
+                          EntityManagerFactory entityManagerFactory,
+                          @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.validDealIdGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+            .getEntityDescriptor(ValidDeal.class).getGenerator();
+        this.invalidDealIdGenerator = (BeforeExecutionGenerator) sessionFactory.getMappingMetamodel()
+            .getEntityDescriptor(InvalidDeal.class).getGenerator();
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<ValidDeal> writeValidDeals(List<ValidDeal> deals) {
+        if (deals.isEmpty()) {
+            return List.of();
+        }
+        assignIds(deals, validDealIdGenerator);
+        jdbcTemplate.batchUpdate(INSERT_REGISTRY_SQL, deals, batchSize, (ps, deal) -> {
+            ps.setString(1, deal.getDealId());
+            ps.setTimestamp(2, Timestamp.valueOf(deal.getDateTime()));
+        });
+        jdbcTemplate.batchUpdate(INSERT_VALID_SQL, deals, batchSize, (ps, deal) -> {
+            ps.setLong(1, deal.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(deal.getCreatedAt()));
+            ps.setString(3, deal.getFileName());
+            ps.setString(4, deal.getDealId());
+            ps.setString(5, deal.getFromCurrency().name());
+            ps.setString(6, deal.getToCurrency().name());
+            ps.setTimestamp(7, Timestamp.valueOf(deal.getDateTime()));
+            ps.setBigDecimal(8, deal.getAmount());
+        });
+        return List.of();
+    }
+
+    @Override
+    public void writeInvalidDeals(List<InvalidDeal> deals) {
+        if (deals.isEmpty()) {
+            return;
+        }
+        assignIds(deals, invalidDealIdGenerator);
+        jdbcTemplate.batchUpdate(INSERT_INVALID_SQL, deals, batchSize, (ps, deal) -> {
+            ps.setLong(1, deal.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(deal.getCreatedAt()));
+            ps.setObject(3, deal.getTransactionLogId(), Types.BIGINT);
+            ps.setString(4, deal.getDealId());
+            ps.setString(5, deal.getFromCurrency());
+            ps.setString(6, deal.getToCurrency());
+            ps.setString(7, deal.getDateTime());
+            ps.setString(8, deal.getAmount());
+            ps.setShort(9, deal.getErrorCode().getCode());
+            ps.setString(10, deal.getErrorDetail());
+        });
+    }
+
+    /**
+     * Set the id and creation time the persistence context would set on persist
+     */
+    private void assignIds(List<? extends AbstractDomain> deals, BeforeExecutionGenerator idGenerator) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        LocalDateTime createdAt = LocalDateTime.now();
+        for (AbstractDomain deal : deals) {
+            deal.setId((Long) idGenerator.generate(session, deal, null, EventType.INSERT));
+            deal.setCreatedAt(createdAt);
+        }
+    }
+}
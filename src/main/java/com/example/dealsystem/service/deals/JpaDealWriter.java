@@ -0,0 +1,43 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.DealIdRegistration;
+import com.example.dealsystem.domain.InvalidDeal;
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
+import com.example.dealsystem.repository.InvalidDealRepository;
+import com.example.dealsystem.repository.ValidDealRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default DealWriter using the JPA repositories
+ * Duplicate deal IDs must be resolved by the caller before writing
+ */
+@Component
+public class JpaDealWriter implements DealWriter {
+
+    private final ValidDealRepository validDealRepository;
+    private final InvalidDealRepository invalidDealRepository;
+    private final DealIdRegistryRepository dealIdRegistryRepository;
+
+    public JpaDealWriter(ValidDealRepository validDealRepository,
+                         InvalidDealRepository invalidDealRepository,
+                         DealIdRegistryRepository dealIdRegistryRepository) {
+        this.validDealRepository = validDealRepository;
+        this.invalidDealRepository = invalidDealRepository;
+        this.dealIdRegistryRepository = dealIdRegistryRepository;
+    }
+
+    @Override
+    public List<ValidDeal> writeValidDeals(List<ValidDeal> deals) {
+        dealIdRegistryRepository.saveAll(deals.stream().map(DealIdRegistration::new).toList());
+        validDealRepository.saveAll(deals);
+        return List.of();
+    }
+
+    @Override
+    public void writeInvalidDeals(List<InvalidDeal> deals) {
+        invalidDealRepository.saveAll(deals);
+    }
+}
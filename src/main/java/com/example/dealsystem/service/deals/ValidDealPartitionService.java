@@ -0,0 +1,68 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.config.IngestionProperties;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Creation of the monthly partitions of valid_deal ahead of the deals that go into them
+ * Deals of a month without a partition are stored in the default partition, the next run creates the partition
+ * of their month and moves them into it. Only PostgreSQL tables are partitioned, on other databases
+ * (e.g. H2 in the test profile) nothing is done
+ */
+@Service
+public class ValidDealPartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidDealPartitionService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IngestionProperties ingestionProperties;
+
+    private volatile Boolean partitioned;
+
+    public ValidDealPartitionService(JdbcTemplate jdbcTemplate, IngestionProperties ingestionProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ingestionProperties = ingestionProperties;
+    }
+
+    /**
+     * Create the missing partitions of the current and the next months and of the months in the default partition
+     *
+     * @return the number of partitions created
+     */
+    @Scheduled(fixedDelayString = "${deal.ingestion.partitions.interval:12h}")
+    public int createPartitions() {
+        if (!isPartitioned()) {
+            return 0;
+        }
+        int monthsAhead = ingestionProperties.getPartitions().getMonthsAhead();
+        try {
+            Integer created = jdbcTemplate.queryForObject("SELECT create_valid_deal_partitions(?)",
+                Integer.class, monthsAhead);
+            if (created != null && created > 0) {
+                logger.info("Created {} valid_deal partitions", created);
+            }
+            return created != null ? created : 0;
+        } catch (DataAccessException e) {
+            // Deals keep going to the default partition, the next run tries again
+            logger.error("Failed to create valid_deal partitions: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    private boolean isPartitioned() {
+        Boolean supported = partitioned;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.isWrapperFor(PGConnection.class));
+            partitioned = supported;
+        }
+        return Boolean.TRUE.equals(supported);
+    }
+}
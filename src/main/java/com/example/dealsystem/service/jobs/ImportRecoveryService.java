@@ -0,0 +1,98 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Recovery of imports left QUEUED or PROCESSING by a node that stopped
+ * Imports whose lease has expired are taken over one by one, an import whose spooled file is still readable is
+ * resumed after its checkpoint, any other import is rolled back so its file can be uploaded again. Each file is
+ * recovered as a job on the upload worker pool, so files are recovered in parallel next to new uploads
+ */
+@Service
+public class ImportRecoveryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportRecoveryService.class);
+
+    private final TransactionLogService transactionLogService;
+    private final UploadJobService uploadJobService;
+    private final ImportHeartbeat importHeartbeat;
+    private final IngestionProperties ingestionProperties;
+    private final TaskExecutor uploadJobExecutor;
+
+    public ImportRecoveryService(TransactionLogService transactionLogService,
+                                 UploadJobService uploadJobService,
+                                 ImportHeartbeat importHeartbeat,
+                                 IngestionProperties ingestionProperties,
+                                 @Qualifier("uploadJobExecutor") TaskExecutor uploadJobExecutor) {
+        this.transactionLogService = transactionLogService;
+        this.uploadJobService = uploadJobService;
+        this.importHeartbeat = importHeartbeat;
+        this.ingestionProperties = ingestionProperties;
+        this.uploadJobExecutor = uploadJobExecutor;
+    }
+
+    /**
+     * Take over the imports whose lease has expired and queue their recovery
+     * Runs on the scheduler as soon as the application has started and then periodically, so startup and
+     * readiness never wait for it
+     */
+    @Scheduled(fixedDelayString = "${deal.ingestion.recovery.interval:1m}")
+    public void recoverExpiredImports() {
+        Duration leaseTimeout = ingestionProperties.getRecovery().getLeaseTimeout();
+        for (TransactionLog transactionLog : transactionLogService.findExpired(leaseTimeout)) {
+            Long id = transactionLog.getId();
+            if (!transactionLogService.claimExpired(id, leaseTimeout)) {
+                logger.debug("Import {} was taken over by another node", id);
+                continue;
+            }
+            importHeartbeat.register(id);
+            try {
+                uploadJobExecutor.execute(() -> recover(transactionLog));
+                logger.info("Queued recovery of {} import {} for file: {}",
+                    transactionLog.getStatus(), id, transactionLog.getFileName());
+            } catch (TaskRejectedException e) {
+                // The lease expires again and the import is recovered by a later run
+                importHeartbeat.release(id);
+                logger.warn("Upload queue is full, recovery of import {} is retried later", id);
+                return;
+            }
+        }
+    }
+
+    void recover(TransactionLog transactionLog) {
+        Long id = transactionLog.getId();
+        try {
+            if (isResumable(transactionLog)) {
+                logger.info("Resuming import {} of file: {} after row {}",
+                    id, transactionLog.getFileName(), transactionLog.getCheckpointRow());
+                uploadJobService.resumeJob(transactionLog);
+            } else {
+                logger.warn("Spooled file of import {} is not available, rolling back file: {}",
+                    id, transactionLog.getFileName());
+                transactionLogService.rollbackImport(transactionLog);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to recover import {} of file {}: {}", id, transactionLog.getFileName(), e.getMessage(), e);
+        } finally {
+            importHeartbeat.release(id);
+        }
+    }
+
+    private static boolean isResumable(TransactionLog transactionLog) {
+        return transactionLog.getSpoolFile() != null && Files.isReadable(Path.of(transactionLog.getSpoolFile()));
+    }
+}
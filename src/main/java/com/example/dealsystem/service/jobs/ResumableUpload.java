@@ -0,0 +1,239 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.exception.UploadIncompleteException;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A file uploaded in numbered chunks of a fixed size, in any order and possibly more than once
+ * Each chunk is written at its own position of the spooled file, so chunks can arrive concurrently. The prefix of
+ * the file up to the first missing chunk can be read while later chunks are still arriving
+ */
+public class ResumableUpload {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private final Long jobId;
+    @Getter
+    private final String fileName;
+    @Getter
+    private final Path spoolFile;
+    @Getter
+    private final long size;
+    @Getter
+    private final int chunkSize;
+    @Getter
+    private final int chunkCount;
+    private final FileChannel channel;
+    private final BitSet receivedChunks;
+    // Bytes from the start of the file up to the first missing chunk
+    private long receivedPrefix;
+    private boolean completed;
+    private boolean closed;
+    private long lastChunkNanos;
+
+    /**
+     * Create the spooled file of a new upload
+     *
+     * @throws IOException if the spooled file cannot be created
+     */
+    public ResumableUpload(Long jobId, String fileName, Path spoolFile, long size, int chunkSize)
+            throws IOException {
+        this.jobId = jobId;
+        this.fileName = fileName;
+        this.spoolFile = spoolFile;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+        this.receivedChunks = new BitSet(chunkCount);
+        this.lastChunkNanos = System.nanoTime();
+        this.channel = FileChannel.open(spoolFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Write a chunk at its position in the spooled file
+     * A chunk that was already received is not written again, its content has possibly been imported already
+     *
+     * @param index the number of the chunk, starting at 0
+     * @param body the content of the chunk
+     * @return whether the chunk was written, false if it had been received before
+     * @throws IllegalArgumentException if the index is out of range or the chunk does not have the expected size
+     * @throws IOException if the chunk cannot be read or written
+     */
+    public boolean writeChunk(int index, InputStream body) throws IOException {
+        if (index < 0 || index >= chunkCount) {
+            throw new IllegalArgumentException("Chunk " + index + " is out of range, the upload has " + chunkCount + " chunks");
+        }
+        if (isReceived(index)) {
+            return false;
+        }
+
+        long offset = (long) index * chunkSize;
+        long end = Math.min(offset + chunkSize, size);
+        ReadableByteChannel source = Channels.newChannel(body);
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        long position = offset;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            if (source.read(buffer) < 0) {
+                throw new IllegalArgumentException("Chunk " + index + " has " + (position - offset)
+                    + " bytes, expected " + (end - offset));
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        if (body.read() >= 0) {
+            throw new IllegalArgumentException("Chunk " + index + " is larger than " + (end - offset) + " bytes");
+        }
+
+        markReceived(index);
+        return true;
+    }
+
+    private synchronized boolean isReceived(int index) {
+        return receivedChunks.get(index);
+    }
+
+    private synchronized void markReceived(int index) {
+        receivedChunks.set(index);
+        receivedPrefix = Math.min((long) receivedChunks.nextClearBit(0) * chunkSize, size);
+        lastChunkNanos = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * Numbers of the chunks received so far, in ascending order
+     */
+    public synchronized List<Integer> getReceivedChunkNumbers() {
+        List<Integer> numbers = new ArrayList<>(receivedChunks.cardinality());
+        receivedChunks.stream().forEach(numbers::add);
+        return numbers;
+    }
+
+    /**
+     * Number of bytes received so far, in all chunks
+     */
+    public synchronized long getBytesReceived() {
+        long bytes = (long) receivedChunks.cardinality() * chunkSize;
+        if (receivedChunks.get(chunkCount - 1)) {
+            bytes -= (long) chunkCount * chunkSize - size;
+        }
+        return bytes;
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Mark the upload as complete, its content ends with the last chunk
+     *
+     * @throws UploadIncompleteException if chunks are missing
+     */
+    public synchronized void complete() {
+        if (receivedPrefix < size) {
+            int missing = chunkCount - receivedChunks.cardinality();
+            throw new UploadIncompleteException("Upload " + jobId + " is missing " + missing + " of " + chunkCount
+                + " chunks, the first missing chunk is " + receivedChunks.nextClearBit(0));
+        }
+        completed = true;
+        notifyAll();
+    }
+
+    /**
+     * Close the spooled file, readers waiting for content fail
+     */
+    public synchronized void close() throws IOException {
+        closed = true;
+        notifyAll();
+        channel.close();
+    }
+
+    /**
+     * Open the content of the file for a single reader
+     * Reads block until the next bytes have arrived, the content ends once the upload is complete
+     *
+     * @param idleTimeout time without a new chunk after which reads fail
+     */
+    public InputStream openContent(Duration idleTimeout) {
+        return new ReceivedContent(idleTimeout);
+    }
+
+    /**
+     * Wait until bytes after a position have arrived
+     *
+     * @return the number of bytes available at the position, or -1 at the end of a complete upload
+     * @throws IOException if the upload was closed or no chunk arrived for the idle timeout
+     */
+    private synchronized long awaitContent(long position, Duration idleTimeout) throws IOException {
+        while (receivedPrefix <= position) {
+            if (completed) {
+                return -1;
+            }
+            if (closed) {
+                throw new IOException("Upload " + jobId + " was closed");
+            }
+            long idleMillis = idleTimeout.toMillis() - Duration.ofNanos(System.nanoTime() - lastChunkNanos).toMillis();
+            if (idleMillis <= 0) {
+                throw new IOException("Upload " + jobId + " was abandoned, no chunk arrived for " + idleTimeout);
+            }
+            try {
+                wait(idleMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upload " + jobId);
+            }
+        }
+        return receivedPrefix - position;
+    }
+
+    /**
+     * The received prefix of the spooled file, read with positional reads next to the chunk writes
+     */
+    private class ReceivedContent extends InputStream {
+
+        private final Duration idleTimeout;
+        private long position;
+
+        private ReceivedContent(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            long available = awaitContent(position, idleTimeout);
+            if (available < 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, available)), position);
+            position += read;
+            return read;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.ResumableUploadDto;
+import com.example.dealsystem.exception.DuplicateFileException;
+import com.example.dealsystem.exception.FileProcessingException;
+import com.example.dealsystem.exception.UploadIncompleteException;
+import com.example.dealsystem.exception.UploadJobNotFoundException;
+import com.example.dealsystem.exception.UploadRejectedException;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for uploads sent in chunks, which survive dropped connections and are not bound by the multipart limit
+ * The import of an upload is queued when the upload is initiated and reads the file while its chunks arrive, so
+ * the import overlaps the transfer. An upload is kept on the node it was initiated on until its import has ended
+ * Imports of resumable uploads run on their own workers and outside the admission limit, so uploads waiting for
+ * chunks do not hold up background upload jobs and recoveries
+ */
+@Service
+public class ResumableUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+
+    private final UploadJobService uploadJobService;
+    private final FileUploadService fileUploadService;
+    private final TransactionLogService transactionLogService;
+    private final IngestionProperties ingestionProperties;
+    private final TaskExecutor resumableUploadExecutor;
+    private final Map<Long, ResumableUpload> uploads = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(UploadJobService uploadJobService,
+                                  FileUploadService fileUploadService,
+                                  TransactionLogService transactionLogService,
+                                  IngestionProperties ingestionProperties,
+                                  @Qualifier("resumableUploadExecutor") TaskExecutor resumableUploadExecutor) {
+        this.uploadJobService = uploadJobService;
+        this.fileUploadService = fileUploadService;
+        this.transactionLogService = transactionLogService;
+        this.ingestionProperties = ingestionProperties;
+        this.resumableUploadExecutor = resumableUploadExecutor;
+    }
+
+    /**
+     * Start a resumable upload and queue its import
+     *
+     * @param fileName the name of the file
+     * @param size the size of the file in bytes
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @return the upload, its job ID is also the ID of the upload
+     * @throws DuplicateFileException if the file was already imported
+     * @throws UploadRejectedException if the upload queue is full
+     */
+    public ResumableUploadDto initiate(String fileName, long size, boolean bulkLoad) {
+        IngestionProperties.Resumable resumable = ingestionProperties.getResumable();
+        if (size > resumable.getMaxFileSize().toBytes()) {
+            throw new IllegalArgumentException("File is larger than " + resumable.getMaxFileSize() + ": " + fileName);
+        }
+
+        TransactionLog transactionLog = uploadJobService.createJob(fileName, size);
+        Long jobId = transactionLog.getId();
+        ResumableUpload upload = createUpload(transactionLog, size);
+        uploads.put(jobId, upload);
+        // Only a complete file is recorded as spooled file, an import interrupted before is rolled back on recovery
+        uploadJobService.queue(transactionLog, resumableUploadExecutor,
+            started -> fileUploadService.uploadArrivingFile(upload.openContent(resumable.getIdleTimeout()), started, bulkLoad),
+            () -> closeUpload(upload));
+
+        logger.info("Initiated resumable upload {} for file: {} ({} bytes in {} chunks)",
+            jobId, fileName, size, upload.getChunkCount());
+        return toDto(upload);
+    }
+
+    /**
+     * Write a chunk of an upload, a chunk received before is acknowledged without writing it again
+     *
+     * @throws UploadJobNotFoundException if there is no upload in progress with this job ID
+     * @throws IllegalArgumentException if the chunk is out of range or does not have the chunk size
+     */
+    public void writeChunk(Long jobId, int index, InputStream body) {
+        ResumableUpload upload = getUpload(jobId);
+        try {
+            if (upload.writeChunk(index, body)) {
+                logger.debug("Received chunk {} of upload {}", index, jobId);
+            } else {
+                logger.debug("Chunk {} of upload {} was received before", index, jobId);
+            }
+        } catch (IOException e) {
+            // A dropped connection, the client sends the chunk again
+            logger.warn("Failed to receive chunk {} of upload {}: {}", index, jobId, e.getMessage());
+            throw new FileProcessingException("Failed to receive chunk " + index + " of upload " + jobId, e);
+        }
+    }
+
+    /**
+     * Get the chunks received of an upload in progress
+     *
+     * @throws UploadJobNotFoundException if there is no upload in progress with this job ID
+     */
+    public ResumableUploadDto getStatus(Long jobId) {
+        return toDto(getUpload(jobId));
+    }
+
+    /**
+     * Complete an upload once all of its chunks have been received, its import then runs to the end of the file
+     *
+     * @throws UploadJobNotFoundException if there is no upload in progress with this job ID
+     * @throws UploadIncompleteException if chunks are missing
+     */
+    public void complete(Long jobId) {
+        ResumableUpload upload = getUpload(jobId);
+        upload.complete();
+        // From now on the import of the file can be resumed from the spooled file
+        transactionLogService.recordSpoolFile(jobId, upload.getSpoolFile());
+        logger.info("Completed resumable upload {} for file: {}", jobId, upload.getFileName());
+    }
+
+    private ResumableUpload getUpload(Long jobId) {
+        ResumableUpload upload = uploads.get(jobId);
+        if (upload == null) {
+            throw new UploadJobNotFoundException("Resumable upload not found: " + jobId);
+        }
+        return upload;
+    }
+
+    private ResumableUpload createUpload(TransactionLog transactionLog, long size) {
+        try {
+            Path spoolDirectory = ingestionProperties.getAsync().getSpoolDirectory();
+            Files.createDirectories(spoolDirectory);
+            Path spoolFile = spoolDirectory.resolve("upload-" + transactionLog.getId() + ".csv");
+            int chunkSize = (int) ingestionProperties.getResumable().getChunkSize().toBytes();
+            return new ResumableUpload(transactionLog.getId(), transactionLog.getFileName(), spoolFile, size, chunkSize);
+        } catch (IOException e) {
+            logger.error("Failed to create spooled file for {}: {}", transactionLog.getFileName(), e.getMessage(), e);
+            transactionLogService.delete(transactionLog);
+            throw new FileProcessingException("Failed to create spooled file: " + transactionLog.getFileName(), e);
+        }
+    }
+
+    private void closeUpload(ResumableUpload upload) {
+        uploads.remove(upload.getJobId());
+        try {
+            upload.close();
+            Files.deleteIfExists(upload.getSpoolFile());
+        } catch (IOException e) {
+            logger.warn("Failed to delete spooled file {}: {}", upload.getSpoolFile(), e.getMessage());
+        }
+    }
+
+    private static ResumableUploadDto toDto(ResumableUpload upload) {
+        ResumableUploadDto dto = new ResumableUploadDto();
+        dto.setJobId(upload.getJobId());
+        dto.setFileName(upload.getFileName());
+        dto.setSize(upload.getSize());
+        dto.setChunkSize(upload.getChunkSize());
+        dto.setChunkCount(upload.getChunkCount());
+        dto.setReceivedChunks(upload.getReceivedChunkNumbers());
+        dto.setBytesReceived(upload.getBytesReceived());
+        dto.setCompleted(upload.isCompleted());
+        return dto;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.UploadJobStatusDto;
+import com.example.dealsystem.exception.DuplicateContentException;
+import com.example.dealsystem.exception.DuplicateFileException;
+import com.example.dealsystem.exception.FileProcessingException;
+import com.example.dealsystem.exception.UploadJobNotFoundException;
+import com.example.dealsystem.exception.UploadRejectedException;
+import com.example.dealsystem.service.admission.IngestionAdmission;
+import com.example.dealsystem.service.csv.ContentHash;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+/**
+ * Service for accepting uploads as background jobs
+ * An upload is spooled to disk and queued on the upload worker pool, the transaction log ID is the job ID.
+ * The lease of a job is kept from submission until its import has ended, see {@link ImportRecoveryService}
+ */
+@Service
+public class UploadJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadJobService.class);
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final TransactionLogService transactionLogService;
+    private final FileUploadService fileUploadService;
+    private final IngestionProperties ingestionProperties;
+    private final ImportHeartbeat importHeartbeat;
+    private final IngestionAdmission ingestionAdmission;
+    private final TaskExecutor uploadJobExecutor;
+
+    public UploadJobService(TransactionLogService transactionLogService,
+                            FileUploadService fileUploadService,
+                            IngestionProperties ingestionProperties,
+                            ImportHeartbeat importHeartbeat,
+                            IngestionAdmission ingestionAdmission,
+                            @Qualifier("uploadJobExecutor") TaskExecutor uploadJobExecutor) {
+        this.transactionLogService = transactionLogService;
+        this.fileUploadService = fileUploadService;
+        this.ingestionProperties = ingestionProperties;
+        this.importHeartbeat = importHeartbeat;
+        this.ingestionAdmission = ingestionAdmission;
+        this.uploadJobExecutor = uploadJobExecutor;
+    }
+
+    /**
+     * Spool an uploaded CSV file and queue it for processing
+     *
+     * @param file the CSV file to process
+     * @param bulkLoad whether to bulk load with PostgreSQL COPY regardless of the file size
+     * @return the queued transaction log, its ID is the job ID
+     * @throws DuplicateFileException if the file was already imported, also under another name
+     * @throws UploadRejectedException if the upload queue is full
+     */
+    public TransactionLog submit(MultipartFile file, boolean bulkLoad) {
+        TransactionLog transactionLog = createJob(file.getOriginalFilename(), file.getSize());
+        Path spoolFile = spool(file, transactionLog);
+        queue(transactionLog, uploadJobExecutor,
+            started -> fileUploadService.uploadSpooledFile(spoolFile, started, bulkLoad),
+            () -> deleteSpoolFile(spoolFile));
+
+        logger.info("Queued upload job {} for file: {} ({} bytes)", transactionLog.getId(), file.getOriginalFilename(),
+            file.getSize());
+        return transactionLog;
+    }
+
+    /**
+     * Record a new upload job as QUEUED
+     *
+     * @param fileName the name of the uploaded file
+     * @param size the size of the uploaded file in bytes
+     * @return the saved transaction log, its ID is the job ID
+     * @throws DuplicateFileException if the file was already imported
+     */
+    TransactionLog createJob(String fileName, long size) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("File is empty: " + fileName);
+        }
+        if (transactionLogService.isFileAlreadyImported(fileName)) {
+            logger.warn("Attempted to import duplicate file: {}", fileName);
+            throw new DuplicateFileException("File '" + fileName + "' has already been imported.");
+        }
+
+        TransactionLog transactionLog = new TransactionLog(fileName);
+        transactionLog.setStatus(TransactionLog.TransactionStatus.QUEUED);
+        transactionLog.setBytesTotal(size);
+        return transactionLogService.save(transactionLog);
+    }
+
+    /**
+     * Queue the import of a job on a worker pool, the lease of the job is kept from now until the import has ended
+     *
+     * @param transactionLog the QUEUED transaction log of the job
+     * @param executor the worker pool of the job
+     * @param importer imports the file once the worker has started the transaction log
+     * @param cleanup releases the file of the job once its import has ended or was rejected
+     * @throws UploadRejectedException if the upload queue is full, the transaction log is deleted then
+     */
+    void queue(TransactionLog transactionLog, TaskExecutor executor, Consumer<TransactionLog> importer,
+               Runnable cleanup) {
+        Long jobId = transactionLog.getId();
+        importHeartbeat.register(jobId);
+        try {
+            executor.execute(() -> runJob(jobId, importer, cleanup));
+        } catch (TaskRejectedException e) {
+            logger.warn("Upload queue is full, rejecting file: {}", transactionLog.getFileName());
+            importHeartbeat.release(jobId);
+            cleanup.run();
+            transactionLogService.delete(transactionLog);
+            throw new UploadRejectedException("Upload queue is full, please retry later", e);
+        }
+    }
+
+    /**
+     * Get the progress of an upload job
+     *
+     * @throws UploadJobNotFoundException if there is no upload with this job ID
+     */
+    public UploadJobStatusDto getStatus(Long jobId) {
+        TransactionLog transactionLog = transactionLogService.findById(jobId);
+        if (transactionLog == null) {
+            throw new UploadJobNotFoundException("Upload job not found: " + jobId);
+        }
+        UploadJobStatusDto status = toStatus(transactionLog, LocalDateTime.now());
+        // A started job waiting to be admitted has not read anything yet
+        ingestionAdmission.getQueuePosition(jobId).ifPresent(position -> {
+            status.setStatus(TransactionLog.TransactionStatus.QUEUED.name());
+            status.setQueuePosition(position);
+            status.setPercentComplete(0);
+            status.setEtaSeconds(null);
+        });
+        return status;
+    }
+
+    /**
+     * Build the job status, the ETA extrapolates the byte throughput seen so far
+     */
+    UploadJobStatusDto toStatus(TransactionLog transactionLog, LocalDateTime now) {
+        UploadJobStatusDto status = new UploadJobStatusDto();
+        status.setJobId(transactionLog.getId());
+        status.setFileName(transactionLog.getFileName());
+        status.setStatus(transactionLog.getStatus().name());
+        status.setRowsProcessed(orZero(transactionLog.getRowsProcessed()));
+        status.setValidCount(orZero(transactionLog.getValidCount()));
+        status.setInvalidCount(orZero(transactionLog.getInvalidCount()));
+        status.setBytesTotal(transactionLog.getBytesTotal());
+        status.setBytesProcessed(orZero(transactionLog.getBytesProcessed()));
+        status.setErrorMessage(transactionLog.getErrorMessage());
+        if (transactionLog.getStartedAt() != null) {
+            status.setStartedAt(transactionLog.getStartedAt().format(DATE_TIME_FORMATTER));
+        }
+        if (transactionLog.getCompletedAt() != null) {
+            status.setCompletedAt(transactionLog.getCompletedAt().format(DATE_TIME_FORMATTER));
+        }
+
+        long bytesTotal = orZero(transactionLog.getBytesTotal());
+        long bytesProcessed = orZero(transactionLog.getBytesProcessed());
+        switch (transactionLog.getStatus()) {
+            case COMPLETED -> {
+                status.setPercentComplete(100);
+                status.setEtaSeconds(0L);
+            }
+            case QUEUED -> status.setPercentComplete(0);
+            case PROCESSING -> {
+                if (bytesTotal > 0) {
+                    status.setPercentComplete((int) Math.min(99, bytesProcessed * 100 / bytesTotal));
+                }
+                if (bytesTotal > 0 && bytesProcessed > 0 && transactionLog.getStartedAt() != null) {
+                    long elapsedMs = Duration.between(transactionLog.getStartedAt(), now).toMillis();
+                    long remainingBytes = Math.max(0, bytesTotal - bytesProcessed);
+                    status.setEtaSeconds((long) Math.ceil(remainingBytes * (double) elapsedMs / bytesProcessed / 1000));
+                }
+            }
+            case FAILED -> {
+                // no progress to report
+            }
+        }
+        return status;
+    }
+
+    private void runJob(Long jobId, Consumer<TransactionLog> importer, Runnable cleanup) {
+        MDC.put("logId", jobId.toString());
+        try {
+            importer.accept(transactionLogService.startTransaction(jobId));
+            logger.info("Upload job {} completed", jobId);
+        } catch (Exception e) {
+            logger.error("Upload job {} failed: {}", jobId, e.getMessage(), e);
+            failJob(jobId, e);
+        } finally {
+            cleanup.run();
+            importHeartbeat.release(jobId);
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Resume an interrupted job from its spooled file, after the last checkpoint of its import
+     */
+    void resumeJob(TransactionLog transactionLog) {
+        Long jobId = transactionLog.getId();
+        Path spoolFile = Path.of(transactionLog.getSpoolFile());
+        MDC.put("logId", jobId.toString());
+        try {
+            if (transactionLog.getStatus() == TransactionLog.TransactionStatus.QUEUED) {
+                transactionLog = transactionLogService.startTransaction(jobId);
+            }
+            fileUploadService.resumeSpooledFile(transactionLog);
+            logger.info("Resumed upload job {} completed", jobId);
+        } catch (Exception e) {
+            logger.error("Resumed upload job {} failed: {}", jobId, e.getMessage(), e);
+            failJob(jobId, e);
+        } finally {
+            deleteSpoolFile(spoolFile);
+            MDC.clear();
+        }
+    }
+
+    /**
+     * Make sure a failed job is recorded as failed, also when it failed before the import could record it
+     */
+    private void failJob(Long jobId, Exception e) {
+        try {
+            TransactionLog transactionLog = transactionLogService.findById(jobId);
+            if (transactionLog != null && transactionLog.getStatus() != TransactionLog.TransactionStatus.FAILED) {
+                transactionLogService.failTransaction(transactionLog.getFileName(), e.getMessage());
+            }
+        } catch (Exception failure) {
+            logger.error("Failed to mark upload job {} as failed: {}", jobId, failure.getMessage(), failure);
+        }
+    }
+
+    private Path spool(MultipartFile file, TransactionLog transactionLog) {
+        try {
+            Path spoolDirectory = ingestionProperties.getAsync().getSpoolDirectory();
+            Files.createDirectories(spoolDirectory);
+            Path spoolFile = spoolDirectory.resolve("upload-" + transactionLog.getId() + ".csv");
+            // Moves the container's temporary file where possible instead of copying it
+            file.transferTo(spoolFile.toAbsolutePath().toFile());
+            recordContentHash(spoolFile, transactionLog);
+            transactionLogService.recordSpoolFile(transactionLog.getId(), spoolFile);
+            logger.debug("Spooled file {} to {}", transactionLog.getFileName(), spoolFile);
+            return spoolFile;
+        } catch (IOException e) {
+            logger.error("Failed to spool file {}: {}", transactionLog.getFileName(), e.getMessage(), e);
+            transactionLogService.delete(transactionLog);
+            throw new FileProcessingException("Failed to spool file: " + transactionLog.getFileName(), e);
+        }
+    }
+
+    /**
+     * Hash the spooled upload, an upload with the content of an imported file is not queued
+     */
+    private void recordContentHash(Path spoolFile, TransactionLog transactionLog) throws IOException {
+        try {
+            transactionLogService.recordContentHash(transactionLog, ContentHash.sha256(spoolFile));
+        } catch (DuplicateContentException e) {
+            deleteSpoolFile(spoolFile);
+            transactionLogService.delete(transactionLog);
+            throw e;
+        }
+    }
+
+    private void deleteSpoolFile(Path spoolFile) {
+        try {
+            Files.deleteIfExists(spoolFile);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spooled file {}: {}", spoolFile, e.getMessage());
+        }
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.dealsystem.service.json;
+
+import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.dto.DealRow;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Reads deals from a stream of JSON objects with the field names of {@link DealDto}, one object at a time
+ * Accepts newline-delimited JSON as well as a single JSON array of objects. Field values are kept as text and
+ * validated later like the fields of a CSV row, unknown fields are ignored
+ */
+@Component
+public class DealJsonReader {
+
+    private final JsonFactory jsonFactory;
+
+    public DealJsonReader(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Read all deals of a stream, the stream is not buffered beyond the parser's input buffer
+     * Deals are numbered from 1 in the order of the stream, a value that is not an object is reported as error
+     *
+     * @param content the JSON content
+     * @param rows receives every deal
+     * @param errors receives a message for every value that is not a deal
+     * @throws IOException if the stream cannot be read or is not well-formed JSON
+     */
+    public void read(InputStream content, Consumer<DealRow> rows, Consumer<String> errors) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            int rowNumber = 0;
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                rowNumber++;
+                if (token == JsonToken.START_OBJECT) {
+                    DealDto deal = readDeal(parser);
+                    DealRow row = new DealRow(rowNumber, deal);
+                    row.setEndOffset(parser.currentLocation().getByteOffset());
+                    rows.accept(row);
+                } else {
+                    parser.skipChildren();
+                    errors.accept("Row " + rowNumber + ": expected a deal object but found " + token);
+                }
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    /**
+     * Read the fields of the object the parser is at, up to its end
+     */
+    private static DealDto readDeal(JsonParser parser) throws IOException {
+        DealDto deal = new DealDto();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            // Nested values are not a valid field value, the field is left empty and fails validation
+            String text = value.isScalarValue() ? parser.getValueAsString() : null;
+            parser.skipChildren();
+            switch (field) {
+                case "dealId" -> deal.setDealId(text);
+                case "fromCurrency" -> deal.setFromCurrency(text);
+                case "toCurrency" -> deal.setToCurrency(text);
+                case "dateTime" -> deal.setDateTime(text);
+                case "amount" -> deal.setAmount(text);
+                default -> {
+                    // Unknown fields are ignored
+                }
+            }
+        }
+        return deal;
+    }
+}
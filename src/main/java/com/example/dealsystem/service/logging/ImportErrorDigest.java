@@ -0,0 +1,111 @@
+package com.example.dealsystem.service.logging;
+
+import com.example.dealsystem.validation.ErrorCategory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Invalid rows of one import counted per error category, logged as one summary once the import has ended
+ * Only the first invalid rows of each category are logged as they occur, so a file full of bad rows does not
+ * log a line per row on the import thread. Used by the thread running the import only
+ */
+public class ImportErrorDigest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportErrorDigest.class);
+
+    private final String fileName;
+    private final int maxExamples;
+    private final Map<ErrorCategory, Long> counts = new EnumMap<>(ErrorCategory.class);
+    private final Map<ErrorCategory, List<String>> examples = new EnumMap<>(ErrorCategory.class);
+    private long total;
+
+    /**
+     * @param fileName the file or batch being imported
+     * @param maxExamples invalid rows per category that are logged and kept for the summary
+     */
+    public ImportErrorDigest(String fileName, int maxExamples) {
+        this.fileName = fileName;
+        this.maxExamples = maxExamples;
+    }
+
+    /**
+     * Count an invalid row, logging it only while its category has fewer than the maximum examples
+     *
+     * @param category why the row is invalid
+     * @param message the error of the row, prefixed with its row number
+     */
+    public void record(ErrorCategory category, String message) {
+        total++;
+        long count = counts.merge(category, 1L, Long::sum);
+        if (count <= maxExamples) {
+            examples.computeIfAbsent(category, c -> new ArrayList<>(maxExamples)).add(message);
+            logger.warn("Invalid row in file {} ({}): {}", fileName, category, message);
+            if (count == maxExamples) {
+                logger.warn("Further {} rows of file {} are only counted", category, fileName);
+            }
+        } else {
+            logger.debug("Invalid row in file {} ({}): {}", fileName, category, message);
+        }
+    }
+
+    /**
+     * Copy of the counts and examples so far, to take back the rows of a chunk that is rolled back and retried
+     */
+    public ImportErrorDigest snapshot() {
+        ImportErrorDigest snapshot = new ImportErrorDigest(fileName, maxExamples);
+        snapshot.resetTo(this);
+        return snapshot;
+    }
+
+    /**
+     * Go back to the counts and examples of a snapshot
+     */
+    public void resetTo(ImportErrorDigest snapshot) {
+        total = snapshot.total;
+        counts.clear();
+        counts.putAll(snapshot.counts);
+        examples.clear();
+        snapshot.examples.forEach((category, categoryExamples) -> examples.put(category, new ArrayList<>(categoryExamples)));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getCount(ErrorCategory category) {
+        return counts.getOrDefault(category, 0L);
+    }
+
+    public List<String> getExamples(ErrorCategory category) {
+        return examples.getOrDefault(category, List.of());
+    }
+
+    /**
+     * Log the counts per category with their first examples, in one line
+     */
+    public void log() {
+        if (total == 0) {
+            logger.debug("No invalid rows in file {}", fileName);
+            return;
+        }
+        logger.warn("Invalid rows in file {}: {}", fileName, this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder().append(total).append(" total");
+        counts.forEach((category, count) -> {
+            summary.append(", ").append(category).append('=').append(count);
+            List<String> categoryExamples = examples.get(category);
+            if (categoryExamples != null) {
+                summary.append(' ').append(categoryExamples);
+            }
+        });
+        return summary.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.dealsystem.service.logging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the leases of the imports queued or running on this node by renewing their heartbeat
+ * An import whose heartbeat is older than the lease timeout belongs to a node that stopped, e.g. a crashed one,
+ * and is taken over by the recovery of any node
+ */
+@Component
+public class ImportHeartbeat {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportHeartbeat.class);
+
+    private final TransactionLogService transactionLogService;
+    private final Set<Long> activeIds = ConcurrentHashMap.newKeySet();
+
+    public ImportHeartbeat(TransactionLogService transactionLogService) {
+        this.transactionLogService = transactionLogService;
+    }
+
+    /**
+     * Keep the lease of an import until it is released
+     */
+    public void register(Long id) {
+        if (id != null) {
+            activeIds.add(id);
+        }
+    }
+
+    /**
+     * Stop renewing the lease of an import, once it has ended or was handed over
+     */
+    public void release(Long id) {
+        if (id != null) {
+            activeIds.remove(id);
+        }
+    }
+
+    /**
+     * Renew the heartbeat of all registered imports with one update
+     */
+    @Scheduled(fixedDelayString = "${deal.ingestion.recovery.heartbeat-interval:30s}")
+    public void beat() {
+        if (activeIds.isEmpty()) {
+            return;
+        }
+        try {
+            int renewed = transactionLogService.renewHeartbeats(List.copyOf(activeIds));
+            logger.debug("Renewed the leases of {} imports", renewed);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to renew the leases of {} imports: {}", activeIds.size(), e.getMessage());
+        }
+    }
+}
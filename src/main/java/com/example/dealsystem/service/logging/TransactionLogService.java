@@ -1,16 +1,36 @@
 package com.example.dealsystem.service.logging;
 
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.FileCurrencyCount;
 import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.CurrencyBreakdownDto;
+import com.example.dealsystem.dto.SummaryDto;
+import com.example.dealsystem.exception.DuplicateContentException;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
 import com.example.dealsystem.repository.InvalidDealRepository;
 import com.example.dealsystem.repository.TransactionLogRepository;
 import com.example.dealsystem.repository.ValidDealRepository;
+import com.example.dealsystem.service.deals.AccumulativeCountService;
+import com.example.dealsystem.service.deals.CurrencyCounts;
+import com.example.dealsystem.service.deals.FileCurrencyCountService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Service for managing transaction logs
@@ -19,17 +39,37 @@ import java.time.LocalDateTime;
 public class TransactionLogService {
 
     private static final Logger logger = LoggerFactory.getLogger(TransactionLogService.class);
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<TransactionLog.TransactionStatus> ACTIVE_STATUSES =
+        List.of(TransactionLog.TransactionStatus.QUEUED, TransactionLog.TransactionStatus.PROCESSING);
 
     private final TransactionLogRepository transactionLogRepository;
     private final ValidDealRepository validDealRepository;
     private final InvalidDealRepository invalidDealRepository;
+    private final DealIdRegistryRepository dealIdRegistryRepository;
+    private final FileCurrencyCountService fileCurrencyCountService;
+    private final AccumulativeCountService accumulativeCountService;
+    private final Cache<String, VersionedSummary> endedSummaries;
 
     public TransactionLogService(TransactionLogRepository transactionLogRepository,
                                  ValidDealRepository validDealRepository,
-                                 InvalidDealRepository invalidDealRepository) {
+                                 InvalidDealRepository invalidDealRepository,
+                                 DealIdRegistryRepository dealIdRegistryRepository,
+                                 FileCurrencyCountService fileCurrencyCountService,
+                                 AccumulativeCountService accumulativeCountService,
+                                 IngestionProperties ingestionProperties) {
         this.transactionLogRepository = transactionLogRepository;
         this.validDealRepository = validDealRepository;
         this.invalidDealRepository = invalidDealRepository;
+        this.dealIdRegistryRepository = dealIdRegistryRepository;
+        this.fileCurrencyCountService = fileCurrencyCountService;
+        this.accumulativeCountService = accumulativeCountService;
+        IngestionProperties.SummaryCache summaryCache = ingestionProperties.getSummaryCache();
+        this.endedSummaries = Caffeine.newBuilder()
+            .maximumSize(summaryCache.getMaxSize())
+            .expireAfterWrite(summaryCache.getTtl())
+            .build();
     }
 
     /**
@@ -38,6 +78,7 @@ public class TransactionLogService {
     @Transactional
     public TransactionLog save(TransactionLog transactionLog) {
         logger.debug("Saving transaction log for file: {}", transactionLog.getFileName());
+        endedSummaries.invalidate(transactionLog.getFileName());
         TransactionLog saved = transactionLogRepository.save(transactionLog);
         logger.info("Saved transaction log with ID: {} for file: {}", 
             saved.getId(), saved.getFileName());
@@ -58,12 +99,14 @@ public class TransactionLogService {
             });
 
         Long validCount = validDealRepository.countByFileName(fileName);
-        Long invalidCount = invalidDealRepository.countByFileName(fileName);
+        Long invalidCount = invalidDealRepository.countByTransactionLogId(transactionLog.getId());
         
         logger.debug("File {} statistics - Valid: {}, Invalid: {}", fileName, validCount, invalidCount);
 
         transactionLog.setValidCount(validCount);
         transactionLog.setInvalidCount(invalidCount);
+        transactionLog.setRowsProcessed(validCount + invalidCount);
+        transactionLog.setBytesProcessed(transactionLog.getBytesTotal());
         transactionLog.setCompletedAt(LocalDateTime.now());
         
         if (transactionLog.getStartedAt() != null) {
@@ -73,12 +116,149 @@ public class TransactionLogService {
         }
         
         transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+        transactionLog.setSpoolFile(null);
+        endedSummaries.invalidate(fileName);
         
         transactionLogRepository.save(transactionLog);
         logger.info("Transaction completed for file: {} - Valid: {}, Invalid: {}, Duration: {}ms", 
             fileName, validCount, invalidCount, transactionLog.getProcessingDurationMs());
     }
 
+    /**
+     * Mark a queued transaction as picked up by a worker, the processing duration starts here
+     */
+    @Transactional
+    public TransactionLog startTransaction(Long id) {
+        TransactionLog transactionLog = transactionLogRepository.findById(id)
+            .orElseThrow(() -> new IllegalStateException("Transaction log not found with ID: " + id));
+
+        transactionLog.setStatus(TransactionLog.TransactionStatus.PROCESSING);
+        transactionLog.setStartedAt(LocalDateTime.now());
+        endedSummaries.invalidate(transactionLog.getFileName());
+        logger.info("Started processing transaction {} for file: {}", id, transactionLog.getFileName());
+        return transactionLogRepository.save(transactionLog);
+    }
+
+    /**
+     * Record progress of a running transaction
+     * Runs in its own transaction so pollers see it while the import itself is still uncommitted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updateProgress(Long id, long rowsProcessed, long validCount, long invalidCount, long bytesProcessed) {
+        transactionLogRepository.updateProgress(id, rowsProcessed, validCount, invalidCount, bytesProcessed);
+        logger.debug("Transaction {} progress - Rows: {}, Valid: {}, Invalid: {}, Bytes: {}",
+            id, rowsProcessed, validCount, invalidCount, bytesProcessed);
+    }
+
+    /**
+     * Record the checkpoint of an import committed in chunks
+     * Joins the transaction of the chunk, so the checkpoint is only stored together with the rows up to it
+     *
+     * @param checkpointRow number of the last row of the chunk
+     * @param checkpointOffset offset in the file content just after that row
+     * @param bytesProcessed bytes of the upload read so far, less than the offset when the upload is compressed
+     */
+    @Transactional
+    public void saveCheckpoint(Long id, long checkpointRow, long checkpointOffset, long bytesProcessed,
+                               long validCount, long invalidCount) {
+        transactionLogRepository.updateCheckpoint(id, checkpointRow, checkpointOffset, bytesProcessed,
+            validCount + invalidCount, validCount, invalidCount);
+        logger.debug("Transaction {} checkpoint - Row: {}, Offset: {}, Valid: {}, Invalid: {}",
+            id, checkpointRow, checkpointOffset, validCount, invalidCount);
+    }
+
+    /**
+     * Remember where an upload was spooled, so its import can be resumed after a restart
+     */
+    @Transactional
+    public void recordSpoolFile(Long id, Path spoolFile) {
+        transactionLogRepository.updateSpoolFile(id, spoolFile.toAbsolutePath().toString());
+    }
+
+    /**
+     * Record the content hash of an upload, unless a file with the same content was already imported or is being
+     * imported, a failed import gives up its content hash
+     *
+     * @param transactionLog the transaction log of the upload
+     * @param contentHash the SHA-256 of the uploaded content as hex
+     * @throws DuplicateContentException if another upload has the same content, pointing to its import
+     */
+    @Transactional
+    public void recordContentHash(TransactionLog transactionLog, String contentHash) {
+        TransactionLog original = transactionLogRepository.findByContentHash(contentHash).orElse(null);
+        if (original != null) {
+            logger.warn("File {} has the same content as file {} (import {})", transactionLog.getFileName(),
+                original.getFileName(), original.getId());
+            throw new DuplicateContentException("File '" + transactionLog.getFileName() + "' has the same content as '"
+                + original.getFileName() + "', which has already been imported.", original.getId());
+        }
+        try {
+            transactionLogRepository.updateContentHash(transactionLog.getId(), contentHash);
+        } catch (DataIntegrityViolationException e) {
+            // The same content uploaded twice at the same time
+            logger.warn("File {} has the same content as a file imported at the same time", transactionLog.getFileName());
+            throw new DuplicateContentException("File '" + transactionLog.getFileName()
+                + "' has the same content as a file that is being imported.", null);
+        }
+        transactionLog.setContentHash(contentHash);
+    }
+
+    /**
+     * Renew the leases of imports that are queued or running on this node
+     *
+     * @return the number of leases renewed, ended imports are skipped
+     */
+    @Transactional
+    public int renewHeartbeats(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return transactionLogRepository.renewHeartbeats(ids, ACTIVE_STATUSES, LocalDateTime.now());
+    }
+
+    /**
+     * Find queued or running imports whose node has not renewed their lease within the lease timeout
+     */
+    public List<TransactionLog> findExpired(Duration leaseTimeout) {
+        return transactionLogRepository.findExpired(ACTIVE_STATUSES, LocalDateTime.now().minus(leaseTimeout));
+    }
+
+    /**
+     * Take over the lease of an expired import
+     *
+     * @return false if another node took it over first or the import has ended meanwhile
+     */
+    @Transactional
+    public boolean claimExpired(Long id, Duration leaseTimeout) {
+        LocalDateTime now = LocalDateTime.now();
+        return transactionLogRepository.claimExpired(id, ACTIVE_STATUSES, now.minus(leaseTimeout), now) == 1;
+    }
+
+    /**
+     * Roll back an interrupted import that cannot be resumed
+     * The deals of the file and their registered deal IDs are deleted with one statement per table, their counts
+     * are taken from the currency breakdown of the file back from the accumulative counts and the transaction log
+     * is removed, so the file can be uploaded again
+     */
+    @Transactional
+    public void rollbackImport(TransactionLog transactionLog) {
+        String fileName = transactionLog.getFileName();
+        CurrencyCounts currencyCounts = new CurrencyCounts();
+        for (FileCurrencyCount count : fileCurrencyCountService.findByFileName(fileName)) {
+            currencyCounts.add(count.getFromCurrency(), -count.getCountOfDeals());
+        }
+
+        fileCurrencyCountService.deleteByFileName(fileName);
+        dealIdRegistryRepository.deleteByFileName(fileName);
+        int validDeleted = validDealRepository.deleteByFileName(fileName);
+        int invalidDeleted = invalidDealRepository.deleteByTransactionLogId(transactionLog.getId());
+        accumulativeCountService.record(fileName, currencyCounts);
+        transactionLogRepository.deleteById(transactionLog.getId());
+        endedSummaries.invalidate(fileName);
+        logger.warn("Rolled back interrupted import of file: {} - Deleted {} valid and {} invalid deals",
+            fileName, validDeleted, invalidDeleted);
+    }
+
     /**
      * Mark transaction as failed with error message
      */
@@ -94,6 +274,10 @@ public class TransactionLogService {
 
         transactionLog.setStatus(TransactionLog.TransactionStatus.FAILED);
         transactionLog.setErrorMessage(errorMessage);
+        endedSummaries.invalidate(fileName);
+        transactionLog.setSpoolFile(null);
+        // The content was not fully imported, so it can be uploaded again
+        transactionLog.setContentHash(null);
         transactionLog.setCompletedAt(LocalDateTime.now());
         
         if (transactionLog.getStartedAt() != null) {
@@ -106,6 +290,17 @@ public class TransactionLogService {
         logger.error("Transaction failed for file: {} - Error: {}", fileName, errorMessage);
     }
 
+    /**
+     * Remove a transaction log entry of an upload that was never processed, so the file can be uploaded again
+     */
+    @Transactional
+    public void delete(TransactionLog transactionLog) {
+        transactionLogRepository.delete(transactionLog);
+        endedSummaries.invalidate(transactionLog.getFileName());
+        logger.info("Deleted transaction log with ID: {} for file: {}",
+            transactionLog.getId(), transactionLog.getFileName());
+    }
+
     /**
      * Check if a file has already been imported
      */
@@ -125,5 +320,101 @@ public class TransactionLogService {
         return transactionLogRepository.findByFileName(fileName)
             .orElse(null);
     }
-}
 
+    /**
+     * Find transaction log by ID
+     */
+    public TransactionLog findById(Long id) {
+        return transactionLogRepository.findById(id)
+            .orElse(null);
+    }
+
+    /**
+     * Find the import summary of a file with its ETag and last modification time, for conditional requests of pollers
+     * Summaries of completed and failed imports never change and are served from memory, summaries of imports
+     * that are still queued or running are read from the database on every call
+     *
+     * @return the summary, or null if no transaction log exists for the file
+     */
+    public VersionedSummary findSummary(String fileName) {
+        VersionedSummary cached = endedSummaries.getIfPresent(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        TransactionLog transactionLog = findByFileName(fileName);
+        if (transactionLog == null) {
+            return null;
+        }
+
+        VersionedSummary summary = new VersionedSummary(toSummary(transactionLog), eTag(transactionLog),
+            transactionLog.getCompletedAt() != null ?
+                transactionLog.getCompletedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1);
+        if (!ACTIVE_STATUSES.contains(transactionLog.getStatus())) {
+            endedSummaries.put(fileName, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * Build the import summary of a transaction log, with the currency breakdown recorded during ingestion
+     */
+    public SummaryDto toSummary(TransactionLog transactionLog) {
+        SummaryDto summary = new SummaryDto();
+        summary.setFileName(transactionLog.getFileName());
+        summary.setStatus(transactionLog.getStatus().toString());
+        summary.setValidCount(transactionLog.getValidCount() != null ? transactionLog.getValidCount() : 0L);
+        summary.setInvalidCount(transactionLog.getInvalidCount() != null ? transactionLog.getInvalidCount() : 0L);
+        summary.setProcessingDurationMs(transactionLog.getProcessingDurationMs());
+        summary.setStartedAt(transactionLog.getStartedAt() != null ?
+            transactionLog.getStartedAt().format(FORMATTER) : null);
+        summary.setCompletedAt(transactionLog.getCompletedAt() != null ?
+            transactionLog.getCompletedAt().format(FORMATTER) : null);
+        summary.setErrorMessage(transactionLog.getErrorMessage());
+        for (FileCurrencyCount count : fileCurrencyCountService.findByFileName(transactionLog.getFileName())) {
+            summary.getCurrencyBreakdown().add(new CurrencyBreakdownDto(count.getFromCurrency().name(),
+                count.getToCurrency().name(), count.getCountOfDeals(), count.getAmountSum()));
+        }
+        return summary;
+    }
+
+    /**
+     * Changes with every state of an import a summary is built from: its status, the progress of running imports
+     * and the end of ended ones. The id tells apart imports of a file name that was uploaded again
+     */
+    private static String eTag(TransactionLog transactionLog) {
+        String state = transactionLog.getId() + ":" + transactionLog.getStatus() + ":" + transactionLog.getRowsProcessed()
+            + ":" + transactionLog.getValidCount() + ":" + transactionLog.getInvalidCount()
+            + ":" + transactionLog.getCompletedAt();
+        return "\"" + DigestUtils.md5DigestAsHex(state.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /**
+     * Import summary with its ETag and last modification time
+     */
+    public static class VersionedSummary {
+        private final SummaryDto summary;
+        private final String eTag;
+        private final long lastModified;
+
+        public VersionedSummary(SummaryDto summary, String eTag, long lastModified) {
+            this.summary = summary;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        public SummaryDto getSummary() {
+            return summary;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * Completion time in epoch milliseconds, -1 while the import is queued or running
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.dealsystem.validation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parsers for the deal timestamp and amount that report invalid values by returning null
+ * They accept exactly what {@code LocalDateTime.parse(value, "yyyy-MM-dd HH:mm:ss")} and
+ * {@code new BigDecimal(value)} accept, without throwing for the invalid values of a dirty file.
+ * Only rare forms (years with a sign, exponents, non-ASCII digits) are handed to the JDK parsers
+ */
+final class DealFieldParser {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /** Digits that always fit into the unscaled long value of a BigDecimal */
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private DealFieldParser() {
+    }
+
+    /**
+     * Parse a {@code yyyy-MM-dd HH:mm:ss} timestamp with the SMART resolver rules of the formatter:
+     * a day past the end of the month is moved to its last day and 24:00:00 is midnight of the next day
+     *
+     * @return the timestamp, or null if the value is not a valid timestamp
+     */
+    static LocalDateTime parseDateTime(CharSequence value) {
+        if (value.length() > 0 && value.charAt(0) == '+') {
+            // Years beyond 9999 need a sign, left to the formatter
+            try {
+                return LocalDateTime.parse(value, DATE_TIME_FORMATTER);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        if (value.length() != 19
+            || value.charAt(4) != '-' || value.charAt(7) != '-' || value.charAt(10) != ' '
+            || value.charAt(13) != ':' || value.charAt(16) != ':') {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        int hour = digits(value, 11, 13);
+        int minute = digits(value, 14, 16);
+        int second = digits(value, 17, 19);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31
+            || hour < 0 || hour > 24 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return null;
+        }
+
+        LocalDate date = LocalDate.of(year, month, 1);
+        date = date.withDayOfMonth(Math.min(day, date.lengthOfMonth()));
+        if (hour == 24) {
+            if (minute != 0 || second != 0) {
+                return null;
+            }
+            return LocalDateTime.of(date.plusDays(1), LocalTime.MIDNIGHT);
+        }
+        return LocalDateTime.of(date, LocalTime.of(hour, minute, second));
+    }
+
+    /**
+     * Parse a decimal amount: an optional sign, digits with an optional decimal point and an optional exponent
+     *
+     * @return the amount, or null if the value is not a valid number
+     */
+    static BigDecimal parseAmount(CharSequence value) {
+        int length = value.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (point) {
+                    scale++;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else if (c == 'e' || c == 'E' || c > 127) {
+                // Exponents and non-ASCII digits are left to BigDecimal
+                return parseBigDecimal(value);
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0) {
+            return null;
+        }
+        if (digits > MAX_LONG_DIGITS) {
+            return parseBigDecimal(value);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static BigDecimal parseBigDecimal(CharSequence value) {
+        try {
+            return new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Value of the ASCII digits between start and end, or -1 if any of them is not a digit
+     */
+    private static int digits(CharSequence value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -1,7 +1,8 @@
 package com.example.dealsystem.validation;
 
 import com.example.dealsystem.domain.CurrencyCode;
-import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.dto.DealFields;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,8 +10,6 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 
 /**
  * Validator for Deal DTOs
@@ -20,109 +19,166 @@ import java.time.format.DateTimeParseException;
 public class DealValidator {
 
     private static final Logger logger = LoggerFactory.getLogger(DealValidator.class);
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
-     * Validates a DealDto
+     * Validates the fields of a deal, either a DealDto or a row view of the CSV tokenizer
      * 
      * @param dealDto the deal to validate
      * @return ValidationResult containing validation status and error message if invalid
      */
-    public ValidationResult validate(DealDto dealDto) {
+    public ValidationResult validate(DealFields dealDto) {
         logger.debug("Validating deal: {}", dealDto != null ? dealDto.getDealId() : "null");
         
         if (dealDto == null) {
-            logger.warn("Validation failed: Deal data is null");
-            return new ValidationResult(false, "Deal data is null");
+            logger.debug("Validation failed: Deal data is null");
+            return new ValidationResult(ErrorCode.DEAL_MISSING, null);
         }
 
         // Validate Deal ID
         if (StringUtils.isBlank(dealDto.getDealId())) {
-            logger.warn("Validation failed: Deal ID is missing or empty");
-            return new ValidationResult(false, "Deal ID is missing or empty");
+            logger.debug("Validation failed: Deal ID is missing or empty");
+            return new ValidationResult(ErrorCode.DEAL_ID_MISSING, null);
         }
         logger.debug("Deal ID validation passed: {}", dealDto.getDealId());
 
         // Validate From Currency
         if (StringUtils.isBlank(dealDto.getFromCurrency())) {
-            logger.warn("Validation failed: From Currency is missing or empty for deal {}", dealDto.getDealId());
-            return new ValidationResult(false, "From Currency is missing or empty");
+            logger.debug("Validation failed: From Currency is missing or empty for deal {}", dealDto.getDealId());
+            return new ValidationResult(ErrorCode.FROM_CURRENCY_MISSING, null);
         }
-        if (!CurrencyCode.isValid(dealDto.getFromCurrency())) {
-            logger.warn("Validation failed: Invalid From Currency code '{}' for deal {}", 
+        CurrencyCode fromCurrency = CurrencyCode.fromCode(dealDto.getFromCurrency());
+        if (fromCurrency == null) {
+            logger.debug("Validation failed: Invalid From Currency code '{}' for deal {}", 
                 dealDto.getFromCurrency(), dealDto.getDealId());
-            return new ValidationResult(false, "Invalid From Currency code: " + dealDto.getFromCurrency());
+            return new ValidationResult(ErrorCode.FROM_CURRENCY_INVALID, dealDto.getFromCurrency().toString());
         }
         logger.debug("From Currency validation passed: {}", dealDto.getFromCurrency());
 
         // Validate To Currency
         if (StringUtils.isBlank(dealDto.getToCurrency())) {
-            logger.warn("Validation failed: To Currency is missing or empty for deal {}", dealDto.getDealId());
-            return new ValidationResult(false, "To Currency is missing or empty");
+            logger.debug("Validation failed: To Currency is missing or empty for deal {}", dealDto.getDealId());
+            return new ValidationResult(ErrorCode.TO_CURRENCY_MISSING, null);
         }
-        if (!CurrencyCode.isValid(dealDto.getToCurrency())) {
-            logger.warn("Validation failed: Invalid To Currency code '{}' for deal {}", 
+        CurrencyCode toCurrency = CurrencyCode.fromCode(dealDto.getToCurrency());
+        if (toCurrency == null) {
+            logger.debug("Validation failed: Invalid To Currency code '{}' for deal {}", 
                 dealDto.getToCurrency(), dealDto.getDealId());
-            return new ValidationResult(false, "Invalid To Currency code: " + dealDto.getToCurrency());
+            return new ValidationResult(ErrorCode.TO_CURRENCY_INVALID, dealDto.getToCurrency().toString());
         }
         logger.debug("To Currency validation passed: {}", dealDto.getToCurrency());
 
         // Validate DateTime
         if (StringUtils.isBlank(dealDto.getDateTime())) {
-            logger.warn("Validation failed: Deal timestamp is missing or empty for deal {}", dealDto.getDealId());
-            return new ValidationResult(false, "Deal timestamp is missing or empty");
-        }
-        try {
-            LocalDateTime.parse(dealDto.getDateTime(), DATE_TIME_FORMATTER);
-            logger.debug("DateTime validation passed: {}", dealDto.getDateTime());
-        } catch (DateTimeParseException e) {
-            logger.warn("Validation failed: Invalid date format '{}' for deal {}. Expected: yyyy-MM-dd HH:mm:ss", 
+            logger.debug("Validation failed: Deal timestamp is missing or empty for deal {}", dealDto.getDealId());
+            return new ValidationResult(ErrorCode.DATE_TIME_MISSING, null);
+        }
+        LocalDateTime dateTime = DealFieldParser.parseDateTime(dealDto.getDateTime());
+        if (dateTime == null) {
+            logger.debug("Validation failed: Invalid date format '{}' for deal {}. Expected: yyyy-MM-dd HH:mm:ss", 
                 dealDto.getDateTime(), dealDto.getDealId());
-            return new ValidationResult(false, 
-                "Invalid date format. Expected: yyyy-MM-dd HH:mm:ss, got: " + dealDto.getDateTime());
+            return new ValidationResult(ErrorCode.DATE_TIME_INVALID, dealDto.getDateTime().toString());
         }
+        logger.debug("DateTime validation passed: {}", dealDto.getDateTime());
 
         // Validate Amount
         if (StringUtils.isBlank(dealDto.getAmount())) {
-            logger.warn("Validation failed: Deal amount is missing or empty for deal {}", dealDto.getDealId());
-            return new ValidationResult(false, "Deal amount is missing or empty");
-        }
-        try {
-            BigDecimal amount = new BigDecimal(dealDto.getAmount());
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                logger.warn("Validation failed: Deal amount must be greater than zero for deal {}. Got: {}", 
-                    dealDto.getDealId(), dealDto.getAmount());
-                return new ValidationResult(false, "Deal amount must be greater than zero");
-            }
-            logger.debug("Amount validation passed: {}", dealDto.getAmount());
-        } catch (NumberFormatException e) {
-            logger.warn("Validation failed: Invalid amount format '{}' for deal {}", 
+            logger.debug("Validation failed: Deal amount is missing or empty for deal {}", dealDto.getDealId());
+            return new ValidationResult(ErrorCode.AMOUNT_MISSING, null);
+        }
+        BigDecimal amount = DealFieldParser.parseAmount(dealDto.getAmount());
+        if (amount == null) {
+            logger.debug("Validation failed: Invalid amount format '{}' for deal {}", 
                 dealDto.getAmount(), dealDto.getDealId());
-            return new ValidationResult(false, "Invalid amount format: " + dealDto.getAmount());
+            return new ValidationResult(ErrorCode.AMOUNT_INVALID, dealDto.getAmount().toString());
         }
+        if (amount.signum() <= 0) {
+            logger.debug("Validation failed: Deal amount must be greater than zero for deal {}. Got: {}", 
+                dealDto.getDealId(), dealDto.getAmount());
+            return new ValidationResult(ErrorCode.AMOUNT_NOT_POSITIVE, null);
+        }
+        logger.debug("Amount validation passed: {}", dealDto.getAmount());
 
-        logger.info("Deal validation successful for deal ID: {}", dealDto.getDealId());
-        return new ValidationResult(true, null);
+        logger.debug("Deal validation successful for deal ID: {}", dealDto.getDealId());
+        return new ValidationResult(fromCurrency, toCurrency, dateTime, amount);
     }
 
     /**
      * Result of validation operation
+     * A successful validation keeps the parsed field values, so the deal is not parsed again when it is mapped
      */
     public static class ValidationResult {
         private final boolean valid;
-        private final String errorMessage;
+        private final ErrorCode errorCode;
+        private final String errorDetail;
+        private final CurrencyCode fromCurrency;
+        private final CurrencyCode toCurrency;
+        private final LocalDateTime dateTime;
+        private final BigDecimal amount;
 
         public ValidationResult(boolean valid, String errorMessage) {
+            this(valid, valid ? null : ErrorCode.OTHER, errorMessage);
+        }
+
+        /**
+         * A failed validation
+         *
+         * @param errorDetail the rejected value for errors whose message is followed by it, otherwise null
+         */
+        public ValidationResult(ErrorCode errorCode, String errorDetail) {
+            this(false, errorCode, errorDetail);
+        }
+
+        private ValidationResult(boolean valid, ErrorCode errorCode, String errorDetail) {
             this.valid = valid;
-            this.errorMessage = errorMessage;
+            this.errorCode = errorCode;
+            this.errorDetail = errorDetail;
+            this.fromCurrency = null;
+            this.toCurrency = null;
+            this.dateTime = null;
+            this.amount = null;
+        }
+
+        public ValidationResult(CurrencyCode fromCurrency, CurrencyCode toCurrency, LocalDateTime dateTime,
+                                BigDecimal amount) {
+            this.valid = true;
+            this.errorCode = null;
+            this.errorDetail = null;
+            this.fromCurrency = fromCurrency;
+            this.toCurrency = toCurrency;
+            this.dateTime = dateTime;
+            this.amount = amount;
+        }
+
+        /**
+         * Map a validated deal, reusing the values parsed during validation when there are any
+         *
+         * @param deal the deal this result belongs to
+         */
+        public ValidDeal toValidDeal(DealFields deal) {
+            if (amount == null) {
+                return ValidDeal.valueOf(deal);
+            }
+            return ValidDeal.valueOf(deal.getDealId().toString(), fromCurrency, toCurrency, dateTime, amount);
         }
 
         public boolean isValid() {
             return valid;
         }
 
+        public ErrorCode getErrorCode() {
+            return errorCode;
+        }
+
+        public String getErrorDetail() {
+            return errorDetail;
+        }
+
+        public ErrorCategory getErrorCategory() {
+            return errorCode != null ? errorCode.getCategory() : null;
+        }
+
         public String getErrorMessage() {
-            return errorMessage;
+            return errorCode != null ? errorCode.format(errorDetail) : null;
         }
     }
 }
@@ -0,0 +1,23 @@
+package com.example.dealsystem.validation;
+
+/**
+ * Why a row of an upload was saved as invalid or could not be processed, errors are counted per category
+ */
+public enum ErrorCategory {
+    /** A field of the deal is missing or blank */
+    MISSING_FIELD,
+    /** A currency code is not a supported currency */
+    INVALID_CURRENCY,
+    /** The timestamp is not in the yyyy-MM-dd HH:mm:ss format */
+    INVALID_DATE_TIME,
+    /** The amount is not a number or not greater than zero */
+    INVALID_AMOUNT,
+    /** The deal failed validation for another reason */
+    INVALID_DEAL,
+    /** The deal ID was imported before, or earlier in the same upload */
+    DUPLICATE_DEAL_ID,
+    /** The row could not be parsed into the fields of a deal */
+    MALFORMED_ROW,
+    /** The deal could not be mapped or saved, or the chunk of rows it belongs to failed */
+    PROCESSING_ERROR
+}
@@ -0,0 +1,76 @@
+package com.example.dealsystem.validation;
+
+/**
+ * Why a row was saved as invalid, stored in invalid_deal as a small code instead of the message text
+ * The codes are listed in the deal_error_code table, the invalid_deal_message view renders the message of a row
+ * from its code and detail. Codes are persisted: never renumber them, only add new ones
+ */
+public enum ErrorCode {
+    /** A free-text error, the detail holds the whole message */
+    OTHER(0, ErrorCategory.INVALID_DEAL, ""),
+    DEAL_MISSING(1, ErrorCategory.INVALID_DEAL, "Deal data is null"),
+    DEAL_ID_MISSING(2, ErrorCategory.MISSING_FIELD, "Deal ID is missing or empty"),
+    FROM_CURRENCY_MISSING(3, ErrorCategory.MISSING_FIELD, "From Currency is missing or empty"),
+    FROM_CURRENCY_INVALID(4, ErrorCategory.INVALID_CURRENCY, "Invalid From Currency code: "),
+    TO_CURRENCY_MISSING(5, ErrorCategory.MISSING_FIELD, "To Currency is missing or empty"),
+    TO_CURRENCY_INVALID(6, ErrorCategory.INVALID_CURRENCY, "Invalid To Currency code: "),
+    DATE_TIME_MISSING(7, ErrorCategory.MISSING_FIELD, "Deal timestamp is missing or empty"),
+    DATE_TIME_INVALID(8, ErrorCategory.INVALID_DATE_TIME, "Invalid date format. Expected: yyyy-MM-dd HH:mm:ss, got: "),
+    AMOUNT_MISSING(9, ErrorCategory.MISSING_FIELD, "Deal amount is missing or empty"),
+    AMOUNT_INVALID(10, ErrorCategory.INVALID_AMOUNT, "Invalid amount format: "),
+    AMOUNT_NOT_POSITIVE(11, ErrorCategory.INVALID_AMOUNT, "Deal amount must be greater than zero"),
+    DUPLICATE_DEAL_ID(12, ErrorCategory.DUPLICATE_DEAL_ID, "Deal ID already exists: "),
+    PROCESSING_ERROR(13, ErrorCategory.PROCESSING_ERROR, "Error processing deal: ");
+
+    private static final ErrorCode[] BY_CODE = new ErrorCode[values().length];
+
+    static {
+        for (ErrorCode errorCode : values()) {
+            BY_CODE[errorCode.code] = errorCode;
+        }
+    }
+
+    private final short code;
+    private final ErrorCategory category;
+    private final String message;
+
+    ErrorCode(int code, ErrorCategory category, String message) {
+        this.code = (short) code;
+        this.category = category;
+        this.message = message;
+    }
+
+    /**
+     * @throws IllegalArgumentException if no error has this code
+     */
+    public static ErrorCode of(short code) {
+        if (code < 0 || code >= BY_CODE.length || BY_CODE[code] == null) {
+            throw new IllegalArgumentException("Unknown error code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public ErrorCategory getCategory() {
+        return category;
+    }
+
+    /**
+     * The message of the error, the detail follows it when there is one
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The full message text of an error with its detail
+     *
+     * @param detail e.g. the rejected value, may be null
+     */
+    public String format(String detail) {
+        return detail != null ? message + detail : message;
+    }
+}
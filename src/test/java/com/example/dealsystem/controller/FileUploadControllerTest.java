@@ -0,0 +1,72 @@
+package com.example.dealsystem.controller;
+
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.exception.DuplicateContentException;
+import com.example.dealsystem.exception.UploadThrottledException;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(FileUploadController.class)
+class FileUploadControllerTest {
+
+    private static final MockMultipartFile FILE = new MockMultipartFile("file", "deals.csv", "text/csv",
+        "deal_id,from_currency,to_currency,date_time,amount\n".getBytes());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TransactionLogService transactionLogService;
+
+    @MockitoBean
+    private FileUploadService fileUploadService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionLogService.save(any(TransactionLog.class))).thenAnswer(invocation -> {
+            TransactionLog transactionLog = invocation.getArgument(0);
+            transactionLog.setId(1L);
+            return transactionLog;
+        });
+    }
+
+    @Test
+    void testUploadFile_ThrottledUploadAnswersTooManyRequests() throws Exception {
+        doThrow(new UploadThrottledException("Too many uploads are being imported, please retry later",
+            Duration.ofSeconds(30))).when(fileUploadService).uploadFile(any(), any(TransactionLog.class), anyBoolean());
+
+        mockMvc.perform(multipart("/upload").file(FILE))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "30"))
+            .andExpect(model().attribute("errorMessage", "Too many uploads are being imported, please retry later"));
+    }
+
+    @Test
+    void testUploadFile_DuplicateContentAnswersConflict() throws Exception {
+        doThrow(new DuplicateContentException("File 'deals.csv' has the same content as 'original.csv'", 5L))
+            .when(fileUploadService).uploadFile(any(), any(TransactionLog.class), anyBoolean());
+
+        mockMvc.perform(multipart("/upload").file(FILE))
+            .andExpect(status().isConflict())
+            .andExpect(model().attribute("errorMessage", "File 'deals.csv' has the same content as 'original.csv'"));
+    }
+}
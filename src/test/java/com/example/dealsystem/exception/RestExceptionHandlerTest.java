@@ -0,0 +1,39 @@
+package com.example.dealsystem.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestExceptionHandlerTest {
+
+    private final RestExceptionHandler restExceptionHandler = new RestExceptionHandler();
+
+    @Test
+    void testHandleDataIntegrityViolationException_DuplicateFileName() {
+        ProblemDetail problemDetail = restExceptionHandler.handleDataIntegrityViolationException(
+            violation("transaction_log_file_name_key"));
+
+        assertEquals(HttpStatus.CONFLICT.value(), problemDetail.getStatus());
+        assertEquals("File has already been imported.", problemDetail.getDetail());
+    }
+
+    @Test
+    void testHandleDataIntegrityViolationException_OtherConstraintIsNotADuplicateFile() {
+        ProblemDetail problemDetail = restExceptionHandler.handleDataIntegrityViolationException(
+            violation("deal_id_registry_pkey"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR.value(), problemDetail.getStatus());
+        assertNotEquals("File has already been imported.", problemDetail.getDetail());
+    }
+
+    private static DataIntegrityViolationException violation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+            new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+}
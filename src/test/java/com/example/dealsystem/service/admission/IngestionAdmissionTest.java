@@ -0,0 +1,127 @@
+package com.example.dealsystem.service.admission;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.exception.UploadThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestionAdmissionTest {
+
+    private IngestionProperties ingestionProperties;
+
+    @BeforeEach
+    void setUp() {
+        ingestionProperties = new IngestionProperties();
+        ingestionProperties.getAdmission().setMaxConcurrent(2);
+        ingestionProperties.getAdmission().setQueueCapacity(1);
+        ingestionProperties.getAdmission().setMaxWait(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testAdmit_WaitsInOrderOfArrival() throws Exception {
+        IngestionAdmission admission = create();
+        IngestionAdmission.Permit first = admission.admit(1L, true);
+        IngestionAdmission.Permit second = admission.admit(2L, true);
+
+        CompletableFuture<IngestionAdmission.Permit> third = CompletableFuture.supplyAsync(() -> admission.admit(3L, false));
+        awaitWaiting(admission, 1);
+        CompletableFuture<IngestionAdmission.Permit> fourth = CompletableFuture.supplyAsync(() -> admission.admit(4L, false));
+        awaitWaiting(admission, 2);
+        assertEquals(OptionalInt.of(1), admission.getQueuePosition(3L));
+        assertEquals(OptionalInt.of(2), admission.getQueuePosition(4L));
+        assertEquals(OptionalInt.empty(), admission.getQueuePosition(1L));
+
+        first.close();
+        IngestionAdmission.Permit thirdPermit = third.get(5, TimeUnit.SECONDS);
+        assertFalse(fourth.isDone());
+        assertEquals(OptionalInt.of(1), admission.getQueuePosition(4L));
+
+        thirdPermit.close();
+        fourth.get(5, TimeUnit.SECONDS).close();
+        second.close();
+        assertEquals(0, admission.getRunning());
+        assertEquals(0, admission.getWaiting());
+    }
+
+    @Test
+    void testAdmit_RejectsWhenQueueIsFull() throws Exception {
+        IngestionAdmission admission = create();
+        IngestionAdmission.Permit first = admission.admit(1L, true);
+        admission.admit(2L, true);
+        // Background jobs wait beyond the queue capacity, they were accepted already
+        CompletableFuture<IngestionAdmission.Permit> queued = CompletableFuture.supplyAsync(() -> admission.admit(3L, false));
+        awaitWaiting(admission, 1);
+
+        UploadThrottledException e = assertThrows(UploadThrottledException.class, () -> admission.admit(4L, true));
+        assertTrue(e.getRetryAfter().toSeconds() >= 1);
+        assertEquals(1, admission.getWaiting());
+        first.close();
+        queued.get(5, TimeUnit.SECONDS).close();
+    }
+
+    @Test
+    void testAdmit_RejectsAfterMaxWait() {
+        ingestionProperties.getAdmission().setMaxWait(Duration.ofMillis(50));
+        IngestionAdmission admission = create();
+        admission.admit(1L, true);
+        admission.admit(2L, true);
+
+        assertThrows(UploadThrottledException.class, () -> admission.admit(3L, true));
+        assertEquals(0, admission.getWaiting());
+        assertEquals(2, admission.getRunning());
+    }
+
+    @Test
+    void testRecordLatency_AdaptsLimit() {
+        ingestionProperties.getAdmission().setMaxConcurrent(8);
+        ingestionProperties.getAdmission().setAdaptive(true);
+        ingestionProperties.getAdmission().setTargetLatency(Duration.ofMillis(100));
+        IngestionAdmission admission = create();
+
+        admission.recordLatency(Duration.ofMillis(1));
+        admission.recordLatency(Duration.ofMillis(500));
+        assertEquals(4, admission.getLimit());
+        // Chunks that were committing at the old limit do not decrease it again
+        admission.recordLatency(Duration.ofMillis(500));
+        assertEquals(4, admission.getLimit());
+
+        // One more import per limit fast chunks, up to the maximum
+        for (int i = 0; i < 5; i++) {
+            admission.recordLatency(Duration.ofMillis(1));
+        }
+        assertEquals(5, admission.getLimit());
+        for (int i = 0; i < 100; i++) {
+            admission.recordLatency(Duration.ofMillis(1));
+        }
+        assertEquals(8, admission.getLimit());
+    }
+
+    @Test
+    void testRecordLatency_FixedLimitWhenNotAdaptive() {
+        IngestionAdmission admission = create();
+
+        admission.recordLatency(Duration.ofMinutes(1));
+
+        assertEquals(2, admission.getLimit());
+    }
+
+    private IngestionAdmission create() {
+        return new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry());
+    }
+
+    private static void awaitWaiting(IngestionAdmission admission, int waiting) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admission.getWaiting() < waiting && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(waiting, admission.getWaiting());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.ArchiveSummaryDto;
+import com.example.dealsystem.dto.SummaryDto;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveUploadServiceTest {
+
+    private static final String HEADER = "deal_id,from_currency,to_currency,date_time,amount\n";
+
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private ThreadPoolTaskExecutor executor;
+    private ArchiveUploadService archiveUploadService;
+    private final Map<Long, TransactionLog> transactionLogs = new ConcurrentHashMap<>();
+    private final Map<String, String> imported = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getAsync().setSpoolDirectory(spoolDirectory);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        archiveUploadService = new ArchiveUploadService(fileUploadService, transactionLogService, ingestionProperties, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void testUploadArchive_ImportsEachFileOnItsOwn() throws Exception {
+        mockTransactionLogs();
+        when(transactionLogService.isFileAlreadyImported(anyString())).thenAnswer(invocation ->
+            "old.csv".equals(invocation.getArgument(0)));
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(0);
+            TransactionLog transactionLog = invocation.getArgument(1);
+            imported.put(transactionLog.getFileName(), new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+            transactionLog.setValidCount(1L);
+            transactionLog.setInvalidCount(0L);
+            return null;
+        }).when(fileUploadService).uploadStreamedFile(any(InputStream.class), any(TransactionLog.class), anyBoolean());
+
+        byte[] archive = zip(Map.of(
+            "day/a.csv", HEADER + "D1,USD,EUR,2024-01-15 10:30:00,100\n",
+            "day/b.csv", HEADER + "D2,USD,EUR,2024-01-15 10:30:00,200\n",
+            "old.csv", HEADER + "D3,USD,EUR,2024-01-15 10:30:00,300\n"));
+
+        ArchiveSummaryDto summary = archiveUploadService.uploadArchive(
+            new MockMultipartFile("file", "deals.zip", "application/zip", archive), false);
+
+        assertEquals("deals.zip", summary.getArchiveName());
+        assertEquals(3, summary.getFileCount());
+        assertEquals(2, summary.getCompletedCount());
+        assertEquals(1, summary.getSkippedCount());
+        assertEquals(2L, summary.getValidCount());
+        // Files are imported under their own name, without the directory inside the archive
+        assertEquals(HEADER + "D1,USD,EUR,2024-01-15 10:30:00,100\n", imported.get("a.csv"));
+        assertEquals(HEADER + "D2,USD,EUR,2024-01-15 10:30:00,200\n", imported.get("b.csv"));
+        assertFalse(imported.containsKey("old.csv"));
+        SummaryDto skipped = summary.getFiles().stream().filter(file -> file.getFileName().equals("old.csv")).findFirst().orElseThrow();
+        assertEquals("SKIPPED", skipped.getStatus());
+    }
+
+    @Test
+    void testUploadArchive_FailingFileDoesNotStopOthers() throws Exception {
+        mockTransactionLogs();
+        doAnswer(invocation -> {
+            TransactionLog transactionLog = invocation.getArgument(1);
+            if (transactionLog.getFileName().equals("bad.csv")) {
+                transactionLog.setStatus(TransactionLog.TransactionStatus.FAILED);
+                throw new IllegalStateException("broken");
+            }
+            transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+            return null;
+        }).when(fileUploadService).uploadStreamedFile(any(InputStream.class), any(TransactionLog.class), anyBoolean());
+
+        ArchiveSummaryDto summary = archiveUploadService.uploadArchive(new MockMultipartFile("file", "deals.zip",
+            "application/zip", zip(Map.of("bad.csv", HEADER + "x\n", "good.csv", HEADER + "y\n"))), false);
+
+        assertEquals(1, summary.getCompletedCount());
+        assertEquals(1, summary.getFailedCount());
+        assertEquals(List.of("bad.csv", "good.csv"), summary.getFiles().stream().map(SummaryDto::getFileName).sorted().toList());
+    }
+
+    @Test
+    void testUploadArchive_NotAZipArchive() {
+        MockMultipartFile file = new MockMultipartFile("file", "deals.zip", "application/zip",
+            HEADER.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> archiveUploadService.uploadArchive(file, false));
+        verify(fileUploadService, never()).uploadStreamedFile(any(), any(), anyBoolean());
+    }
+
+    private void mockTransactionLogs() {
+        AtomicLong ids = new AtomicLong();
+        when(transactionLogService.save(any(TransactionLog.class))).thenAnswer(invocation -> {
+            TransactionLog transactionLog = invocation.getArgument(0);
+            transactionLog.setId(ids.incrementAndGet());
+            transactionLogs.put(transactionLog.getId(), transactionLog);
+            return transactionLog;
+        });
+        when(transactionLogService.findById(anyLong())).thenAnswer(invocation -> transactionLogs.get(invocation.<Long>getArgument(0)));
+        when(transactionLogService.toSummary(any(TransactionLog.class))).thenAnswer(invocation -> {
+            TransactionLog transactionLog = invocation.getArgument(0);
+            SummaryDto summary = new SummaryDto();
+            summary.setFileName(transactionLog.getFileName());
+            summary.setStatus(transactionLog.getStatus().name());
+            summary.setValidCount(transactionLog.getValidCount() != null ? transactionLog.getValidCount() : 0L);
+            summary.setInvalidCount(transactionLog.getInvalidCount() != null ? transactionLog.getInvalidCount() : 0L);
+            return summary;
+        });
+    }
+
+    private static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("day/"));
+            zip.closeEntry();
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
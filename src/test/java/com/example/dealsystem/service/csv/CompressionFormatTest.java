@@ -0,0 +1,88 @@
+package com.example.dealsystem.service.csv;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionFormatTest {
+
+    private static final String CSV = "deal_id,from_currency,to_currency,date_time,amount\n"
+        + "D1,USD,EUR,2024-01-15 10:30:00,100.50\n"
+        + "D2,GBP,JPY,2024-01-15 10:31:00,200\n";
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testDetect_ByMagicBytesNotFileName() throws IOException {
+        assertEquals(CompressionFormat.NONE, CompressionFormat.detect(write("deals.gz", CSV.getBytes(StandardCharsets.UTF_8))));
+        assertEquals(CompressionFormat.GZIP, CompressionFormat.detect(write("deals.csv", gzip(CSV))));
+        assertEquals(CompressionFormat.ZSTD, CompressionFormat.detect(write("deals.csv", zstd(CSV))));
+        assertEquals(CompressionFormat.NONE, CompressionFormat.detect(write("short.csv", new byte[] {'a'})));
+        assertEquals(CompressionFormat.NONE, CompressionFormat.detect(write("empty.csv", new byte[0])));
+    }
+
+    @Test
+    void testDecompress_Gzip() throws IOException {
+        assertEquals(CSV, decompress(CompressionFormat.GZIP, gzip(CSV)));
+    }
+
+    @Test
+    void testDecompress_Zstd() throws IOException {
+        assertEquals(CSV, decompress(CompressionFormat.ZSTD, zstd(CSV)));
+    }
+
+    @Test
+    void testDecompress_TokenizesRowsFromStream() throws IOException {
+        Path file = write("deals.csv.zst", zstd(CSV));
+        CompressionFormat compression = CompressionFormat.detect(file);
+
+        try (InputStream input = compression.decompress(Files.newInputStream(file))) {
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(input, true);
+            assertTrue(tokenizer.next());
+            assertEquals("D1", tokenizer.row().toDealDto().getDealId());
+            assertTrue(tokenizer.next());
+            assertEquals("D2", tokenizer.row().toDealDto().getDealId());
+            assertFalse(tokenizer.next());
+            assertEquals(CSV.length(), tokenizer.getBytesConsumed());
+        }
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static String decompress(CompressionFormat compression, byte[] content) throws IOException {
+        try (InputStream input = compression.decompress(new ByteArrayInputStream(content))) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream output = new GZIPOutputStream(buffer)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] zstd(String content) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream output = new ZstdOutputStream(buffer)) {
+            output.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.dealsystem.service.csv;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testSha256() throws Exception {
+        Path file = Files.writeString(directory.resolve("abc.csv"), "abc");
+
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ContentHash.sha256(file));
+    }
+
+    @Test
+    void testSha256_SameContentUnderAnotherName() throws Exception {
+        byte[] content = new byte[200_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        Path first = Files.write(directory.resolve("first.csv"), content);
+        Path second = Files.write(directory.resolve("second.csv"), content);
+        content[content.length - 1]++;
+        Path changed = Files.write(directory.resolve("changed.csv"), content);
+
+        assertEquals(ContentHash.sha256(first), ContentHash.sha256(second));
+        assertNotEquals(ContentHash.sha256(first), ContentHash.sha256(changed));
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.dealsystem.service.csv;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealCsvTokenizerTest {
+
+    private static final String HEADER = "deal_id,from_currency,to_currency,date_time,amount\n";
+
+    /** The commons-csv format the tokenizer replaces */
+    private static final CSVFormat COMMONS_CSV_FORMAT = CSVFormat.DEFAULT.builder()
+        .setHeader(DealCsvTokenizer.CSV_HEADERS)
+        .setSkipHeaderRecord(true)
+        .setIgnoreEmptyLines(true)
+        .setTrim(true)
+        .build();
+
+    private static final String TRICKY_CSV = HEADER
+        + "D1,USD,EUR,2024-01-15 10:30:00,100.50\n"
+        + "  D2 , usd ,\tEUR, 2024-01-15 10:30:00 , 1 \r\n"
+        + "\n\r\n"
+        + "\"D3\",\" GBP \",\"JPY\",\"2024-01-15 10:30:00\",\"2\"  \n"
+        + "\"D4 \"\"quoted\"\"\nwith break\",USD,EUR,2024-01-15 10:30:00,3\r"
+        + "D5,USD\n"
+        + "   \n"
+        + "D6,CHF,EUR,,,extra,\n"
+        + "D7 \"mid\" quote,Ünïcode,€,2024-01-15 10:30:00,4\n"
+        + ",,,,\n"
+        + "D8,USD,EUR,2024-01-15 10:30:00,";
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testNext_MatchesCommonsCsv() throws IOException {
+        List<List<String>> expected = parseWithCommonsCsv(TRICKY_CSV);
+        assertEquals(10, expected.size());
+        assertEquals(expected, tokenize(new ByteArrayInputStream(bytes(TRICKY_CSV))));
+        assertEquals(expected, tokenize(new OneByteInputStream(bytes(TRICKY_CSV))));
+        assertEquals(expected, tokenize(ByteBuffer.wrap(bytes(TRICKY_CSV))));
+    }
+
+    @Test
+    void testNext_MappedFileAcrossWindows() throws IOException {
+        Path file = tempDir.resolve("deals.csv");
+        Files.write(file, bytes(TRICKY_CSV));
+        List<List<String>> expected = parseWithCommonsCsv(TRICKY_CSV);
+
+        // Windows smaller than a record are grown, larger ones are remapped at the next record
+        for (int windowSize : new int[]{1, 7, 64, 1024}) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                DealCsvTokenizer tokenizer = new DealCsvTokenizer(channel, windowSize, true);
+                assertEquals(expected, tokenize(tokenizer), "window size " + windowSize);
+                assertEquals(Files.size(file), tokenizer.getBytesConsumed());
+            }
+        }
+    }
+
+    @Test
+    void testNext_MappedFileFromOffset() throws IOException {
+        Path file = tempDir.resolve("deals.csv");
+        Files.write(file, bytes(TRICKY_CSV));
+        List<List<String>> expected = parseWithCommonsCsv(TRICKY_CSV);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DealCsvTokenizer tokenizer = new DealCsvTokenizer(channel, 64, true);
+            for (int i = 0; i < 4; i++) {
+                assertTrue(tokenizer.next());
+            }
+            long offset = tokenizer.getBytesConsumed();
+
+            DealCsvTokenizer resumed = new DealCsvTokenizer(channel, offset, 7, false);
+            assertEquals(expected.subList(4, expected.size()), tokenize(resumed));
+            assertEquals(Files.size(file), resumed.getBytesConsumed());
+        }
+    }
+
+    @Test
+    void testNext_RecordLongerThanBuffer() throws IOException {
+        String dealId = "D".repeat(200_000);
+        String csv = HEADER + dealId + ",USD,EUR,2024-01-15 10:30:00,1\nD2,USD,EUR,2024-01-15 10:30:00,2\n";
+
+        List<List<String>> rows = tokenize(new ByteArrayInputStream(bytes(csv)));
+
+        assertEquals(2, rows.size());
+        assertEquals(dealId, rows.get(0).get(0));
+        assertEquals("D2", rows.get(1).get(0));
+    }
+
+    @Test
+    void testNext_MalformedQuotingFailsLikeCommonsCsv() {
+        String junkAfterQuote = HEADER + "D1,USD,EUR,2024-01-15 10:30:00,1\n\"D2\"x,USD,EUR,2024-01-15 10:30:00,2\n";
+        String unterminatedQuote = HEADER + "D1,USD,EUR,2024-01-15 10:30:00,1\n\"D2,USD,EUR\n";
+
+        for (String csv : List.of(junkAfterQuote, unterminatedQuote)) {
+            UncheckedIOException expected = assertThrows(UncheckedIOException.class, () -> parseWithCommonsCsv(csv));
+            IOException actual = assertThrows(IOException.class, () -> tokenize(new OneByteInputStream(bytes(csv))));
+            assertEquals(expected.getCause().getMessage(), actual.getMessage());
+        }
+    }
+
+    @Test
+    void testCheckComplete_ShortRecordFailsLikeCommonsCsv() throws IOException {
+        String csv = HEADER + "D1,USD,EUR\n";
+        DealCsvTokenizer tokenizer = new DealCsvTokenizer(new ByteArrayInputStream(bytes(csv)), true);
+        assertTrue(tokenizer.next());
+
+        IllegalArgumentException actual = assertThrows(IllegalArgumentException.class, tokenizer.row()::toDealDto);
+
+        CSVRecord record = parseRecords(csv).get(0);
+        IllegalArgumentException expected = assertThrows(IllegalArgumentException.class, () -> record.get("date_time"));
+        assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    void testSnapshot_KeepsRowAfterTokenizerMovesOn() throws IOException {
+        String csv = HEADER + "\"D1, \"\"one\"\"\",USD,EUR,2024-01-15 10:30:00,1\nD2,GBP,JPY,2024-01-16 10:30:00,2\n";
+        DealCsvTokenizer tokenizer = new DealCsvTokenizer(new ByteArrayInputStream(bytes(csv)), true);
+        assertTrue(tokenizer.next());
+        RawDealRecord snapshot = tokenizer.row().snapshot();
+        assertTrue(tokenizer.next());
+
+        assertEquals("D1, \"one\"", snapshot.toDealDto().getDealId());
+        assertEquals("USD", snapshot.toDealDto().getFromCurrency());
+        assertEquals("1", snapshot.toDealDto().getAmount());
+        assertEquals("D2", tokenizer.row().getDealId().toString());
+        assertEquals(bytes(csv).length, tokenizer.getBytesConsumed());
+    }
+
+    private static List<List<String>> tokenize(InputStream input) throws IOException {
+        return tokenize(new DealCsvTokenizer(input, true));
+    }
+
+    private static List<List<String>> tokenize(ByteBuffer content) throws IOException {
+        return tokenize(new DealCsvTokenizer(content, true));
+    }
+
+    private static List<List<String>> tokenize(DealCsvTokenizer tokenizer) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        while (tokenizer.next()) {
+            DealRowView row = tokenizer.row();
+            rows.add(Arrays.asList(string(row.getDealId()), string(row.getFromCurrency()), string(row.getToCurrency()),
+                string(row.getDateTime()), string(row.getAmount())));
+        }
+        return rows;
+    }
+
+    /** Rows are compared by their five deal fields, missing ones are null */
+    private static List<List<String>> parseWithCommonsCsv(String csv) {
+        return parseRecords(csv).stream()
+            .map(record -> IntStream.range(0, DealCsvTokenizer.CSV_HEADERS.length)
+                .mapToObj(i -> i < record.size() ? record.get(i) : null)
+                .toList())
+            .toList();
+    }
+
+    private static String string(CharSequence field) {
+        return field != null ? field.toString() : null;
+    }
+
+    private static List<CSVRecord> parseRecords(String csv) {
+        try (CSVParser parser = new CSVParser(new StringReader(csv), COMMONS_CSV_FORMAT)) {
+            return parser.getRecords();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] bytes(String csv) {
+        return csv.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands out one byte per read, so every record is cut off at the end of the buffer
+     */
+    private static class OneByteInputStream extends FilterInputStream {
+
+        OneByteInputStream(byte[] bytes) {
+            super(new ByteArrayInputStream(bytes));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.exception.UploadThrottledException;
+import com.example.dealsystem.service.admission.IngestionAdmission;
+import com.example.dealsystem.service.deals.AccumulativeCountService;
+import com.example.dealsystem.service.deals.CopyDealWriter;
+import com.example.dealsystem.service.deals.DealService;
+import com.example.dealsystem.service.deals.FileCurrencyCountService;
+import com.example.dealsystem.service.deals.JdbcDealWriter;
+import com.example.dealsystem.service.deals.JpaDealWriter;
+import com.example.dealsystem.service.json.DealJsonReader;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import com.example.dealsystem.validation.DealValidator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileUploadServiceTest {
+
+    private static final String HEADER = "deal_id,from_currency,to_currency,date_time,amount\n";
+
+    @Mock
+    private DealService dealService;
+
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    @Mock
+    private ImportHeartbeat importHeartbeat;
+
+    @Mock
+    private JpaDealWriter jpaDealWriter;
+
+    @Mock
+    private CopyDealWriter copyDealWriter;
+
+    @Mock
+    private JdbcDealWriter jdbcDealWriter;
+
+    @Mock
+    private ParallelCsvParser parallelCsvParser;
+
+    @Mock
+    private DealJsonReader dealJsonReader;
+
+    @Mock
+    private AccumulativeCountService accumulativeCountService;
+
+    @Mock
+    private FileCurrencyCountService fileCurrencyCountService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private IngestionProperties ingestionProperties;
+    private FileUploadService fileUploadService;
+    private TransactionLog transactionLog;
+
+    @BeforeEach
+    void setUp() {
+        ingestionProperties = new IngestionProperties();
+        ingestionProperties.setMode(IngestionProperties.Mode.CHUNKED);
+        fileUploadService = newFileUploadService(importHeartbeat,
+            new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry()));
+        transactionLog = new TransactionLog("deals.csv");
+        transactionLog.setId(1L);
+    }
+
+    @Test
+    void testUploadStreamedFile_FailedChunkIsRetriedRowByRow() {
+        when(dealService.processChunk(anyList(), eq("deals.csv"), eq(1L), eq(jpaDealWriter), any()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+        when(dealService.processDeal(argThat(row -> row != null && row.getRowNumber() == 2), eq("deals.csv"), eq(1L), any()))
+            .thenReturn(validDeal("D1"));
+        when(dealService.processDeal(argThat(row -> row != null && row.getRowNumber() == 3), eq("deals.csv"), eq(1L), any()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        fileUploadService.uploadStreamedFile(content("D1,USD,EUR,2024-01-15 10:30:00,100.50\n"
+            + "D2,USD,EUR,2024-01-15 10:30:00,200.00\n"), transactionLog, false);
+
+        // The row that fails again is saved as invalid, no row of the chunk is lost
+        verify(dealService, times(1)).saveFailedDeal(argThat(row -> row.getRowNumber() == 3), eq(1L),
+            eq("value too long"), any());
+        verify(transactionLogService).saveCheckpoint(eq(1L), eq(2L), anyLong(), anyLong(), eq(1L), eq(0L));
+        verify(transactionLogService).saveCheckpoint(eq(1L), eq(3L), anyLong(), anyLong(), eq(1L), eq(1L));
+        verify(transactionLogService, times(1)).completeTransaction("deals.csv");
+    }
+
+    @Test
+    void testUploadStreamedFile_FailingInvalidRowFailsImport() {
+        when(dealService.processChunk(anyList(), eq("deals.csv"), eq(1L), eq(jpaDealWriter), any()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+        when(dealService.processDeal(any(DealRow.class), eq("deals.csv"), eq(1L), any()))
+            .thenThrow(new DataIntegrityViolationException("value too long"));
+        doThrow(new DataIntegrityViolationException("connection lost"))
+            .when(dealService).saveFailedDeal(any(), eq(1L), anyString(), any());
+
+        assertThrows(RuntimeException.class, () -> fileUploadService.uploadStreamedFile(
+            content("D1,USD,EUR,2024-01-15 10:30:00,100.50\n"), transactionLog, false));
+
+        // The import ends as failed and keeps the checkpoint before the row
+        verify(transactionLogService, never()).saveCheckpoint(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(),
+            anyLong());
+        verify(transactionLogService, never()).completeTransaction(anyString());
+        verify(transactionLogService, times(1)).failTransaction(eq("deals.csv"), anyString());
+    }
+
+    @Test
+    void testUploadStreamedFile_LeaseIsRenewedWhileWaitingForAdmission() throws Exception {
+        ingestionProperties.getAdmission().setMaxConcurrent(1);
+        IngestionAdmission admission = new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry());
+        ImportHeartbeat heartbeat = new ImportHeartbeat(transactionLogService);
+        FileUploadService service = newFileUploadService(heartbeat, admission);
+        IngestionAdmission.Permit runningImport = admission.admit(99L, false);
+
+        CompletableFuture<Void> upload = CompletableFuture.runAsync(() -> service.uploadStreamedFile(
+            content(""), transactionLog, false));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (admission.getWaiting() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, admission.getWaiting());
+
+        // A wait longer than the lease timeout spans several heartbeats, each one renews the lease
+        heartbeat.beat();
+        heartbeat.beat();
+        verify(transactionLogService, times(2)).renewHeartbeats(List.of(1L));
+
+        runningImport.close();
+        upload.get(5, TimeUnit.SECONDS);
+        verify(transactionLogService, times(1)).completeTransaction("deals.csv");
+
+        heartbeat.beat();
+        verify(transactionLogService, times(2)).renewHeartbeats(anyCollection());
+    }
+
+    @Test
+    void testUploadArrivingFile_NotHeldUpByAdmission() {
+        ingestionProperties.getAdmission().setMaxConcurrent(1);
+        IngestionAdmission admission = new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry());
+        FileUploadService service = newFileUploadService(importHeartbeat, admission);
+        IngestionAdmission.Permit runningImport = admission.admit(99L, false);
+
+        // Runs on the calling thread, it would wait forever if it were admitted
+        service.uploadArrivingFile(content(""), transactionLog, false);
+
+        verify(transactionLogService, times(1)).completeTransaction("deals.csv");
+        assertEquals(1, admission.getRunning());
+        runningImport.close();
+    }
+
+    @Test
+    void testUploadJsonDeals_RejectedUploadReleasesLease() {
+        ingestionProperties.getAdmission().setMaxConcurrent(1);
+        ingestionProperties.getAdmission().setQueueCapacity(0);
+        IngestionAdmission admission = new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry());
+        ImportHeartbeat heartbeat = new ImportHeartbeat(transactionLogService);
+        FileUploadService service = newFileUploadService(heartbeat, admission);
+        admission.admit(99L, false);
+
+        assertThrows(UploadThrottledException.class, () -> service.uploadJsonDeals(
+            new ByteArrayInputStream(new byte[0]), transactionLog, false));
+
+        heartbeat.beat();
+        verify(transactionLogService, never()).renewHeartbeats(anyCollection());
+        verify(transactionLogService, times(1)).delete(transactionLog);
+    }
+
+    private FileUploadService newFileUploadService(ImportHeartbeat heartbeat, IngestionAdmission admission) {
+        return new FileUploadService(dealService, transactionLogService, heartbeat, admission, ingestionProperties,
+            jpaDealWriter, copyDealWriter, jdbcDealWriter, parallelCsvParser, new DealRowFactory(new DealValidator()),
+            dealJsonReader, accumulativeCountService, fileCurrencyCountService, transactionManager, entityManager);
+    }
+
+    private static ByteArrayInputStream content(String rows) {
+        return new ByteArrayInputStream((HEADER + rows).getBytes());
+    }
+
+    private static ValidDeal validDeal(String dealId) {
+        ValidDeal validDeal = new ValidDeal();
+        validDeal.setDealId(dealId);
+        validDeal.setFromCurrency(CurrencyCode.USD);
+        validDeal.setToCurrency(CurrencyCode.EUR);
+        validDeal.setDateTime(LocalDateTime.of(2024, 1, 15, 10, 30));
+        validDeal.setAmount(new BigDecimal("100.50"));
+        return validDeal;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.dealsystem.service.csv;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.validation.DealValidator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvParserTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private ParallelCsvParser parallelCsvParser;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.setParallelism(4);
+        // Tiny ranges so that nearly every record ends up in its own range
+        ingestionProperties.setParseRangeSize(DataSize.ofBytes(16));
+        parallelCsvParser = new ParallelCsvParser(new DealRowFactory(new DealValidator()), ingestionProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        parallelCsvParser.shutdown();
+    }
+
+    @Test
+    void testParse_KeepsRowNumbersAndOrder() throws IOException {
+        StringBuilder csv = new StringBuilder("deal_id,from_currency,to_currency,date_time,amount\n");
+        for (int i = 1; i <= 200; i++) {
+            csv.append("D").append(i).append(",USD,EUR,2024-01-15 10:30:00,").append(i).append("\n");
+        }
+        Path file = write(csv.toString());
+
+        List<DealRow> rows = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        parallelCsvParser.parse(file, range -> {
+            rows.addAll(range.getRows());
+            offsets.add(range.getEndOffset());
+        });
+
+        assertEquals(200, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(i + 2, rows.get(i).getRowNumber());
+            assertEquals("D" + (i + 1), rows.get(i).getDeal().getDealId());
+            assertNotNull(rows.get(i).getValidDeal());
+        }
+        assertTrue(offsets.size() > 1);
+        assertEquals(Files.size(file), offsets.get(offsets.size() - 1));
+    }
+
+    @Test
+    void testParse_ResumesAfterRowEndOffset() throws IOException {
+        StringBuilder csv = new StringBuilder("deal_id,from_currency,to_currency,date_time,amount\n");
+        for (int i = 1; i <= 100; i++) {
+            csv.append("\"D").append(i).append("\nquoted\",USD,EUR,2024-01-15 10:30:00,").append(i).append("\n");
+        }
+        Path file = write(csv.toString());
+        List<DealRow> allRows = new ArrayList<>();
+        parallelCsvParser.parse(file, range -> allRows.addAll(range.getRows()));
+
+        // Resume as if the rows up to D40 had been committed
+        DealRow checkpoint = allRows.get(39);
+        List<DealRow> resumedRows = new ArrayList<>();
+        parallelCsvParser.parse(file, checkpoint.getEndOffset(), checkpoint.getRowNumber(),
+            range -> resumedRows.addAll(range.getRows()));
+
+        List<DealRow> expected = allRows.subList(40, 100);
+        assertEquals(expected.stream().map(DealRow::getDealId).toList(),
+            resumedRows.stream().map(DealRow::getDealId).toList());
+        assertEquals(expected.stream().map(DealRow::getRowNumber).toList(),
+            resumedRows.stream().map(DealRow::getRowNumber).toList());
+        assertEquals(expected.stream().map(DealRow::getEndOffset).toList(),
+            resumedRows.stream().map(DealRow::getEndOffset).toList());
+        assertEquals(Files.size(file), resumedRows.get(resumedRows.size() - 1).getEndOffset());
+    }
+
+    @Test
+    void testParse_QuotedLineBreaksDoNotSplitRecords() throws IOException {
+        Path file = write("deal_id,from_currency,to_currency,date_time,amount\n"
+            + "\"D1\nwith\nbreaks\",USD,EUR,2024-01-15 10:30:00,10\n"
+            + "\"D2 \"\"quoted\"\"\n,still D2\",USD,EUR,2024-01-15 10:30:00,20\n"
+            + "\n"
+            + "D3,XXX,EUR,2024-01-15 10:30:00,30\n"
+            + "D4,USD,EUR,2024-01-15 10:30:00,40");
+
+        List<DealRow> rows = new ArrayList<>();
+        parallelCsvParser.parse(file, range -> rows.addAll(range.getRows()));
+
+        assertEquals(4, rows.size());
+        assertEquals("D1\nwith\nbreaks", rows.get(0).getDeal().getDealId());
+        assertEquals("D2 \"quoted\"\n,still D2", rows.get(1).getDeal().getDealId());
+        assertEquals(List.of(2, 3, 4, 5), rows.stream().map(DealRow::getRowNumber).toList());
+        assertFalse(rows.get(2).getValidationResult().isValid());
+        assertEquals("Invalid From Currency code: XXX", rows.get(2).getValidationResult().getErrorMessage());
+        assertEquals("D4", rows.get(3).getDeal().getDealId());
+    }
+
+    @Test
+    void testParse_ReportsUnmappableRowsWithTheirRowNumber() throws IOException {
+        Path file = write("deal_id,from_currency,to_currency,date_time,amount\n"
+            + "D1,USD,EUR,2024-01-15 10:30:00,10\n"
+            + "D2,USD\n"
+            + "D3,USD,EUR,2024-01-15 10:30:00,30\n");
+
+        List<DealRow> rows = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        parallelCsvParser.parse(file, range -> {
+            rows.addAll(range.getRows());
+            errors.addAll(range.getErrors());
+        });
+
+        assertEquals(List.of(2, 4), rows.stream().map(DealRow::getRowNumber).toList());
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0).startsWith("Row 3: "));
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("deals.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+}
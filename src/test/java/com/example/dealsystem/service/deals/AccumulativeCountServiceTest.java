@@ -0,0 +1,142 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.AccumulativeDealCount;
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.DealCountDelta;
+import com.example.dealsystem.repository.AccumulativeDealCountRepository;
+import com.example.dealsystem.repository.DealCountDeltaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccumulativeCountServiceTest {
+
+    @Mock
+    private AccumulativeDealCountRepository accumulativeDealCountRepository;
+
+    @Mock
+    private DealCountDeltaRepository dealCountDeltaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IngestionProperties ingestionProperties;
+    private AccumulativeCountService accumulativeCountService;
+
+    @BeforeEach
+    void setUp() {
+        ingestionProperties = new IngestionProperties();
+        accumulativeCountService = newAccumulativeCountService();
+    }
+
+    @Test
+    void testRecord_SavesDeltasWithoutTouchingTotals() {
+        CurrencyCounts currencyCounts = new CurrencyCounts();
+        currencyCounts.add(CurrencyCode.USD, 2);
+        currencyCounts.add(CurrencyCode.EUR, 1);
+
+        accumulativeCountService.record("deals.csv", currencyCounts);
+
+        verify(dealCountDeltaRepository, times(1)).saveAll(argThat(deltas -> deltas.spliterator().getExactSizeIfKnown() == 2));
+        verifyNoInteractions(accumulativeDealCountRepository);
+    }
+
+    @Test
+    void testFlush_AppliesDeltasAtomically() {
+        List<DealCountDelta> deltas = List.of(
+            delta(1L, CurrencyCode.USD, 2),
+            delta(2L, CurrencyCode.USD, 3),
+            delta(3L, CurrencyCode.EUR, 1));
+        when(dealCountDeltaRepository.lockUnclaimed()).thenReturn(deltas);
+        when(dealCountDeltaRepository.deleteByIdIn(List.of(1L, 2L, 3L))).thenReturn(3);
+        when(accumulativeDealCountRepository.incrementCountByCurrencyCode(CurrencyCode.USD, 5L)).thenReturn(1);
+        when(accumulativeDealCountRepository.incrementCountByCurrencyCode(CurrencyCode.EUR, 1L)).thenReturn(0);
+
+        assertEquals(3, accumulativeCountService.flush());
+
+        verify(accumulativeDealCountRepository, times(1)).save(argThat(count ->
+            count.getCurrencyCode() == CurrencyCode.EUR && count.getCountOfDeals() == 1L));
+        verify(accumulativeDealCountRepository, never()).findByCurrencyCode(any());
+    }
+
+    @Test
+    void testFlush_DeltasLockedByAnotherFlushAreSkipped() {
+        // Another node holds the locks of all delta rows
+        when(dealCountDeltaRepository.lockUnclaimed()).thenReturn(List.of());
+
+        assertEquals(0, accumulativeCountService.flush());
+
+        verify(dealCountDeltaRepository, never()).deleteByIdIn(any());
+        verify(accumulativeDealCountRepository, never()).incrementCountByCurrencyCode(any(), anyLong());
+    }
+
+    @Test
+    void testGetCounts_AddsUnflushedDeltasOfAllNodes() {
+        AccumulativeDealCount usd = new AccumulativeDealCount(CurrencyCode.USD);
+        usd.setCountOfDeals(10L);
+        when(accumulativeDealCountRepository.findAll()).thenReturn(List.of(usd));
+        // Deltas recorded by this and other nodes, not flushed yet
+        when(dealCountDeltaRepository.sumCountsGroupByCurrency()).thenReturn(List.of(
+            new Object[] {CurrencyCode.USD, 2L},
+            new Object[] {CurrencyCode.GBP, 4L}));
+
+        assertEquals(Map.of(CurrencyCode.USD, 12L, CurrencyCode.GBP, 4L), accumulativeCountService.getCounts());
+    }
+
+    @Test
+    void testGetCounts_ReadOncePerCacheTtl() {
+        AccumulativeDealCount usd = new AccumulativeDealCount(CurrencyCode.USD);
+        usd.setCountOfDeals(10L);
+        when(accumulativeDealCountRepository.findAll()).thenReturn(List.of(usd));
+
+        assertEquals(Map.of(CurrencyCode.USD, 10L), accumulativeCountService.getCounts());
+        // Counts recorded within the TTL show up once it has expired
+        CurrencyCounts currencyCounts = new CurrencyCounts();
+        currencyCounts.add(CurrencyCode.USD, 2);
+        accumulativeCountService.record("deals.csv", currencyCounts);
+
+        assertEquals(Map.of(CurrencyCode.USD, 10L), accumulativeCountService.getCounts());
+        verify(accumulativeDealCountRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testGetCounts_ReadAgainOnceCacheTtlExpired() {
+        ingestionProperties.getAccumulativeCounts().setCacheTtl(Duration.ZERO);
+        accumulativeCountService = newAccumulativeCountService();
+        AccumulativeDealCount usd = new AccumulativeDealCount(CurrencyCode.USD);
+        usd.setCountOfDeals(10L);
+        when(accumulativeDealCountRepository.findAll()).thenReturn(List.of(usd));
+
+        assertEquals(Map.of(CurrencyCode.USD, 10L), accumulativeCountService.getCounts());
+        when(dealCountDeltaRepository.sumCountsGroupByCurrency())
+            .thenReturn(List.<Object[]>of(new Object[] {CurrencyCode.USD, 2L}));
+
+        assertEquals(Map.of(CurrencyCode.USD, 12L), accumulativeCountService.getCounts());
+        verify(accumulativeDealCountRepository, times(2)).findAll();
+    }
+
+    private AccumulativeCountService newAccumulativeCountService() {
+        return new AccumulativeCountService(accumulativeDealCountRepository, dealCountDeltaRepository,
+            transactionManager, ingestionProperties);
+    }
+
+    private static DealCountDelta delta(Long id, CurrencyCode currency, long count) {
+        DealCountDelta delta = new DealCountDelta("deals.csv", currency, count);
+        delta.setId(id);
+        return delta;
+    }
+}
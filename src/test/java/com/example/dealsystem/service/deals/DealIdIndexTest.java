@@ -0,0 +1,107 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class DealIdIndexTest {
+
+    private DealIdRegistryRepository dealIdRegistryRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private IngestionProperties ingestionProperties;
+
+    @BeforeEach
+    void setUp() {
+        dealIdRegistryRepository = mock(DealIdRegistryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ingestionProperties = new IngestionProperties();
+        ingestionProperties.getIdIndex().setEnabled(true);
+        ingestionProperties.getIdIndex().setMemoryBudget(DataSize.ofKilobytes(64));
+        ingestionProperties.getIdIndex().setExpectedDeals(10_000);
+    }
+
+    @Test
+    void testRebuild_ContainsStreamedAndAddedDealIds() {
+        List<String> existing = IntStream.range(0, 5_000).mapToObj(i -> "DEAL" + i).toList();
+        when(dealIdRegistryRepository.streamAllDealIds()).thenReturn(existing.stream());
+        DealIdIndex index = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, meterRegistry);
+
+        index.rebuild();
+        index.addAll(List.of("NEW1", "NEW2"));
+
+        assertTrue(index.isReady());
+        existing.forEach(dealId -> assertTrue(index.mightContain(dealId), dealId));
+        assertTrue(index.mightContain("NEW1"));
+        assertTrue(index.mightContain("NEW2"));
+        long falsePositives = IntStream.range(0, 10_000).filter(i -> index.mightContain("OTHER" + i)).count();
+        assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+        assertTrue(index.getExpectedFalsePositiveRate() < 0.01);
+    }
+
+    @Test
+    void testFindExisting_NotReadyLooksUpEveryDealId() {
+        DealIdIndex index = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, meterRegistry);
+        when(dealIdRegistryRepository.findExistingDealIds(anyCollection())).thenReturn(Set.of("DEAL1"));
+
+        Set<String> existing = index.findExisting(Set.of("DEAL1", "DEAL2"), dealIdRegistryRepository::findExistingDealIds);
+
+        assertEquals(Set.of("DEAL1"), existing);
+        verify(dealIdRegistryRepository).findExistingDealIds(Set.of("DEAL1", "DEAL2"));
+        assertTrue(index.mightContain("DEAL2"));
+    }
+
+    @Test
+    void testFindExisting_OnlyLooksUpDealIdsThatMayExist() {
+        when(dealIdRegistryRepository.streamAllDealIds()).thenReturn(Stream.of("DEAL1"));
+        DealIdIndex index = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, meterRegistry);
+        index.rebuild();
+        when(dealIdRegistryRepository.findExistingDealIds(anyCollection())).thenReturn(Set.of("DEAL1"));
+
+        Set<String> existing = index.findExisting(Set.of("DEAL1", "DEAL2", "DEAL3"), dealIdRegistryRepository::findExistingDealIds);
+
+        assertEquals(Set.of("DEAL1"), existing);
+        verify(dealIdRegistryRepository).findExistingDealIds(Set.of("DEAL1"));
+        assertEquals(2, meterRegistry.get("deal.id.index.lookups").tag("result", "definitely_new").counter().count());
+        assertEquals(1, meterRegistry.get("deal.id.index.lookups").tag("result", "maybe_present").counter().count());
+        assertEquals(0, meterRegistry.get("deal.id.index.false.positive.rate").gauge().value());
+    }
+
+    @Test
+    void testExists_CountsFalsePositives() {
+        when(dealIdRegistryRepository.streamAllDealIds()).thenReturn(Stream.of("DEAL1"));
+        DealIdIndex index = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, meterRegistry);
+        index.rebuild();
+
+        // The database no longer has DEAL1, e.g. it was deleted by hand
+        assertFalse(index.exists("DEAL1", dealId -> false));
+        assertFalse(index.exists("DEAL2", dealId -> fail("definitely new deal ID looked up")));
+
+        assertEquals(1, meterRegistry.get("deal.id.index.false.positives").counter().count());
+        assertEquals(0.5, meterRegistry.get("deal.id.index.false.positive.rate").gauge().value());
+    }
+
+    @Test
+    void testRebuild_DisabledNeverSkipsLookups() {
+        ingestionProperties.getIdIndex().setEnabled(false);
+        DealIdIndex index = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, meterRegistry);
+
+        index.rebuild();
+        index.addAll(List.of("DEAL1"));
+
+        assertFalse(index.isReady());
+        assertTrue(index.mightContain("DEAL2"));
+        verify(dealIdRegistryRepository, never()).streamAllDealIds();
+    }
+}
@@ -1,28 +1,40 @@
 package com.example.dealsystem.service.deals;
 
-import com.example.dealsystem.domain.AccumulativeDealCount;
+import com.example.dealsystem.config.IngestionProperties;
 import com.example.dealsystem.domain.CurrencyCode;
 import com.example.dealsystem.domain.InvalidDeal;
 import com.example.dealsystem.domain.ValidDeal;
-import com.example.dealsystem.repository.AccumulativeDealCountRepository;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
 import com.example.dealsystem.repository.InvalidDealRepository;
 import com.example.dealsystem.repository.ValidDealRepository;
 import com.example.dealsystem.dto.DealDto;
+import com.example.dealsystem.dto.DealRow;
+import com.example.dealsystem.service.logging.ImportErrorDigest;
 import com.example.dealsystem.validation.DealValidator;
+import com.example.dealsystem.validation.ErrorCategory;
+import com.example.dealsystem.validation.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,20 +47,29 @@ class DealServiceTest {
     private InvalidDealRepository invalidDealRepository;
 
     @Mock
-    private AccumulativeDealCountRepository accumulativeDealCountRepository;
+    private DealIdRegistryRepository dealIdRegistryRepository;
 
     @Mock
     private DealValidator dealValidator;
 
+    /** Not rebuilt, so every duplicate check goes to the repository */
+    @Spy
+    private DealIdIndex dealIdIndex = new DealIdIndex(new IngestionProperties(), null, new SimpleMeterRegistry());
+
     @InjectMocks
     private DealService dealService;
 
+    @Captor
+    private ArgumentCaptor<List<InvalidDeal>> invalidDeals;
+
     private DealDto validDealDto;
     private String fileName;
+    private ImportErrorDigest errorDigest;
 
     @BeforeEach
     void setUp() {
         fileName = "test_deals.csv";
+        errorDigest = new ImportErrorDigest(fileName, 5);
         validDealDto = new DealDto();
         validDealDto.setDealId("DEAL001");
         validDealDto.setFromCurrency("USD");
@@ -59,74 +80,140 @@ class DealServiceTest {
 
     @Test
     void testProcessDeal_ValidDeal() {
-        when(validDealRepository.existsByDealId(anyString())).thenReturn(false);
+        when(dealIdRegistryRepository.existsByDealId(anyString())).thenReturn(false);
         when(dealValidator.validate(any(DealDto.class)))
             .thenReturn(new DealValidator.ValidationResult(true, null));
         when(validDealRepository.save(any(ValidDeal.class))).thenReturn(new ValidDeal());
 
-        dealService.processDeal(validDealDto, fileName, "row data");
+        dealService.processDeal(new DealRow(2, validDealDto), fileName, 7L, errorDigest);
 
-        verify(validDealRepository, times(1)).existsByDealId(validDealDto.getDealId());
+        verify(dealIdRegistryRepository, times(1)).existsByDealId(validDealDto.getDealId());
         verify(dealValidator, times(1)).validate(validDealDto);
         verify(validDealRepository, times(1)).save(any(ValidDeal.class));
+        verify(dealIdRegistryRepository, times(1)).save(argThat(r -> r.getDealId().equals("DEAL001")));
         verify(invalidDealRepository, never()).save(any(InvalidDeal.class));
     }
 
     @Test
     void testProcessDeal_DuplicateDealId() {
-        when(validDealRepository.existsByDealId(anyString())).thenReturn(true);
+        when(dealIdRegistryRepository.existsByDealId(anyString())).thenReturn(true);
         when(invalidDealRepository.save(any(InvalidDeal.class))).thenReturn(new InvalidDeal());
 
-        dealService.processDeal(validDealDto, fileName, "row data");
+        dealService.processDeal(new DealRow(2, validDealDto), fileName, 7L, errorDigest);
 
-        verify(validDealRepository, times(1)).existsByDealId(validDealDto.getDealId());
+        verify(dealIdRegistryRepository, times(1)).existsByDealId(validDealDto.getDealId());
         verify(dealValidator, never()).validate(any(DealDto.class));
         verify(invalidDealRepository, times(1)).save(any(InvalidDeal.class));
         verify(validDealRepository, never()).save(any(ValidDeal.class));
+        assertEquals(1, errorDigest.getCount(ErrorCategory.DUPLICATE_DEAL_ID));
     }
 
     @Test
     void testProcessDeal_InvalidDeal() {
-        when(validDealRepository.existsByDealId(anyString())).thenReturn(false);
+        when(dealIdRegistryRepository.existsByDealId(anyString())).thenReturn(false);
         when(dealValidator.validate(any(DealDto.class)))
             .thenReturn(new DealValidator.ValidationResult(false, "Invalid currency"));
         when(invalidDealRepository.save(any(InvalidDeal.class))).thenReturn(new InvalidDeal());
 
-        dealService.processDeal(validDealDto, fileName, "row data");
+        dealService.processDeal(new DealRow(2, validDealDto), fileName, 7L, errorDigest);
 
-        verify(validDealRepository, times(1)).existsByDealId(validDealDto.getDealId());
+        verify(dealIdRegistryRepository, times(1)).existsByDealId(validDealDto.getDealId());
         verify(dealValidator, times(1)).validate(validDealDto);
         verify(invalidDealRepository, times(1)).save(any(InvalidDeal.class));
         verify(validDealRepository, never()).save(any(ValidDeal.class));
     }
 
     @Test
-    void testUpdateAccumulativeCounts() {
-        ValidDeal deal1 = new ValidDeal();
-        deal1.setFileName(fileName);
-        deal1.setFromCurrency(CurrencyCode.USD);
-
-        ValidDeal deal2 = new ValidDeal();
-        deal2.setFileName(fileName);
-        deal2.setFromCurrency(CurrencyCode.USD);
-
-        ValidDeal deal3 = new ValidDeal();
-        deal3.setFileName(fileName);
-        deal3.setFromCurrency(CurrencyCode.EUR);
+    void testProcessDeal_MissingDealIdWithReadyIndex() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getIdIndex().setEnabled(true);
+        DealIdIndex rebuiltIndex = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, new SimpleMeterRegistry());
+        when(dealIdRegistryRepository.streamAllDealIds()).thenReturn(Stream.of("DEAL002"));
+        rebuiltIndex.rebuild();
+        DealService indexedDealService = new DealService(validDealRepository, invalidDealRepository,
+            dealIdRegistryRepository, dealValidator, rebuiltIndex);
+        DealDto missingDealId = copyOf(validDealDto, null);
+        when(dealValidator.validate(missingDealId))
+            .thenReturn(new DealValidator.ValidationResult(ErrorCode.DEAL_ID_MISSING, null));
+
+        indexedDealService.processDeal(new DealRow(2, missingDealId), fileName, 7L, errorDigest);
+
+        verify(dealIdRegistryRepository, never()).existsByDealId(any());
+        verify(invalidDealRepository, times(1)).save(argThat(deal -> deal.getErrorCode() == ErrorCode.DEAL_ID_MISSING));
+        verify(validDealRepository, never()).save(any(ValidDeal.class));
+    }
 
-        List<ValidDeal> allDeals = List.of(deal1, deal2, deal3);
+    @Test
+    void testProcessChunk_ResolvesDuplicatesWithSingleLookup() {
+        DealDto existingDeal = copyOf(validDealDto, "DEAL002");
+        DealDto repeatedDeal = copyOf(validDealDto, "DEAL001");
+        DealDto invalidDeal = copyOf(validDealDto, "DEAL003");
+        invalidDeal.setAmount("-5");
+        List<DealRow> rows = List.of(
+            new DealRow(2, validDealDto),
+            new DealRow(3, existingDeal),
+            new DealRow(4, repeatedDeal),
+            new DealRow(5, invalidDeal));
+
+        when(dealIdRegistryRepository.findExistingDealIds(anyCollection())).thenReturn(Set.of("DEAL002"));
+        when(dealValidator.validate(validDealDto))
+            .thenReturn(new DealValidator.ValidationResult(true, null));
+        when(dealValidator.validate(invalidDeal))
+            .thenReturn(new DealValidator.ValidationResult(ErrorCode.AMOUNT_NOT_POSITIVE, null));
+
+        DealService.ChunkResult result = dealService.processChunk(rows, fileName, 7L,
+            new JpaDealWriter(validDealRepository, invalidDealRepository, dealIdRegistryRepository), errorDigest);
+
+        assertEquals(1, result.getValidCount());
+        assertEquals(1, result.getCurrencyCounts().get(CurrencyCode.USD));
+        assertEquals(3, result.getInvalidCount());
+        assertEquals(2, errorDigest.getCount(ErrorCategory.DUPLICATE_DEAL_ID));
+        assertEquals(1, errorDigest.getCount(ErrorCategory.INVALID_AMOUNT));
+        assertEquals(List.of("Row 5 (deal DEAL003): Deal amount must be greater than zero"),
+            errorDigest.getExamples(ErrorCategory.INVALID_AMOUNT));
+        verify(dealIdRegistryRepository, times(1)).findExistingDealIds(anyCollection());
+        verify(dealIdRegistryRepository, never()).existsByDealId(anyString());
+        verify(validDealRepository, times(1)).saveAll(anyList());
+        verify(dealIdRegistryRepository, times(1)).saveAll(anyList());
+        verify(invalidDealRepository, times(1)).saveAll(invalidDeals.capture());
+        verify(validDealRepository, never()).save(any(ValidDeal.class));
+        verify(invalidDealRepository, never()).save(any(InvalidDeal.class));
+        // Invalid deals reference the transaction log and store the error as a code with the rejected value
+        assertEquals(List.of(ErrorCode.DUPLICATE_DEAL_ID, ErrorCode.DUPLICATE_DEAL_ID, ErrorCode.AMOUNT_NOT_POSITIVE),
+            invalidDeals.getValue().stream().map(InvalidDeal::getErrorCode).toList());
+        assertEquals("DEAL002", invalidDeals.getValue().get(0).getErrorDetail());
+        assertEquals("Deal ID already exists: DEAL002", invalidDeals.getValue().get(0).getErrorMessage());
+        assertEquals(7L, invalidDeals.getValue().get(0).getTransactionLogId());
+    }
 
-        // Mock repository correctly
-        when(validDealRepository.findByFileName(fileName)).thenReturn(allDeals);
-        when(accumulativeDealCountRepository.findByCurrencyCode(CurrencyCode.USD))
-                .thenReturn(Optional.empty());
-        when(accumulativeDealCountRepository.findByCurrencyCode(CurrencyCode.EUR))
-                .thenReturn(Optional.empty());
+    @Test
+    void testProcessChunk_IndexSkipsLookupForNewDealIds() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getIdIndex().setEnabled(true);
+        DealIdIndex rebuiltIndex = new DealIdIndex(ingestionProperties, dealIdRegistryRepository, new SimpleMeterRegistry());
+        when(dealIdRegistryRepository.streamAllDealIds()).thenReturn(Stream.of("DEAL002"));
+        rebuiltIndex.rebuild();
+        DealService indexedDealService = new DealService(validDealRepository, invalidDealRepository,
+            dealIdRegistryRepository, dealValidator, rebuiltIndex);
+        List<DealRow> rows = List.of(
+            new DealRow(2, validDealDto),
+            new DealRow(3, copyOf(validDealDto, "DEAL002")));
+
+        when(dealIdRegistryRepository.findExistingDealIds(Set.of("DEAL002"))).thenReturn(Set.of("DEAL002"));
+        when(dealValidator.validate(validDealDto))
+            .thenReturn(new DealValidator.ValidationResult(true, null));
 
-        dealService.updateAccumulativeCounts(fileName);
+        DealService.ChunkResult result = indexedDealService.processChunk(rows, fileName, 7L,
+            new JpaDealWriter(validDealRepository, invalidDealRepository, dealIdRegistryRepository), errorDigest);
 
-        verify(accumulativeDealCountRepository, times(2)).save(any(AccumulativeDealCount.class));
+        assertEquals(1, result.getValidCount());
+        assertEquals(1, result.getInvalidCount());
+        verify(dealIdRegistryRepository, times(1)).findExistingDealIds(Set.of("DEAL002"));
+        assertTrue(rebuiltIndex.mightContain("DEAL001"));
     }
 
+    private DealDto copyOf(DealDto source, String dealId) {
+        return new DealDto(dealId, source.getFromCurrency(), source.getToCurrency(),
+            source.getDateTime(), source.getAmount());
+    }
 }
-
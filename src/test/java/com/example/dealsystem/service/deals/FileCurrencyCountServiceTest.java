@@ -0,0 +1,59 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.repository.FileCurrencyCountRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FileCurrencyCountServiceTest {
+
+    @Mock
+    private FileCurrencyCountRepository fileCurrencyCountRepository;
+
+    @InjectMocks
+    private FileCurrencyCountService fileCurrencyCountService;
+
+    @Test
+    void testRecord_IncrementsExistingPairsAndInsertsNewOnes() {
+        CurrencyPairTotals totals = new CurrencyPairTotals();
+        totals.add(CurrencyCode.USD, CurrencyCode.EUR, 1, new BigDecimal("100.00"));
+        totals.add(CurrencyCode.USD, CurrencyCode.EUR, 1, new BigDecimal("50.25"));
+        totals.add(CurrencyCode.GBP, CurrencyCode.JPY, 1, new BigDecimal("10.00"));
+        when(fileCurrencyCountRepository.increment("deals.csv", CurrencyCode.USD, CurrencyCode.EUR, 2L,
+            new BigDecimal("150.25"))).thenReturn(1);
+        when(fileCurrencyCountRepository.increment("deals.csv", CurrencyCode.GBP, CurrencyCode.JPY, 1L,
+            new BigDecimal("10.00"))).thenReturn(0);
+
+        fileCurrencyCountService.record("deals.csv", totals);
+
+        verify(fileCurrencyCountRepository, times(1)).save(argThat(count ->
+            count.getFromCurrency() == CurrencyCode.GBP && count.getToCurrency() == CurrencyCode.JPY
+                && count.getCountOfDeals() == 1L && new BigDecimal("10.00").equals(count.getAmountSum())));
+    }
+
+    @Test
+    void testRecord_EmptyTotalsTouchNothing() {
+        fileCurrencyCountService.record("deals.csv", new CurrencyPairTotals());
+
+        verifyNoInteractions(fileCurrencyCountRepository);
+    }
+
+    @Test
+    void testCurrencyPairTotals_ConflictsAreTakenBack() {
+        CurrencyPairTotals totals = new CurrencyPairTotals();
+        totals.add(CurrencyCode.USD, CurrencyCode.EUR, 2, new BigDecimal("30.00"));
+        totals.add(CurrencyCode.USD, CurrencyCode.EUR, -1, new BigDecimal("10.00").negate());
+
+        assertEquals(1L, totals.toCurrencyCounts().get(CurrencyCode.USD));
+        totals.forEach((from, to, count, amount) -> assertEquals(new BigDecimal("20.00"), amount));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.dealsystem.service.deals;
+
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.InvalidDeal;
+import com.example.dealsystem.domain.ValidDeal;
+import com.example.dealsystem.repository.InvalidDealRepository;
+import com.example.dealsystem.repository.ValidDealRepository;
+import com.example.dealsystem.validation.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JdbcDealWriterTest {
+
+    @Autowired
+    private JdbcDealWriter jdbcDealWriter;
+
+    @Autowired
+    private JpaDealWriter jpaDealWriter;
+
+    @Autowired
+    private ValidDealRepository validDealRepository;
+
+    @Autowired
+    private InvalidDealRepository invalidDealRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testWriteValidDeals_ReadBackThroughRepository() {
+        ValidDeal jdbcDeal = validDeal("JDBC-1");
+        ValidDeal jpaDeal = validDeal("JPA-1");
+        transactionTemplate.executeWithoutResult(status -> {
+            assertTrue(jdbcDealWriter.writeValidDeals(List.of(jdbcDeal)).isEmpty());
+            jpaDealWriter.writeValidDeals(List.of(jpaDeal));
+        });
+
+        ValidDeal saved = validDealRepository.findByDealId("JDBC-1").orElseThrow();
+        assertEquals(jdbcDeal.getId(), saved.getId());
+        assertNotNull(saved.getCreatedAt());
+        assertEquals("jdbc-writer.csv", saved.getFileName());
+        assertEquals(CurrencyCode.USD, saved.getFromCurrency());
+        assertEquals(CurrencyCode.EUR, saved.getToCurrency());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), saved.getDateTime());
+        assertEquals(new BigDecimal("100.50"), saved.getAmount());
+        // Both writers draw ids from the same sequence
+        assertNotEquals(jdbcDeal.getId(), validDealRepository.findByDealId("JPA-1").orElseThrow().getId());
+    }
+
+    @Test
+    void testWriteInvalidDeals_ReadBackThroughRepository() {
+        InvalidDeal deal = new InvalidDeal();
+        deal.setTransactionLogId(42L);
+        deal.setDealId("JDBC-2");
+        deal.setFromCurrency("XXX");
+        deal.setToCurrency("EUR");
+        deal.setDateTime("not a date");
+        deal.setAmount("-1");
+        deal.setErrorCode(ErrorCode.FROM_CURRENCY_INVALID);
+        deal.setErrorDetail("XXX");
+        transactionTemplate.executeWithoutResult(status -> jdbcDealWriter.writeInvalidDeals(List.of(deal)));
+
+        InvalidDeal saved = invalidDealRepository.findById(deal.getId()).orElseThrow();
+        assertNotNull(saved.getCreatedAt());
+        assertEquals(42L, saved.getTransactionLogId());
+        assertEquals("JDBC-2", saved.getDealId());
+        assertEquals("XXX", saved.getFromCurrency());
+        assertEquals("EUR", saved.getToCurrency());
+        assertEquals("not a date", saved.getDateTime());
+        assertEquals("-1", saved.getAmount());
+        assertEquals(ErrorCode.FROM_CURRENCY_INVALID, saved.getErrorCode());
+        assertEquals("Invalid From Currency code: XXX", saved.getErrorMessage());
+    }
+
+    private static ValidDeal validDeal(String dealId) {
+        ValidDeal deal = ValidDeal.valueOf(dealId, CurrencyCode.USD, CurrencyCode.EUR,
+            LocalDateTime.of(2024, 1, 15, 10, 30), new BigDecimal("100.50"));
+        deal.setFileName("jdbc-writer.csv");
+        return deal;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportRecoveryServiceTest {
+
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    @Mock
+    private UploadJobService uploadJobService;
+
+    @Mock
+    private ImportHeartbeat importHeartbeat;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private IngestionProperties ingestionProperties;
+    private ImportRecoveryService importRecoveryService;
+    private TransactionLog transactionLog;
+    private Duration leaseTimeout;
+
+    @BeforeEach
+    void setUp() {
+        ingestionProperties = new IngestionProperties();
+        leaseTimeout = ingestionProperties.getRecovery().getLeaseTimeout();
+        // Run recoveries on the calling thread
+        TaskExecutor executor = Runnable::run;
+        importRecoveryService = new ImportRecoveryService(transactionLogService, uploadJobService, importHeartbeat,
+            ingestionProperties, executor);
+
+        transactionLog = new TransactionLog("deals.csv");
+        transactionLog.setId(7L);
+        transactionLog.setCheckpointRow(1001L);
+        transactionLog.setCheckpointOffset(64_000L);
+    }
+
+    @Test
+    void testRecoverExpiredImports_ResumesFromSpooledFile() throws Exception {
+        Path spoolFile = Files.writeString(spoolDirectory.resolve("upload-7.csv"), "deal_id\n");
+        transactionLog.setSpoolFile(spoolFile.toString());
+        when(transactionLogService.findExpired(leaseTimeout)).thenReturn(List.of(transactionLog));
+        when(transactionLogService.claimExpired(7L, leaseTimeout)).thenReturn(true);
+
+        importRecoveryService.recoverExpiredImports();
+
+        verify(uploadJobService, times(1)).resumeJob(transactionLog);
+        verify(transactionLogService, never()).rollbackImport(any());
+        verify(importHeartbeat, times(1)).register(7L);
+        verify(importHeartbeat, times(1)).release(7L);
+    }
+
+    @Test
+    void testRecoverExpiredImports_RollsBackWithoutSpooledFile() {
+        transactionLog.setSpoolFile(spoolDirectory.resolve("other-node.csv").toString());
+        when(transactionLogService.findExpired(leaseTimeout)).thenReturn(List.of(transactionLog));
+        when(transactionLogService.claimExpired(7L, leaseTimeout)).thenReturn(true);
+
+        importRecoveryService.recoverExpiredImports();
+
+        verify(transactionLogService, times(1)).rollbackImport(transactionLog);
+        verify(uploadJobService, never()).resumeJob(any());
+        verify(importHeartbeat, times(1)).release(7L);
+    }
+
+    @Test
+    void testRecoverExpiredImports_SkipsImportTakenOverByAnotherNode() {
+        when(transactionLogService.findExpired(leaseTimeout)).thenReturn(List.of(transactionLog));
+        when(transactionLogService.claimExpired(7L, leaseTimeout)).thenReturn(false);
+
+        importRecoveryService.recoverExpiredImports();
+
+        verify(importHeartbeat, never()).register(any());
+        verify(uploadJobService, never()).resumeJob(any());
+        verify(transactionLogService, never()).rollbackImport(any());
+    }
+
+    @Test
+    void testRecoverExpiredImports_QueueFull() {
+        TaskExecutor fullExecutor = task -> {
+            throw new TaskRejectedException("queue full");
+        };
+        importRecoveryService = new ImportRecoveryService(transactionLogService, uploadJobService, importHeartbeat,
+            ingestionProperties, fullExecutor);
+        TransactionLog other = new TransactionLog("other.csv");
+        other.setId(8L);
+        when(transactionLogService.findExpired(leaseTimeout)).thenReturn(List.of(transactionLog, other));
+        when(transactionLogService.claimExpired(7L, leaseTimeout)).thenReturn(true);
+
+        importRecoveryService.recoverExpiredImports();
+
+        // The lease is given up and the remaining imports are left for a later run
+        verify(importHeartbeat, times(1)).release(7L);
+        verify(transactionLogService, never()).claimExpired(8L, leaseTimeout);
+    }
+}
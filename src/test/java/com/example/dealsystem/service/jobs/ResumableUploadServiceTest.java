@@ -0,0 +1,126 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.ResumableUploadDto;
+import com.example.dealsystem.exception.UploadJobNotFoundException;
+import com.example.dealsystem.service.admission.IngestionAdmission;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResumableUploadServiceTest {
+
+    private static final String CSV = "deal_id,from_currency,to_currency,date_time,amount\n"
+        + "D1,USD,EUR,2024-01-15 10:30:00,100.50\n";
+
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private ImportHeartbeat importHeartbeat;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private ResumableUploadService resumableUploadService;
+    private CompletableFuture<Void> job;
+    private TransactionLog transactionLog;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getAsync().setSpoolDirectory(spoolDirectory);
+        ingestionProperties.getResumable().setChunkSize(DataSize.ofBytes(32));
+        // Run the job on its own thread, it reads the file while the test sends the chunks
+        TaskExecutor resumableUploadExecutor = task -> job = CompletableFuture.runAsync(task);
+        // Resumable uploads never wait for the workers of background upload jobs
+        TaskExecutor uploadJobExecutor = task -> fail("Resumable upload queued on the upload job workers");
+        UploadJobService uploadJobService = new UploadJobService(transactionLogService, fileUploadService,
+            ingestionProperties, importHeartbeat,
+            new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry()), uploadJobExecutor);
+        resumableUploadService = new ResumableUploadService(uploadJobService, fileUploadService, transactionLogService,
+            ingestionProperties, resumableUploadExecutor);
+
+        transactionLog = new TransactionLog("deals.csv");
+        transactionLog.setId(7L);
+        transactionLog.setBytesTotal((long) CSV.length());
+    }
+
+    @Test
+    void testUpload_ImportReadsChunksAsTheyArrive() throws Exception {
+        when(transactionLogService.save(any(TransactionLog.class))).thenReturn(transactionLog);
+        when(transactionLogService.startTransaction(7L)).thenReturn(transactionLog);
+        AtomicReference<String> imported = new AtomicReference<>();
+        doAnswer(invocation -> {
+            InputStream content = invocation.getArgument(0);
+            imported.set(new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            return null;
+        }).when(fileUploadService).uploadArrivingFile(any(InputStream.class), eq(transactionLog), eq(false));
+
+        ResumableUploadDto upload = resumableUploadService.initiate("deals.csv", CSV.length(), false);
+        assertEquals(7L, upload.getJobId());
+        assertEquals(3, upload.getChunkCount());
+
+        resumableUploadService.writeChunk(7L, 2, chunk(2));
+        resumableUploadService.writeChunk(7L, 0, chunk(0));
+        resumableUploadService.writeChunk(7L, 1, chunk(1));
+        assertEquals(CSV.length(), resumableUploadService.getStatus(7L).getBytesReceived());
+        resumableUploadService.complete(7L);
+        job.get(5, TimeUnit.SECONDS);
+
+        assertEquals(CSV, imported.get());
+        // The import can be resumed from the spooled file once the upload is complete
+        verify(transactionLogService, times(1)).recordSpoolFile(7L, spoolDirectory.resolve("upload-7.csv"));
+        verify(importHeartbeat, times(1)).release(7L);
+        assertFalse(Files.exists(spoolDirectory.resolve("upload-7.csv")));
+        // The upload is gone once its import has ended
+        assertThrows(UploadJobNotFoundException.class, () -> resumableUploadService.getStatus(7L));
+    }
+
+    @Test
+    void testInitiate_FileTooLarge() {
+        assertThrows(IllegalArgumentException.class,
+            () -> resumableUploadService.initiate("deals.csv", DataSize.ofGigabytes(11).toBytes(), false));
+        verify(transactionLogService, never()).save(any(TransactionLog.class));
+    }
+
+    @Test
+    void testWriteChunk_UnknownUpload() {
+        assertThrows(UploadJobNotFoundException.class,
+            () -> resumableUploadService.writeChunk(99L, 0, chunk(0)));
+    }
+
+    private static InputStream chunk(int index) {
+        byte[] bytes = CSV.getBytes(StandardCharsets.UTF_8);
+        int from = index * 32;
+        return new ByteArrayInputStream(bytes, from, Math.min(32, bytes.length - from));
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.exception.UploadIncompleteException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumableUploadTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private ResumableUpload upload;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 20 bytes in chunks of 8, 8 and 4 bytes
+        upload = new ResumableUpload(7L, "deals.csv", spoolDirectory.resolve("upload-7.csv"), CONTENT.length(), 8);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        upload.close();
+    }
+
+    @Test
+    void testWriteChunk_OutOfOrderAtTheirPositions() throws IOException {
+        assertTrue(upload.writeChunk(2, chunk(2)));
+        assertTrue(upload.writeChunk(0, chunk(0)));
+
+        assertEquals(List.of(0, 2), upload.getReceivedChunkNumbers());
+        assertEquals(12L, upload.getBytesReceived());
+        assertThrows(UploadIncompleteException.class, upload::complete);
+
+        assertTrue(upload.writeChunk(1, chunk(1)));
+        upload.complete();
+
+        assertEquals(CONTENT, Files.readString(upload.getSpoolFile()));
+        assertEquals(20L, upload.getBytesReceived());
+    }
+
+    @Test
+    void testWriteChunk_ReceivedChunkIsNotWrittenAgain() throws IOException {
+        assertTrue(upload.writeChunk(0, chunk(0)));
+
+        assertFalse(upload.writeChunk(0, stream("XXXXXXXX")));
+        assertEquals(CONTENT.substring(0, 8), Files.readString(upload.getSpoolFile()).substring(0, 8));
+    }
+
+    @Test
+    void testWriteChunk_WrongSize() {
+        assertThrows(IllegalArgumentException.class, () -> upload.writeChunk(0, stream("0123")));
+        assertThrows(IllegalArgumentException.class, () -> upload.writeChunk(2, stream("ghijk")));
+        assertThrows(IllegalArgumentException.class, () -> upload.writeChunk(3, stream("")));
+
+        // A chunk that failed is not received and can be sent again
+        assertEquals(List.of(), upload.getReceivedChunkNumbers());
+    }
+
+    @Test
+    void testOpenContent_ReadsPrefixWhileChunksArrive() throws Exception {
+        InputStream content = upload.openContent(Duration.ofSeconds(10));
+        upload.writeChunk(0, chunk(0));
+        upload.writeChunk(2, chunk(2));
+
+        // Only the prefix up to the first missing chunk can be read
+        assertEquals(CONTENT.substring(0, 8), new String(content.readNBytes(8), StandardCharsets.UTF_8));
+        CompletableFuture<String> rest = CompletableFuture.supplyAsync(() -> {
+            try {
+                return new String(content.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(rest.isDone());
+
+        upload.writeChunk(1, chunk(1));
+        Thread.sleep(100);
+        // All chunks have arrived, the content only ends once the upload is complete
+        assertFalse(rest.isDone());
+
+        upload.complete();
+        assertEquals(CONTENT.substring(8), rest.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testOpenContent_AbandonedAfterIdleTimeout() throws IOException {
+        InputStream content = upload.openContent(Duration.ofMillis(50));
+        upload.writeChunk(0, chunk(0));
+        content.readNBytes(8);
+
+        IOException e = assertThrows(IOException.class, content::read);
+        assertTrue(e.getMessage().contains("abandoned"));
+    }
+
+    private static InputStream chunk(int index) {
+        return stream(CONTENT.substring(index * 8, Math.min(index * 8 + 8, CONTENT.length())));
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.dealsystem.service.jobs;
+
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.UploadJobStatusDto;
+import com.example.dealsystem.exception.DuplicateContentException;
+import com.example.dealsystem.exception.DuplicateFileException;
+import com.example.dealsystem.exception.UploadJobNotFoundException;
+import com.example.dealsystem.exception.UploadRejectedException;
+import com.example.dealsystem.service.admission.IngestionAdmission;
+import com.example.dealsystem.service.csv.FileUploadService;
+import com.example.dealsystem.service.logging.ImportHeartbeat;
+import com.example.dealsystem.service.logging.TransactionLogService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UploadJobServiceTest {
+
+    @Mock
+    private TransactionLogService transactionLogService;
+
+    @Mock
+    private FileUploadService fileUploadService;
+
+    @Mock
+    private ImportHeartbeat importHeartbeat;
+
+    @TempDir
+    private Path spoolDirectory;
+
+    private UploadJobService uploadJobService;
+    private MockMultipartFile file;
+    private TransactionLog transactionLog;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getAsync().setSpoolDirectory(spoolDirectory);
+        // Run jobs on the calling thread
+        TaskExecutor executor = Runnable::run;
+        uploadJobService = new UploadJobService(transactionLogService, fileUploadService, ingestionProperties, importHeartbeat,
+            new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry()), executor);
+
+        file = new MockMultipartFile("file", "deals.csv", "text/csv",
+            "deal_id,from_currency,to_currency,date_time,amount\nD1,USD,EUR,2024-01-15 10:30:00,100.50\n".getBytes());
+        transactionLog = new TransactionLog("deals.csv");
+        transactionLog.setId(7L);
+    }
+
+    @Test
+    void testSubmit_SpoolsAndProcessesFile() {
+        when(transactionLogService.save(any(TransactionLog.class))).thenReturn(transactionLog);
+        when(transactionLogService.startTransaction(7L)).thenReturn(transactionLog);
+        doAnswer(invocation -> {
+            Path spoolFile = invocation.getArgument(0);
+            assertTrue(Files.exists(spoolFile));
+            assertEquals(file.getSize(), Files.size(spoolFile));
+            return null;
+        }).when(fileUploadService).uploadSpooledFile(any(Path.class), eq(transactionLog), eq(true));
+
+        TransactionLog result = uploadJobService.submit(file, true);
+
+        assertEquals(7L, result.getId());
+        verify(fileUploadService, times(1)).uploadSpooledFile(any(Path.class), eq(transactionLog), eq(true));
+        // The lease is kept while the job is queued and running
+        verify(importHeartbeat, times(1)).register(7L);
+        verify(importHeartbeat, times(1)).release(7L);
+        assertFalse(Files.exists(spoolDirectory.resolve("upload-7.csv")));
+    }
+
+    @Test
+    void testSubmit_DuplicateFile() {
+        when(transactionLogService.isFileAlreadyImported("deals.csv")).thenReturn(true);
+
+        assertThrows(DuplicateFileException.class, () -> uploadJobService.submit(file, false));
+        verify(transactionLogService, never()).save(any(TransactionLog.class));
+    }
+
+    @Test
+    void testSubmit_DuplicateContent() {
+        when(transactionLogService.save(any(TransactionLog.class))).thenReturn(transactionLog);
+        doThrow(new DuplicateContentException("same content", 3L))
+            .when(transactionLogService).recordContentHash(eq(transactionLog), anyString());
+
+        DuplicateContentException e = assertThrows(DuplicateContentException.class, () -> uploadJobService.submit(file, false));
+
+        assertEquals(3L, e.getOriginalImportId());
+        // The upload is dropped before it is queued and parsed
+        verify(transactionLogService, times(1)).delete(transactionLog);
+        verify(fileUploadService, never()).uploadSpooledFile(any(Path.class), any(TransactionLog.class), anyBoolean());
+        assertFalse(Files.exists(spoolDirectory.resolve("upload-7.csv")));
+    }
+
+    @Test
+    void testSubmit_QueueFull() {
+        IngestionProperties ingestionProperties = new IngestionProperties();
+        ingestionProperties.getAsync().setSpoolDirectory(spoolDirectory);
+        TaskExecutor fullExecutor = task -> {
+            throw new TaskRejectedException("queue full");
+        };
+        uploadJobService = new UploadJobService(transactionLogService, fileUploadService, ingestionProperties, importHeartbeat,
+            new IngestionAdmission(ingestionProperties, new SimpleMeterRegistry()), fullExecutor);
+        when(transactionLogService.save(any(TransactionLog.class))).thenReturn(transactionLog);
+
+        assertThrows(UploadRejectedException.class, () -> uploadJobService.submit(file, false));
+        // The file name is released so the upload can be retried
+        verify(transactionLogService, times(1)).delete(transactionLog);
+        verify(importHeartbeat, times(1)).release(7L);
+        assertFalse(Files.exists(spoolDirectory.resolve("upload-7.csv")));
+    }
+
+    @Test
+    void testGetStatus_NotFound() {
+        when(transactionLogService.findById(99L)).thenReturn(null);
+
+        assertThrows(UploadJobNotFoundException.class, () -> uploadJobService.getStatus(99L));
+    }
+
+    @Test
+    void testToStatus_EstimatesRemainingTime() {
+        LocalDateTime startedAt = LocalDateTime.of(2024, 1, 15, 10, 0, 0);
+        transactionLog.setStartedAt(startedAt);
+        transactionLog.setBytesTotal(1000L);
+        transactionLog.setBytesProcessed(250L);
+        transactionLog.setRowsProcessed(50L);
+        transactionLog.setValidCount(45L);
+        transactionLog.setInvalidCount(5L);
+
+        UploadJobStatusDto status = uploadJobService.toStatus(transactionLog, startedAt.plusSeconds(10));
+
+        assertEquals("PROCESSING", status.getStatus());
+        assertEquals(25, status.getPercentComplete());
+        assertEquals(30L, status.getEtaSeconds());
+        assertEquals(50L, status.getRowsProcessed());
+        assertEquals(45L, status.getValidCount());
+        assertEquals(5L, status.getInvalidCount());
+    }
+}
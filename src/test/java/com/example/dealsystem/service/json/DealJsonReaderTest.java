@@ -0,0 +1,86 @@
+package com.example.dealsystem.service.json;
+
+import com.example.dealsystem.dto.DealRow;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealJsonReaderTest {
+
+    private final DealJsonReader dealJsonReader = new DealJsonReader(new ObjectMapper());
+    private final List<DealRow> rows = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+
+    @Test
+    void testRead_NewlineDelimited() throws IOException {
+        read("""
+            {"dealId":"D1","fromCurrency":"USD","toCurrency":"EUR","dateTime":"2024-01-15 10:30:00","amount":"100.50"}
+            {"dealId":"D2","fromCurrency":"GBP","toCurrency":"JPY","dateTime":"2024-01-15 11:00:00","amount":"200"}
+            """);
+
+        assertEquals(2, rows.size());
+        assertTrue(errors.isEmpty());
+        assertEquals(1, rows.get(0).getRowNumber());
+        assertEquals("D1", rows.get(0).getDeal().getDealId());
+        assertEquals("USD", rows.get(0).getDeal().getFromCurrency());
+        assertEquals("EUR", rows.get(0).getDeal().getToCurrency());
+        assertEquals("2024-01-15 10:30:00", rows.get(0).getDeal().getDateTime());
+        assertEquals("100.50", rows.get(0).getDeal().getAmount());
+        assertEquals(2, rows.get(1).getRowNumber());
+        assertEquals("D2", rows.get(1).getDealId());
+        assertTrue(rows.get(0).getEndOffset() < rows.get(1).getEndOffset());
+    }
+
+    @Test
+    void testRead_ArrayWithNumbersAndUnknownFields() throws IOException {
+        read("""
+            [
+              {"dealId":"D1","fromCurrency":"USD","toCurrency":"EUR","dateTime":"2024-01-15 10:30:00","amount":100.5,"desk":{"id":3}},
+              {"dealId":"D2","amount":["1"]}
+            ]
+            """);
+
+        assertEquals(2, rows.size());
+        assertEquals("100.5", rows.get(0).getDeal().getAmount());
+        // A nested value is no field value, the field is left empty for validation to reject
+        assertNull(rows.get(1).getDeal().getAmount());
+        assertNull(rows.get(1).getDeal().getFromCurrency());
+    }
+
+    @Test
+    void testRead_ValueThatIsNotADeal() throws IOException {
+        read("""
+            {"dealId":"D1"}
+            42
+            [1, 2]
+            {"dealId":"D4"}
+            """);
+
+        assertEquals(List.of("D1", "D4"), rows.stream().map(DealRow::getDealId).toList());
+        assertEquals(4, rows.get(1).getRowNumber());
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0).startsWith("Row 2:"));
+        assertTrue(errors.get(1).startsWith("Row 3:"));
+    }
+
+    @Test
+    void testRead_MalformedJson() {
+        assertThrows(JsonParseException.class, () -> read("""
+            {"dealId":"D1"}
+            {"dealId":
+            """));
+        assertEquals(1, rows.size());
+    }
+
+    private void read(String json) throws IOException {
+        dealJsonReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), rows::add, errors::add);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.dealsystem.service.logging;
+
+import com.example.dealsystem.validation.ErrorCategory;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImportErrorDigestTest {
+
+    @Test
+    void testRecord_CountsPerCategoryAndKeepsFirstExamples() {
+        ImportErrorDigest digest = new ImportErrorDigest("deals.csv", 2);
+
+        for (int row = 2; row <= 6; row++) {
+            digest.record(ErrorCategory.INVALID_CURRENCY, "Row " + row + ": Invalid From Currency code: XXX");
+        }
+        digest.record(ErrorCategory.DUPLICATE_DEAL_ID, "Row 7: Deal ID already exists: D1");
+
+        assertEquals(6, digest.getTotal());
+        assertEquals(5, digest.getCount(ErrorCategory.INVALID_CURRENCY));
+        assertEquals(1, digest.getCount(ErrorCategory.DUPLICATE_DEAL_ID));
+        assertEquals(0, digest.getCount(ErrorCategory.MISSING_FIELD));
+        assertEquals(List.of("Row 2: Invalid From Currency code: XXX", "Row 3: Invalid From Currency code: XXX"),
+            digest.getExamples(ErrorCategory.INVALID_CURRENCY));
+        assertEquals(List.of(), digest.getExamples(ErrorCategory.MISSING_FIELD));
+    }
+
+    @Test
+    void testToString_SummarizesCategoriesInOrder() {
+        ImportErrorDigest digest = new ImportErrorDigest("deals.csv", 1);
+        digest.record(ErrorCategory.DUPLICATE_DEAL_ID, "Row 3: Deal ID already exists: D1");
+        digest.record(ErrorCategory.MISSING_FIELD, "Row 4: Deal ID is missing or empty");
+        digest.record(ErrorCategory.MISSING_FIELD, "Row 5: Deal ID is missing or empty");
+
+        assertEquals("3 total, MISSING_FIELD=2 [Row 4: Deal ID is missing or empty], "
+            + "DUPLICATE_DEAL_ID=1 [Row 3: Deal ID already exists: D1]", digest.toString());
+    }
+
+    @Test
+    void testRecord_NoExamplesWhenDisabled() {
+        ImportErrorDigest digest = new ImportErrorDigest("deals.csv", 0);
+
+        digest.record(ErrorCategory.MALFORMED_ROW, "Row 2: Expected 5 fields");
+
+        assertEquals(1, digest.getCount(ErrorCategory.MALFORMED_ROW));
+        assertEquals(List.of(), digest.getExamples(ErrorCategory.MALFORMED_ROW));
+        assertEquals("1 total, MALFORMED_ROW=1", digest.toString());
+    }
+}
@@ -1,21 +1,35 @@
 package com.example.dealsystem.service.logging;
 
+import com.example.dealsystem.config.IngestionProperties;
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.FileCurrencyCount;
 import com.example.dealsystem.domain.TransactionLog;
+import com.example.dealsystem.dto.SummaryDto;
+import com.example.dealsystem.exception.DuplicateContentException;
+import com.example.dealsystem.repository.DealIdRegistryRepository;
 import com.example.dealsystem.repository.InvalidDealRepository;
 import com.example.dealsystem.repository.TransactionLogRepository;
 import com.example.dealsystem.repository.ValidDealRepository;
+import com.example.dealsystem.service.deals.AccumulativeCountService;
+import com.example.dealsystem.service.deals.CurrencyCounts;
+import com.example.dealsystem.service.deals.FileCurrencyCountService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,7 +44,15 @@ class TransactionLogServiceTest {
     @Mock
     private InvalidDealRepository invalidDealRepository;
 
-    @InjectMocks
+    @Mock
+    private DealIdRegistryRepository dealIdRegistryRepository;
+
+    @Mock
+    private FileCurrencyCountService fileCurrencyCountService;
+
+    @Mock
+    private AccumulativeCountService accumulativeCountService;
+
     private TransactionLogService transactionLogService;
 
     private TransactionLog transactionLog;
@@ -38,6 +60,9 @@ class TransactionLogServiceTest {
 
     @BeforeEach
     void setUp() {
+        transactionLogService = new TransactionLogService(transactionLogRepository, validDealRepository,
+            invalidDealRepository, dealIdRegistryRepository, fileCurrencyCountService, accumulativeCountService,
+            new IngestionProperties());
         fileName = "test_deals.csv";
         transactionLog = new TransactionLog(fileName);
         transactionLog.setId(1L);
@@ -53,23 +78,84 @@ class TransactionLogServiceTest {
         verify(transactionLogRepository, times(1)).save(transactionLog);
     }
 
+    @Test
+    void testRecordContentHash() {
+        when(transactionLogRepository.findByContentHash("abc")).thenReturn(Optional.empty());
+
+        transactionLogService.recordContentHash(transactionLog, "abc");
+
+        verify(transactionLogRepository, times(1)).updateContentHash(1L, "abc");
+        assertEquals("abc", transactionLog.getContentHash());
+    }
+
+    @Test
+    void testRecordContentHash_SameContentAlreadyImported() {
+        TransactionLog original = new TransactionLog("original.csv");
+        original.setId(5L);
+        when(transactionLogRepository.findByContentHash("abc")).thenReturn(Optional.of(original));
+
+        DuplicateContentException e = assertThrows(DuplicateContentException.class,
+            () -> transactionLogService.recordContentHash(transactionLog, "abc"));
+
+        assertEquals(5L, e.getOriginalImportId());
+        assertTrue(e.getMessage().contains("original.csv"));
+        verify(transactionLogRepository, never()).updateContentHash(any(), anyString());
+    }
+
+    @Test
+    void testRecordContentHash_SameContentAfterFailedImport() {
+        transactionLog.setContentHash("abc");
+        when(transactionLogRepository.findByFileName(fileName)).thenReturn(Optional.of(transactionLog));
+        when(transactionLogRepository.findByContentHash("abc")).thenAnswer(invocation ->
+            Optional.of(transactionLog).filter(log -> "abc".equals(log.getContentHash())));
+        transactionLogService.failTransaction(fileName, "Test error");
+
+        TransactionLog retry = new TransactionLog("retry.csv");
+        retry.setId(2L);
+        transactionLogService.recordContentHash(retry, "abc");
+
+        assertNull(transactionLog.getContentHash());
+        verify(transactionLogRepository, times(1)).updateContentHash(2L, "abc");
+        assertEquals("abc", retry.getContentHash());
+    }
+
     @Test
     void testCompleteTransaction() {
         when(transactionLogRepository.findByFileName(fileName))
             .thenReturn(Optional.of(transactionLog));
         when(validDealRepository.countByFileName(fileName)).thenReturn(10L);
-        when(invalidDealRepository.countByFileName(fileName)).thenReturn(2L);
+        when(invalidDealRepository.countByTransactionLogId(1L)).thenReturn(2L);
         when(transactionLogRepository.save(any(TransactionLog.class))).thenReturn(transactionLog);
 
         transactionLogService.completeTransaction(fileName);
 
         assertEquals(10L, transactionLog.getValidCount());
         assertEquals(2L, transactionLog.getInvalidCount());
+        assertEquals(12L, transactionLog.getRowsProcessed());
         assertEquals(TransactionLog.TransactionStatus.COMPLETED, transactionLog.getStatus());
         assertNotNull(transactionLog.getCompletedAt());
         verify(transactionLogRepository, times(1)).save(transactionLog);
     }
 
+    @Test
+    void testStartTransaction() {
+        transactionLog.setStatus(TransactionLog.TransactionStatus.QUEUED);
+        when(transactionLogRepository.findById(1L)).thenReturn(Optional.of(transactionLog));
+        when(transactionLogRepository.save(any(TransactionLog.class))).thenReturn(transactionLog);
+
+        TransactionLog result = transactionLogService.startTransaction(1L);
+
+        assertEquals(TransactionLog.TransactionStatus.PROCESSING, result.getStatus());
+        assertNotNull(result.getStartedAt());
+    }
+
+    @Test
+    void testUpdateProgress() {
+        transactionLogService.updateProgress(1L, 1000L, 990L, 10L, 65536L);
+
+        verify(transactionLogRepository, times(1)).updateProgress(1L, 1000L, 990L, 10L, 65536L);
+    }
+
     @Test
     void testFailTransaction() {
         String errorMessage = "Test error";
@@ -85,6 +171,95 @@ class TransactionLogServiceTest {
         verify(transactionLogRepository, times(1)).save(transactionLog);
     }
 
+    @Test
+    void testClaimExpired_OnlyOneNodeWins() {
+        when(transactionLogRepository.claimExpired(eq(1L), any(), any(), any())).thenReturn(1, 0);
+
+        assertTrue(transactionLogService.claimExpired(1L, Duration.ofMinutes(2)));
+        assertFalse(transactionLogService.claimExpired(1L, Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void testRollbackImport_DeletesDealsAndTakesBackCounts() {
+        when(fileCurrencyCountService.findByFileName(fileName)).thenReturn(List.of(
+            new FileCurrencyCount(fileName, CurrencyCode.EUR, CurrencyCode.USD, 3L, new BigDecimal("300.00")),
+            new FileCurrencyCount(fileName, CurrencyCode.USD, CurrencyCode.EUR, 4L, new BigDecimal("400.00")),
+            new FileCurrencyCount(fileName, CurrencyCode.USD, CurrencyCode.GBP, 3L, new BigDecimal("300.00"))));
+        when(validDealRepository.deleteByFileName(fileName)).thenReturn(10);
+        when(invalidDealRepository.deleteByTransactionLogId(1L)).thenReturn(2);
+
+        transactionLogService.rollbackImport(transactionLog);
+
+        ArgumentCaptor<CurrencyCounts> counts = ArgumentCaptor.forClass(CurrencyCounts.class);
+        verify(accumulativeCountService, times(1)).record(eq(fileName), counts.capture());
+        assertEquals(-7L, counts.getValue().get(CurrencyCode.USD));
+        assertEquals(-3L, counts.getValue().get(CurrencyCode.EUR));
+        // The deal IDs of the file can be imported again
+        verify(dealIdRegistryRepository, times(1)).deleteByFileName(fileName);
+        verify(fileCurrencyCountService, times(1)).deleteByFileName(fileName);
+        // The file can be uploaded again
+        verify(transactionLogRepository, times(1)).deleteById(1L);
+    }
+
+    @Test
+    void testToSummary_IncludesCurrencyBreakdown() {
+        when(fileCurrencyCountService.findByFileName(fileName)).thenReturn(List.of(
+            new FileCurrencyCount(fileName, CurrencyCode.EUR, CurrencyCode.USD, 3L, new BigDecimal("300.50"))));
+        transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+
+        SummaryDto summary = transactionLogService.toSummary(transactionLog);
+
+        assertEquals(1, summary.getCurrencyBreakdown().size());
+        assertEquals("EUR", summary.getCurrencyBreakdown().get(0).getFromCurrency());
+        assertEquals("USD", summary.getCurrencyBreakdown().get(0).getToCurrency());
+        assertEquals(3L, summary.getCurrencyBreakdown().get(0).getCountOfDeals());
+        assertEquals(new BigDecimal("300.50"), summary.getCurrencyBreakdown().get(0).getAmountSum());
+        // Read from the breakdown recorded during ingestion, not from the deals
+        verifyNoInteractions(validDealRepository);
+    }
+
+    @Test
+    void testFindSummary_CompletedSummaryIsReadOnce() {
+        transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+        transactionLog.setCompletedAt(LocalDateTime.of(2024, 1, 15, 10, 30));
+        when(transactionLogRepository.findByFileName(fileName)).thenReturn(Optional.of(transactionLog));
+
+        TransactionLogService.VersionedSummary first = transactionLogService.findSummary(fileName);
+        TransactionLogService.VersionedSummary second = transactionLogService.findSummary(fileName);
+
+        assertSame(first, second);
+        assertTrue(first.getLastModified() > 0);
+        verify(transactionLogRepository, times(1)).findByFileName(fileName);
+        verify(fileCurrencyCountService, times(1)).findByFileName(fileName);
+    }
+
+    @Test
+    void testFindSummary_RunningSummaryIsReadEveryTime() {
+        transactionLog.setRowsProcessed(10L);
+        when(transactionLogRepository.findByFileName(fileName)).thenReturn(Optional.of(transactionLog));
+
+        TransactionLogService.VersionedSummary first = transactionLogService.findSummary(fileName);
+        transactionLog.setRowsProcessed(20L);
+        TransactionLogService.VersionedSummary second = transactionLogService.findSummary(fileName);
+
+        assertEquals(-1, first.getLastModified());
+        // Progress changes the ETag, so pollers get the new summary
+        assertNotEquals(first.getETag(), second.getETag());
+        verify(transactionLogRepository, times(2)).findByFileName(fileName);
+    }
+
+    @Test
+    void testFindSummary_DeletedTransactionLogIsNotServedFromCache() {
+        transactionLog.setStatus(TransactionLog.TransactionStatus.COMPLETED);
+        when(transactionLogRepository.findByFileName(fileName))
+            .thenReturn(Optional.of(transactionLog), Optional.empty());
+        assertNotNull(transactionLogService.findSummary(fileName));
+
+        transactionLogService.delete(transactionLog);
+
+        assertNull(transactionLogService.findSummary(fileName));
+    }
+
     @Test
     void testIsFileAlreadyImported() {
         when(transactionLogRepository.existsByFileName(fileName)).thenReturn(true);
@@ -0,0 +1,63 @@
+package com.example.dealsystem.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DealFieldParserTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Test
+    void testParseDateTime_MatchesFormatter() {
+        List<String> values = List.of(
+            "2024-01-15 10:30:00", "2024-12-31 23:59:59", "0001-01-01 00:00:00", "9999-12-31 23:59:59",
+            "2024-02-29 10:30:00", "2023-02-29 10:30:00", "2024-02-30 10:30:00", "2024-04-31 00:00:00",
+            "2024-02-32 10:30:00", "2024-13-01 10:30:00", "2024-00-01 10:30:00", "2024-01-00 10:30:00",
+            "2024-01-15 24:00:00", "2024-12-31 24:00:00", "2024-02-30 24:00:00", "2024-01-15 24:00:01",
+            "2024-01-15 23:60:00", "2024-01-15 23:59:60", "0000-01-15 10:30:00", "-2024-01-15 10:30:00",
+            "+12345-01-15 10:30:00", "+2024-01-15 10:30:00", "+0002024-01-15 10:30:00", "12345-01-15 10:30:00",
+            "2024-1-15 10:30:00", "2024-01-15T10:30:00", "2024/01/15 10:30:00", "2024-01-15 10:30:00.5",
+            "2024-01-15  10:30:0", "2024-01-15 1a:30:00", "2024-01-15", "invalid-date", "", "+");
+
+        for (String value : values) {
+            assertEquals(formatterResult(value), DealFieldParser.parseDateTime(value), value);
+        }
+    }
+
+    @Test
+    void testParseAmount_MatchesBigDecimal() {
+        List<String> values = List.of(
+            "1000.50", "0.01", "1", "1.", ".5", "-.5", "+7.25", "-100", "0", "0.00", "-0.0", "007.10",
+            "123456789012345678", "1234567890123456789", "99999999999999999999.99", "1e3", "1.5E-2", "1e",
+            "٣.٥", "12,5", "1.2.3", "abc", "-", "+", ".", "", "1 000", "0x10", "1_000", "NaN", "--1", "1-");
+
+        for (String value : values) {
+            BigDecimal expected = bigDecimalResult(value);
+            BigDecimal actual = DealFieldParser.parseAmount(value);
+            assertEquals(expected, actual, value);
+        }
+    }
+
+    private static LocalDateTime formatterResult(String value) {
+        try {
+            return LocalDateTime.parse(value, FORMATTER);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal bigDecimalResult(String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.dealsystem.validation;
 
+import com.example.dealsystem.domain.CurrencyCode;
+import com.example.dealsystem.domain.ValidDeal;
 import com.example.dealsystem.dto.DealDto;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class DealValidatorTest {
@@ -133,5 +138,22 @@ class DealValidatorTest {
         assertFalse(result.isValid());
         assertTrue(result.getErrorMessage().contains("greater than zero"));
     }
-}
 
+    @Test
+    void testValidate_ValidDealKeepsParsedValues() {
+        DealDto dealDto = new DealDto();
+        dealDto.setDealId("DEAL001");
+        dealDto.setFromCurrency("usd");
+        dealDto.setToCurrency("EUR");
+        dealDto.setDateTime("2024-01-15 10:30:00");
+        dealDto.setAmount("1000.50");
+
+        ValidDeal validDeal = validator.validate(dealDto).toValidDeal(dealDto);
+
+        assertEquals("DEAL001", validDeal.getDealId());
+        assertEquals(CurrencyCode.USD, validDeal.getFromCurrency());
+        assertEquals(CurrencyCode.EUR, validDeal.getToCurrency());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), validDeal.getDateTime());
+        assertEquals(new BigDecimal("1000.50"), validDeal.getAmount());
+    }
+}